@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,9 +12,12 @@ package org.eclipse.jdt.internal.corext.dom;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 
+import org.eclipse.jdt.core.dom.AST;
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.AbstractTypeDeclaration;
 import org.eclipse.jdt.core.dom.AnonymousClassDeclaration;
@@ -60,6 +63,12 @@ public class ScopeAnalyzer {
 
 	private static final IBinding[] NO_BINDING= new IBinding[0];
 
+	/**
+	 * Property of the {@link CompilationUnit} that holds the {@link InheritedMembers} of the types
+	 * used in its scopes, by reported kinds.
+	 */
+	private static final String INHERITED_MEMBERS_PROPERTY= "org.eclipse.jdt.internal.corext.dom.ScopeAnalyzer.inheritedMembers"; //$NON-NLS-1$
+
 	/**
 	 * Flag to specify that method should be reported.
 	 */
@@ -179,60 +188,132 @@ public class ScopeAnalyzer {
 	 * @return return <code>true</code> if the requestor has reported the binding as found and no further results are required
 	 */
 	private boolean addInherited(ITypeBinding binding, int flags, IBindingRequestor requestor) {
-		return addInherited(binding, false, flags, requestor);
+		InheritedMembers inherited= getInheritedMembers(binding, flags);
+		ITypeBinding[] types= inherited.fTypes;
+		for (int i= 0; i < types.length; i++) {
+			// the visited types are closed under their super types, see InheritedMembers
+			if (!fTypesVisited.add(types[i])) {
+				continue;
+			}
+			for (int k= inherited.fMemberStarts[i]; k < inherited.fMemberStarts[i + 1]; k++) {
+				if (requestor.acceptBinding(inherited.fMembers[k]))
+					return true;
+			}
+		}
+		return false;
 	}
 
-	private boolean addInherited(ITypeBinding binding, boolean isSuperInterfaceBinding, int flags, IBindingRequestor requestor) {
-		if (!fTypesVisited.add(binding)) {
-			return false;
+	private InheritedMembers getInheritedMembers(ITypeBinding binding, int flags) {
+		int kinds= flags & (METHODS | VARIABLES | TYPES);
+		Map<ITypeBinding, InheritedMembers[]> index;
+		synchronized (fRoot) {
+			@SuppressWarnings("unchecked")
+			Map<ITypeBinding, InheritedMembers[]> property= (Map<ITypeBinding, InheritedMembers[]>) fRoot.getProperty(INHERITED_MEMBERS_PROPERTY);
+			if (property == null) {
+				property= new HashMap<>();
+				fRoot.setProperty(INHERITED_MEMBERS_PROPERTY, property);
+			}
+			index= property;
 		}
-		if (hasFlag(VARIABLES, flags)) {
-			IVariableBinding[] variableBindings= binding.getDeclaredFields();
-			for (int i= 0; i < variableBindings.length; i++) {
-				if (requestor.acceptBinding(variableBindings[i]))
-					return true;
+		synchronized (index) {
+			InheritedMembers[] byKinds= index.get(binding);
+			if (byKinds == null) {
+				byKinds= new InheritedMembers[(METHODS | VARIABLES | TYPES) + 1];
+				index.put(binding, byKinds);
 			}
+			if (byKinds[kinds] == null) {
+				byKinds[kinds]= new InheritedMembers(binding, kinds, fRoot.getAST());
+			}
+			return byKinds[kinds];
 		}
+	}
+
+	/**
+	 * The members that a type and its super types contribute to a scope, in the order in which
+	 * they are reported. Bindings do not depend on the position of a query, so the members are
+	 * computed once per AST and flags and are stored as a property of the compilation unit.
+	 * <p>
+	 * The types are collected from an empty set of visited types. A query replays them and skips the
+	 * types it has already visited: as every visit also visits all super types, the visited types are
+	 * closed under their super types, and skipping them reports the same members in the same order
+	 * as walking the hierarchy again.
+	 * </p>
+	 */
+	private static final class InheritedMembers {
 
-		if (hasFlag(METHODS, flags)) {
-			IMethodBinding[] methodBindings= binding.getDeclaredMethods();
-			for (int i= 0; i < methodBindings.length; i++) {
-				IMethodBinding curr= methodBindings[i];
-				if (isSuperInterfaceBinding && Modifier.isStatic(curr.getModifiers())) {
-					continue;
+		/** The types in visit order. */
+		final ITypeBinding[] fTypes;
+		/** The members of <code>fTypes[i]</code> are <code>fMembers[fMemberStarts[i]]</code> to <code>fMembers[fMemberStarts[i + 1] - 1]</code>. */
+		final int[] fMemberStarts;
+		final IBinding[] fMembers;
+
+		private final AST fAST;
+		private final List<ITypeBinding> fTypeList= new ArrayList<>();
+		private final List<Integer> fStartList= new ArrayList<>();
+		private final List<IBinding> fMemberList= new ArrayList<>();
+
+		InheritedMembers(ITypeBinding binding, int flags, AST ast) {
+			fAST= ast;
+			collect(binding, false, flags, new HashSet<ITypeBinding>());
+
+			fTypes= fTypeList.toArray(new ITypeBinding[fTypeList.size()]);
+			fMemberStarts= new int[fTypes.length + 1];
+			for (int i= 0; i < fTypes.length; i++) {
+				fMemberStarts[i]= fStartList.get(i).intValue();
+			}
+			fMemberStarts[fTypes.length]= fMemberList.size();
+			fMembers= fMemberList.toArray(new IBinding[fMemberList.size()]);
+			fTypeList.clear();
+			fStartList.clear();
+			fMemberList.clear();
+		}
+
+		private void collect(ITypeBinding binding, boolean isSuperInterfaceBinding, int flags, HashSet<ITypeBinding> visited) {
+			if (!visited.add(binding)) {
+				return;
+			}
+			fTypeList.add(binding);
+			fStartList.add(Integer.valueOf(fMemberList.size()));
+			if (hasFlag(VARIABLES, flags)) {
+				IVariableBinding[] variableBindings= binding.getDeclaredFields();
+				for (int i= 0; i < variableBindings.length; i++) {
+					fMemberList.add(variableBindings[i]);
 				}
-				if (!curr.isSynthetic() && !curr.isConstructor()) {
-					if (requestor.acceptBinding(curr))
-						return true;
+			}
+
+			if (hasFlag(METHODS, flags)) {
+				IMethodBinding[] methodBindings= binding.getDeclaredMethods();
+				for (int i= 0; i < methodBindings.length; i++) {
+					IMethodBinding curr= methodBindings[i];
+					if (isSuperInterfaceBinding && Modifier.isStatic(curr.getModifiers())) {
+						continue;
+					}
+					if (!curr.isSynthetic() && !curr.isConstructor()) {
+						fMemberList.add(curr);
+					}
 				}
 			}
-		}
 
-		if (hasFlag(TYPES, flags)) {
-			ITypeBinding[] typeBindings= binding.getDeclaredTypes();
-			for (int i= 0; i < typeBindings.length; i++) {
-				ITypeBinding curr= typeBindings[i];
-				if (requestor.acceptBinding(curr))
-					return true;
+			if (hasFlag(TYPES, flags)) {
+				ITypeBinding[] typeBindings= binding.getDeclaredTypes();
+				for (int i= 0; i < typeBindings.length; i++) {
+					fMemberList.add(typeBindings[i]);
+				}
 			}
-		}
 
 
-		ITypeBinding superClass= binding.getSuperclass();
-		if (superClass != null) {
-			if (addInherited(superClass, flags, requestor)) // recursive
-				return true;
-		} else if (binding.isArray()) {
-			if (addInherited(fRoot.getAST().resolveWellKnownType("java.lang.Object"), flags, requestor)) //$NON-NLS-1$
-				return true;
-		}
+			ITypeBinding superClass= binding.getSuperclass();
+			if (superClass != null) {
+				collect(superClass, false, flags, visited); // recursive
+			} else if (binding.isArray()) {
+				collect(fAST.resolveWellKnownType("java.lang.Object"), false, flags, visited); //$NON-NLS-1$
+			}
 
-		ITypeBinding[] interfaces= binding.getInterfaces(); // includes looking for methods: abstract, unimplemented methods
-		for (int i= 0; i < interfaces.length; i++) {
-			if (addInherited(interfaces[i], true, flags, requestor)) // recursive
-				return true;
+			ITypeBinding[] interfaces= binding.getInterfaces(); // includes looking for methods: abstract, unimplemented methods
+			for (int i= 0; i < interfaces.length; i++) {
+				collect(interfaces[i], true, flags, visited); // recursive
+			}
 		}
-		return false;
 	}
 
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -32,6 +32,7 @@ import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IField;
 import org.eclipse.jdt.core.IJarEntryResource;
 import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IMember;
 import org.eclipse.jdt.core.IMethod;
@@ -922,4 +923,58 @@ public final class JavaModelUtil {
 	public static boolean isPolymorphicSignature(IMethod method) {
 		return method.getAnnotation("java.lang.invoke.MethodHandle$PolymorphicSignature").exists(); //$NON-NLS-1$
 	}
+
+	/**
+	 * Tells whether the given delta may change any declaration, i.e. whether it reports more than
+	 * changes inside the bodies of methods, fields and initializers.
+	 *
+	 * @param delta the delta
+	 * @return <code>false</code> if only the bodies of members have changed
+	 */
+	public static boolean affectsDeclarations(IJavaElementDelta delta) {
+		if (delta.getKind() != IJavaElementDelta.CHANGED)
+			return true;
+
+		int flags= delta.getFlags();
+		switch (delta.getElement().getElementType()) {
+			case IJavaElement.JAVA_MODEL:
+			case IJavaElement.JAVA_PROJECT:
+			case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+			case IJavaElement.PACKAGE_FRAGMENT:
+				// F_CONTENT: non-Java resources have changed
+				if ((flags & ~(IJavaElementDelta.F_CHILDREN | IJavaElementDelta.F_CONTENT)) != 0)
+					return true;
+				break;
+
+			case IJavaElement.COMPILATION_UNIT:
+				if ((flags & ~(IJavaElementDelta.F_CHILDREN | IJavaElementDelta.F_CONTENT | IJavaElementDelta.F_FINE_GRAINED
+						| IJavaElementDelta.F_PRIMARY_RESOURCE | IJavaElementDelta.F_PRIMARY_WORKING_COPY | IJavaElementDelta.F_AST_AFFECTED)) != 0)
+					return true;
+				// a content change without details may have changed anything
+				if ((flags & IJavaElementDelta.F_CONTENT) != 0 && (flags & IJavaElementDelta.F_FINE_GRAINED) == 0)
+					return true;
+				break;
+
+			case IJavaElement.TYPE:
+				if (flags != IJavaElementDelta.F_CHILDREN)
+					return true;
+				break;
+
+			case IJavaElement.METHOD:
+			case IJavaElement.FIELD:
+			case IJavaElement.INITIALIZER:
+				// local and anonymous types are reported as children
+				return flags != IJavaElementDelta.F_CONTENT || delta.getAffectedChildren().length > 0;
+
+			default:
+				return true;
+		}
+
+		IJavaElementDelta[] children= delta.getAffectedChildren();
+		for (int i= 0; i < children.length; i++) {
+			if (affectsDeclarations(children[i]))
+				return true;
+		}
+		return false;
+	}
 }
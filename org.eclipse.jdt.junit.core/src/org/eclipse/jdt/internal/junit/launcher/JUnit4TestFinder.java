@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2015 IBM Corporation and others.
+ * Copyright (c) 2006, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -113,7 +113,7 @@ public class JUnit4TestFinder implements ITestFinder {
 		}
 
 		if (element instanceof IType) {
-			if (internalIsTest((IType) element, pm)) {
+			if (isTest((IType) element, pm)) {
 				result.add((IType) element);
 				return;
 			}
@@ -123,10 +123,33 @@ public class JUnit4TestFinder implements ITestFinder {
 			pm= new NullProgressMonitor();
 
 		try {
-			pm.beginTask(JUnitMessages.JUnit4TestFinder_searching_description, 4);
+			pm.beginTask(JUnitMessages.JUnit4TestFinder_searching_description, 8);
 
+			if (JUnit4TestIndex.getInstance().findTestsInContainer(this, element, result, new SubProgressMonitor(pm, 4)))
+				return;
+
+			// the index can't answer the query, search the container
 			IRegion region= CoreTestSearchEngine.getRegion(element);
 			ITypeHierarchy hierarchy= JavaCore.newTypeHierarchy(region, null, new SubProgressMonitor(pm, 1));
+			searchTests(element, region, hierarchy, result, new SubProgressMonitor(pm, 3));
+		} finally {
+			pm.done();
+		}
+	}
+
+	/**
+	 * Searches the tests in the given container.
+	 *
+	 * @param element the container to search
+	 * @param region the region of the container, see {@link CoreTestSearchEngine#getRegion(IJavaElement)}
+	 * @param hierarchy the type hierarchy of the region
+	 * @param result the set the tests are added to
+	 * @param pm the progress monitor
+	 * @throws CoreException if the search failed
+	 */
+	void searchTests(IJavaElement element, IRegion region, ITypeHierarchy hierarchy, Set<IType> result, IProgressMonitor pm) throws CoreException {
+		try {
+			pm.beginTask("", 3); //$NON-NLS-1$
 			IType[] allClasses= hierarchy.getAllClasses();
 
 			// search for all types with references to RunWith and Test and all subclasses
@@ -197,10 +220,17 @@ public class JUnit4TestFinder implements ITestFinder {
 
 	@Override
 	public boolean isTest(IType type) throws JavaModelException {
-		return internalIsTest(type, null);
+		return isTest(type, null);
+	}
+
+	private boolean isTest(IType type, IProgressMonitor monitor) throws JavaModelException {
+		Boolean indexed= JUnit4TestIndex.getInstance().isTest(type);
+		if (indexed != null)
+			return indexed.booleanValue();
+		return internalIsTest(type, monitor);
 	}
 
-	private boolean internalIsTest(IType type, IProgressMonitor monitor) throws JavaModelException {
+	boolean internalIsTest(IType type, IProgressMonitor monitor) throws JavaModelException {
 		if (CoreTestSearchEngine.isAccessibleClass(type)) {
 			if (CoreTestSearchEngine.hasSuiteMethod(type)) { // since JUnit 4.3.1
 				return true;
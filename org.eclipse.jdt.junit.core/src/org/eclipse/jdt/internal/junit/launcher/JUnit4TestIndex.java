@@ -0,0 +1,508 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.junit.launcher;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubProgressMonitor;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IAnnotation;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IRegion;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.ITypeHierarchy;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+
+import org.eclipse.jdt.internal.junit.util.CoreTestSearchEngine;
+
+/**
+ * Index of the JUnit 4 test classes in the source folders of a project.
+ * <p>
+ * The index of a project is built with the search of the {@link JUnit4TestFinder} when the
+ * project is first queried. Afterwards, it is kept up to date from Java element deltas, including
+ * the reconcile deltas of primary working copies: a changed compilation unit only rechecks the
+ * types it declares, plus their subclasses if the change can affect them. Structural changes (class
+ * path, package fragment roots, packages) discard the index of the affected projects, which is then
+ * rebuilt on the next query. Changed compilation units are rechecked on the next query; until then,
+ * {@link #isTest(IType)} doesn't answer for the types of the project.
+ * </p>
+ * <p>
+ * If the index cannot answer a query, {@link #findTestsInContainer(JUnit4TestFinder, IJavaElement, Set, IProgressMonitor)}
+ * returns <code>false</code> and the caller has to use the search.
+ * </p>
+ */
+public final class JUnit4TestIndex {
+
+	private static final class ProjectIndex {
+
+		private final IJavaProject fProject;
+
+		/** Guarded by the index. */
+		private final Set<ICompilationUnit> fPending= new LinkedHashSet<>();
+		/** The compilation unit that is currently updated; guarded by the index. */
+		private ICompilationUnit fUpdating;
+		/** Guarded by the index. */
+		private boolean fDiscarded;
+
+		/** Written by the builder thread, read under the index lock by {@link JUnit4TestIndex#isTest(IType)}. */
+		private volatile boolean fBuilt;
+		/** Only changed while {@link #fBuilt} is <code>false</code> or under the index lock. */
+		private final Set<IType> fTests= ConcurrentHashMap.newKeySet();
+
+		/* The following fields are guarded by this project index. */
+		private final Map<ICompilationUnit, List<IType>> fTypesByUnit= new HashMap<>();
+		private final Map<IType, IType> fSuperclasses= new HashMap<>();
+		private final Map<IType, Set<IType>> fSubclasses= new HashMap<>();
+		/** Fingerprints of the compilation units that declare a superclass of another indexed class. */
+		private final Map<ICompilationUnit, String> fFingerprints= new HashMap<>();
+
+		public ProjectIndex(IJavaProject project) {
+			fProject= project;
+		}
+	}
+
+	private final class DeltaListener implements IElementChangedListener {
+		@Override
+		public void elementChanged(ElementChangedEvent event) {
+			synchronized (JUnit4TestIndex.this) {
+				if (fProjects.isEmpty())
+					return;
+				if (event.getType() == ElementChangedEvent.POST_RECONCILE) {
+					// the searches see the primary working copies, so the index has to as well
+					IJavaElement element= event.getDelta().getElement();
+					if (element instanceof ICompilationUnit && ((ICompilationUnit) element).getOwner() == null)
+						compilationUnitChanged((ICompilationUnit) element);
+				} else {
+					processDelta(event.getDelta());
+				}
+			}
+		}
+	}
+
+	private static JUnit4TestIndex fgInstance;
+
+	private final Map<IJavaProject, ProjectIndex> fProjects= new HashMap<>();
+	private final IElementChangedListener fListener;
+
+	public static synchronized JUnit4TestIndex getInstance() {
+		if (fgInstance == null)
+			fgInstance= new JUnit4TestIndex();
+		return fgInstance;
+	}
+
+	public static synchronized void shutdown() {
+		if (fgInstance == null)
+			return;
+		JavaCore.removeElementChangedListener(fgInstance.fListener);
+		fgInstance= null;
+	}
+
+	private JUnit4TestIndex() {
+		fListener= new DeltaListener();
+		JavaCore.addElementChangedListener(fListener, ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+	}
+
+	/**
+	 * Adds the tests in the given container to the result, building the index of the container's
+	 * project if necessary.
+	 *
+	 * @param finder the finder used to build the index and to recheck changed types
+	 * @param element the container to search
+	 * @param result the set the tests are added to
+	 * @param pm the progress monitor
+	 * @return <code>true</code> if the tests have been added, <code>false</code> if the index
+	 *  cannot answer the query and nothing has been added
+	 * @throws CoreException if building the index failed
+	 */
+	boolean findTestsInContainer(JUnit4TestFinder finder, IJavaElement element, Set<IType> result, IProgressMonitor pm) throws CoreException {
+		IPackageFragmentRoot root= (IPackageFragmentRoot) element.getAncestor(IJavaElement.PACKAGE_FRAGMENT_ROOT);
+		if (root != null && root.isArchive())
+			return false;
+		IJavaProject project= element.getJavaProject();
+		if (project == null || !project.exists())
+			return false;
+
+		ProjectIndex index;
+		synchronized (this) {
+			index= fProjects.get(project);
+			if (index == null) {
+				index= new ProjectIndex(project);
+				fProjects.put(project, index);
+			}
+		}
+
+		synchronized (index) {
+			pm.beginTask("", 5); //$NON-NLS-1$
+			try {
+				if (!index.fBuilt)
+					build(finder, index, new SubProgressMonitor(pm, 4));
+				update(finder, index);
+				synchronized (this) {
+					if (index.fDiscarded)
+						return false;
+				}
+
+				IRegion region= CoreTestSearchEngine.getRegion(element);
+				for (Iterator<IType> iter= index.fTests.iterator(); iter.hasNext();) {
+					IType type= iter.next();
+					if (region.contains(type) && type.exists())
+						result.add(type);
+				}
+				pm.worked(1);
+				return true;
+			} finally {
+				pm.done();
+			}
+		}
+	}
+
+	/**
+	 * Tells whether the given type is a test, if this is known without a search.
+	 *
+	 * @param type the type to check
+	 * @return {@link Boolean#TRUE} or {@link Boolean#FALSE} if the index of the type's project is
+	 *  up to date, <code>null</code> otherwise
+	 */
+	Boolean isTest(IType type) {
+		if (type.getCompilationUnit() == null)
+			return null;
+		synchronized (this) {
+			ProjectIndex index= fProjects.get(type.getJavaProject());
+			// a change in any compilation unit can affect the type through its super types;
+			// don't wait for a running build or update
+			if (index == null || index.fDiscarded || !index.fBuilt || !index.fPending.isEmpty() || index.fUpdating != null)
+				return null;
+			return Boolean.valueOf(index.fTests.contains(type));
+		}
+	}
+
+	private void build(JUnit4TestFinder finder, ProjectIndex index, IProgressMonitor pm) throws CoreException {
+		try {
+			pm.beginTask("", 4); //$NON-NLS-1$
+			synchronized (this) {
+				// the full build includes all pending changes
+				index.fPending.clear();
+			}
+			IRegion region= CoreTestSearchEngine.getRegion(index.fProject);
+			ITypeHierarchy hierarchy= JavaCore.newTypeHierarchy(region, null, new SubProgressMonitor(pm, 1));
+			finder.searchTests(index.fProject, region, hierarchy, index.fTests, new SubProgressMonitor(pm, 3));
+
+			IType[] allClasses= hierarchy.getAllClasses();
+			for (int i= 0; i < allClasses.length; i++) {
+				IType type= allClasses[i];
+				ICompilationUnit cu= type.getCompilationUnit();
+				if (cu != null && region.contains(type))
+					addType(index, cu, type, hierarchy.getSuperclass(type));
+			}
+			for (Iterator<IType> iter= index.fSubclasses.keySet().iterator(); iter.hasNext();) {
+				ICompilationUnit cu= iter.next().getCompilationUnit();
+				if (cu != null && index.fTypesByUnit.containsKey(cu) && !index.fFingerprints.containsKey(cu))
+					index.fFingerprints.put(cu, getFingerprint(cu));
+			}
+			index.fBuilt= true;
+		} catch (OperationCanceledException e) {
+			clear(index);
+			throw e;
+		} catch (CoreException e) {
+			clear(index);
+			throw e;
+		} finally {
+			pm.done();
+		}
+	}
+
+	private void update(JUnit4TestFinder finder, ProjectIndex index) {
+		while (true) {
+			ICompilationUnit cu;
+			synchronized (this) {
+				index.fUpdating= null;
+				if (index.fDiscarded || index.fPending.isEmpty())
+					return;
+				Iterator<ICompilationUnit> iter= index.fPending.iterator();
+				cu= iter.next();
+				iter.remove();
+				index.fUpdating= cu;
+			}
+			try {
+				update(finder, index, cu);
+			} catch (JavaModelException e) {
+				// the index is incomplete now, let the caller fall back to the search
+				synchronized (this) {
+					index.fUpdating= null;
+					index.fDiscarded= true;
+					fProjects.remove(index.fProject, index);
+				}
+				return;
+			}
+		}
+	}
+
+	/*
+	 * Rechecks the types of the given compilation unit. The new tests are computed first and
+	 * then replace the old ones in a single step under the index lock.
+	 */
+	private void update(JUnit4TestFinder finder, ProjectIndex index, ICompilationUnit cu) throws JavaModelException {
+		String oldFingerprint= index.fFingerprints.remove(cu);
+		Set<IType> subclasses= new HashSet<>();
+		Set<IType> removedTests= new HashSet<>();
+		Set<IType> addedTests= new HashSet<>();
+
+		List<IType> oldTypes= index.fTypesByUnit.remove(cu);
+		if (oldTypes != null) {
+			for (Iterator<IType> iter= oldTypes.iterator(); iter.hasNext();) {
+				IType type= iter.next();
+				collectSubclasses(index, type, subclasses);
+				removeType(index, type);
+				removedTests.add(type);
+			}
+		}
+
+		if (cu.exists()) {
+			IType[] types= cu.getAllTypes();
+			for (int i= 0; i < types.length; i++) {
+				IType type= types[i];
+				if (!type.isClass())
+					continue;
+				IType superclass= type.newSupertypeHierarchy(null).getSuperclass(type);
+				addType(index, cu, type, superclass);
+				if (finder.internalIsTest(type, null))
+					addedTests.add(type);
+				collectSubclasses(index, type, subclasses);
+			}
+			if (!subclasses.isEmpty()) {
+				String fingerprint= getFingerprint(cu);
+				index.fFingerprints.put(cu, fingerprint);
+				if (fingerprint.equals(oldFingerprint)) {
+					// members, annotations and super types are unchanged, subclasses are not affected
+					subclasses.clear();
+				}
+			}
+		}
+
+		for (Iterator<IType> iter= subclasses.iterator(); iter.hasNext();) {
+			IType type= iter.next();
+			if (cu.equals(type.getCompilationUnit()))
+				continue;
+			removedTests.add(type);
+			if (type.exists() && finder.internalIsTest(type, null))
+				addedTests.add(type);
+		}
+
+		synchronized (this) {
+			index.fTests.removeAll(removedTests);
+			index.fTests.addAll(addedTests);
+		}
+	}
+
+	private void addType(ProjectIndex index, ICompilationUnit cu, IType type, IType superclass) throws JavaModelException {
+		List<IType> types= index.fTypesByUnit.get(cu);
+		if (types == null) {
+			types= new ArrayList<>(1);
+			index.fTypesByUnit.put(cu, types);
+		}
+		types.add(type);
+
+		if (superclass == null)
+			return;
+		index.fSuperclasses.put(type, superclass);
+		Set<IType> subclasses= index.fSubclasses.get(superclass);
+		if (subclasses == null) {
+			subclasses= new HashSet<>();
+			index.fSubclasses.put(superclass, subclasses);
+		}
+		subclasses.add(type);
+
+		ICompilationUnit superUnit= superclass.getCompilationUnit();
+		if (superUnit != null && !superUnit.equals(cu) && index.fTypesByUnit.containsKey(superUnit) && !index.fFingerprints.containsKey(superUnit))
+			index.fFingerprints.put(superUnit, getFingerprint(superUnit));
+	}
+
+	private void removeType(ProjectIndex index, IType type) {
+		IType superclass= index.fSuperclasses.remove(type);
+		if (superclass != null) {
+			Set<IType> siblings= index.fSubclasses.get(superclass);
+			if (siblings != null) {
+				siblings.remove(type);
+				if (siblings.isEmpty())
+					index.fSubclasses.remove(superclass);
+			}
+		}
+	}
+
+	private static void collectSubclasses(ProjectIndex index, IType type, Set<IType> result) {
+		Set<IType> subclasses= index.fSubclasses.get(type);
+		if (subclasses == null)
+			return;
+		for (Iterator<IType> iter= subclasses.iterator(); iter.hasNext();) {
+			IType subclass= iter.next();
+			if (result.add(subclass))
+				collectSubclasses(index, subclass, result);
+		}
+	}
+
+	/*
+	 * Describes everything in the compilation unit that can make a subclass a test:
+	 * flags, super types, annotations and methods.
+	 */
+	private static String getFingerprint(ICompilationUnit cu) throws JavaModelException {
+		if (!cu.exists())
+			return ""; //$NON-NLS-1$
+		StringBuilder buf= new StringBuilder();
+		IType[] types= cu.getAllTypes();
+		for (int i= 0; i < types.length; i++) {
+			IType type= types[i];
+			buf.append(type.getFullyQualifiedName()).append(' ').append(type.getFlags());
+			buf.append(" extends ").append(type.getSuperclassName()); //$NON-NLS-1$
+			String[] interfaces= type.getSuperInterfaceNames();
+			for (int k= 0; k < interfaces.length; k++) {
+				buf.append(' ').append(interfaces[k]);
+			}
+			appendAnnotations(buf, type.getAnnotations());
+			IMethod[] methods= type.getMethods();
+			for (int k= 0; k < methods.length; k++) {
+				IMethod method= methods[k];
+				buf.append('\n').append(method.getFlags()).append(' ').append(method.getReturnType()).append(' ').append(method.getElementName());
+				String[] parameterTypes= method.getParameterTypes();
+				for (int j= 0; j < parameterTypes.length; j++) {
+					buf.append(' ').append(parameterTypes[j]);
+				}
+				appendAnnotations(buf, method.getAnnotations());
+			}
+			buf.append('\n');
+		}
+		return buf.toString();
+	}
+
+	private static void appendAnnotations(StringBuilder buf, IAnnotation[] annotations) {
+		for (int i= 0; i < annotations.length; i++) {
+			buf.append(" @").append(annotations[i].getElementName()); //$NON-NLS-1$
+		}
+	}
+
+	private void clear(ProjectIndex index) {
+		synchronized (this) {
+			index.fBuilt= false;
+			index.fTests.clear();
+		}
+		index.fTypesByUnit.clear();
+		index.fSuperclasses.clear();
+		index.fSubclasses.clear();
+		index.fFingerprints.clear();
+	}
+
+	private void processDelta(IJavaElementDelta delta) {
+		IJavaElement element= delta.getElement();
+		switch (element.getElementType()) {
+			case IJavaElement.JAVA_MODEL:
+				processChildren(delta);
+				return;
+			case IJavaElement.JAVA_PROJECT:
+				if (delta.getKind() != IJavaElementDelta.CHANGED
+						|| (delta.getFlags() & (IJavaElementDelta.F_CLOSED | IJavaElementDelta.F_OPENED | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED | IJavaElementDelta.F_CLASSPATH_CHANGED)) != 0) {
+					discardAll();
+					return;
+				}
+				processChildren(delta);
+				return;
+			case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+				if (delta.getKind() != IJavaElementDelta.CHANGED
+						|| (delta.getFlags() & ~(IJavaElementDelta.F_CHILDREN | IJavaElementDelta.F_CONTENT)) != 0
+						|| ((IPackageFragmentRoot) element).isArchive()) {
+					discard(element);
+					return;
+				}
+				processChildren(delta);
+				return;
+			case IJavaElement.PACKAGE_FRAGMENT:
+				if (delta.getKind() != IJavaElementDelta.CHANGED) {
+					discard(element);
+					return;
+				}
+				processChildren(delta);
+				return;
+			case IJavaElement.COMPILATION_UNIT:
+				// F_PRIMARY_WORKING_COPY: an editor has been closed without saving
+				if (delta.getKind() == IJavaElementDelta.CHANGED
+						&& (delta.getFlags() & (IJavaElementDelta.F_CONTENT | IJavaElementDelta.F_PRIMARY_RESOURCE | IJavaElementDelta.F_PRIMARY_WORKING_COPY)) == 0)
+					return;
+				compilationUnitChanged((ICompilationUnit) element);
+				return;
+			case IJavaElement.CLASS_FILE:
+				discard(element);
+				return;
+			default:
+				return;
+		}
+	}
+
+	private void processChildren(IJavaElementDelta delta) {
+		IJavaElementDelta[] children= delta.getAffectedChildren();
+		for (int i= 0; i < children.length; i++) {
+			processDelta(children[i]);
+			if (fProjects.isEmpty())
+				return;
+		}
+	}
+
+	private void compilationUnitChanged(ICompilationUnit cu) {
+		IJavaProject project= cu.getJavaProject();
+		for (Iterator<ProjectIndex> iter= fProjects.values().iterator(); iter.hasNext();) {
+			ProjectIndex index= iter.next();
+			if (index.fProject.equals(project)) {
+				index.fPending.add(cu);
+			} else if (index.fProject.isOnClasspath(cu)) {
+				// the subclasses in other projects are not tracked
+				index.fDiscarded= true;
+				iter.remove();
+			}
+		}
+	}
+
+	/*
+	 * Discards the indexes of the projects that can see the given element.
+	 */
+	private void discard(IJavaElement element) {
+		IJavaProject project= element.getJavaProject();
+		for (Iterator<ProjectIndex> iter= fProjects.values().iterator(); iter.hasNext();) {
+			ProjectIndex index= iter.next();
+			if (index.fProject.equals(project) || index.fProject.isOnClasspath(element)) {
+				index.fDiscarded= true;
+				iter.remove();
+			}
+		}
+	}
+
+	private void discardAll() {
+		for (Iterator<ProjectIndex> iter= fProjects.values().iterator(); iter.hasNext();) {
+			iter.next().fDiscarded= true;
+		}
+		fProjects.clear();
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -37,6 +37,7 @@ import org.eclipse.jdt.internal.ui.javaeditor.JavaEditor;
 import org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlighting;
 import org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightingManager;
 import org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightingPresenter;
+import org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightingReconciler;
 import org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightings;
 
 
@@ -140,13 +141,49 @@ public class AbstractSemanticHighlightingTest extends TestCase {
 		return document.getPositions(positionCategory);
 	}
 
-	protected void setUpSemanticHighlighting(String semanticHighlighting) {
-		enableSemanticHighlighting(semanticHighlighting);
+	protected SemanticHighlightingReconciler getSemanticHighlightingReconciler() {
+		SemanticHighlightingManager manager= (SemanticHighlightingManager) new Accessor(fEditor, JavaEditor.class).get("fSemanticManager");
+		return (SemanticHighlightingReconciler) new Accessor(manager, manager.getClass()).get("fReconciler");
+	}
+
+	protected IDocument getDocument() {
+		return fSourceViewer.getDocument();
+	}
+
+	/**
+	 * Replaces the given range of the editor's document and waits for the reconciler
+	 * that is triggered by the change.
+	 *
+	 * @param offset the offset of the range
+	 * @param length the length of the range
+	 * @param text the replacement text
+	 * @throws BadLocationException if the range is invalid
+	 */
+	protected void replaceAndReconcile(int offset, int length, String text) throws BadLocationException {
+		getDocument().replace(offset, length, text);
+		assertTrue(EditorTestHelper.joinReconciler(fSourceViewer, 100, 10000, 100));
+		EditorTestHelper.runEventQueue(100);
+	}
+
+	/**
+	 * Reverts the changes made to the editor's document and reconciles it again.
+	 */
+	protected void revertAndReconcile() {
+		EditorTestHelper.revertEditor(fEditor, true);
+		forceReconcile();
+	}
+
+	protected void forceReconcile() {
 		EditorTestHelper.forceReconcile(fSourceViewer);
 		assertTrue(EditorTestHelper.joinReconciler(fSourceViewer, 0, 10000, 100));
 		EditorTestHelper.runEventQueue(100);
 	}
 
+	protected void setUpSemanticHighlighting(String semanticHighlighting) {
+		enableSemanticHighlighting(semanticHighlighting);
+		forceReconcile();
+	}
+
 	private void enableSemanticHighlighting(String preferenceKey) {
 		IPreferenceStore store= JavaPlugin.getDefault().getPreferenceStore();
 		store.setValue(getEnabledPreferenceKey(preferenceKey), true);
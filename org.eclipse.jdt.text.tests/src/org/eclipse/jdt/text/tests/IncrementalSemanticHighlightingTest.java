@@ -0,0 +1,221 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.text.tests.performance.ResourceTestHelper;
+
+import org.eclipse.text.tests.Accessor;
+
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.Position;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+
+import org.eclipse.jdt.internal.corext.dom.IASTSharedValues;
+
+import org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightingReconciler;
+import org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightings;
+
+/**
+ * Tests that the positions of an incremental reconcile are the ones of a full reconcile.
+ */
+public class IncrementalSemanticHighlightingTest extends AbstractSemanticHighlightingTest {
+
+	private static final Class<IncrementalSemanticHighlightingTest> THIS= IncrementalSemanticHighlightingTest.class;
+
+	private static final String SOURCE=
+			"class A {\n" +
+			"	int f;\n" +
+			"	void m() {\n" +
+			"		f++;\n" +
+			"	}\n" +
+			"	void n() {\n" +
+			"	}\n" +
+			"}\n";
+
+	public static Test suite() {
+		return new SemanticHighlightingTestSetup(new TestSuite(THIS), "/SHTest/src/SHTest.java");
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		revertAndReconcile();
+		super.tearDown();
+	}
+
+	public void testEditInMethodBody() throws Exception {
+		setUpSemanticHighlighting(SemanticHighlightings.FIELD);
+		setUpSemanticHighlighting(SemanticHighlightings.NUMBER);
+
+		replaceAndReconcile(getDocument().getLineOffset(9) + 2, 0, "local= field + 2;\n\t\t");
+		Position[] actual= copy(getSemanticHighlightingPositions());
+		assertContains(actual, createPosition(9, 9, 5));
+		assertContains(actual, createPosition(9, 17, 1));
+		assertContains(actual, createPosition(49, 22, 5));
+
+		forceReconcile();
+		assertEqualPositions(getSemanticHighlightingPositions(), actual);
+	}
+
+	public void testEditDeclaration() throws Exception {
+		setUpSemanticHighlighting(SemanticHighlightings.STATIC_FIELD);
+
+		// staticField is no longer static, its references in the inner class change too
+		replaceAndReconcile(getDocument().getLineOffset(4) + 1, 7, "");
+		Position[] expected= new Position[] {
+				createPosition(6, 18, 16),
+				createPosition(35, 37, 16),
+		};
+		Position[] actual= copy(getSemanticHighlightingPositions());
+		assertEqualPositions(expected, actual);
+
+		forceReconcile();
+		assertEqualPositions(getSemanticHighlightingPositions(), actual);
+	}
+
+	public void testMoveMember() throws Exception {
+		setUpSemanticHighlighting(SemanticHighlightings.STATIC_METHOD_INVOCATION);
+
+		IDocument document= getDocument();
+		int offset= document.getLineOffset(19);
+		String member= document.get(offset, document.getLineLength(19));
+		document.replace(offset, member.length(), "");
+		replaceAndReconcile(document.getLineOffset(7), 0, member);
+		Position[] expected= new Position[] {
+				createPosition(11, 2, 12),
+		};
+		Position[] actual= copy(getSemanticHighlightingPositions());
+		assertEqualPositions(expected, actual);
+
+		forceReconcile();
+		assertEqualPositions(getSemanticHighlightingPositions(), actual);
+	}
+
+	public void testForcedReconcileWithPendingBodyEdit() throws Exception {
+		setUpSemanticHighlighting(SemanticHighlightings.DEPRECATED_MEMBER);
+		assertEquals(9, getSemanticHighlightingPositions().length);
+
+		ICompilationUnit externalClass= JavaCore.createCompilationUnitFrom(ResourceTestHelper.findFile("/SHTest/src/test/ExternalClass.java"));
+		externalClass.becomeWorkingCopy(null);
+		try {
+			// the body edit is still pending when the change outside the editor forces a reconcile
+			getDocument().replace(getDocument().getLineOffset(9) + 2, 0, "local++;\n\t\t");
+			externalClass.getBuffer().setContents("package test;\n\npublic class ExternalClass {\n}\n");
+			externalClass.reconcile(ICompilationUnit.NO_AST, false, null, null);
+			forceReconcile();
+
+			// the references to ExternalClass outside the edited body are no longer deprecated
+			Position[] actual= copy(getSemanticHighlightingPositions());
+			assertEquals(6, actual.length);
+
+			forceReconcile();
+			assertEqualPositions(getSemanticHighlightingPositions(), actual);
+		} finally {
+			externalClass.discardWorkingCopy();
+		}
+	}
+
+	public void testFindEnclosingBody() throws Exception {
+		CompilationUnit ast= createAST(SOURCE);
+		int offset= SOURCE.indexOf("f++");
+
+		ASTNode body= findEnclosingBody(ast, offset, offset + 3);
+		assertNotNull(body);
+		assertEquals("m", ((MethodDeclaration) body.getParent()).getName().getIdentifier());
+
+		// the name and the braces of a method are part of its declaration
+		offset= SOURCE.indexOf("n()");
+		assertNull(findEnclosingBody(ast, offset, offset + 1));
+		offset= SOURCE.indexOf("f++;") + 4;
+		assertNull(findEnclosingBody(ast, offset, SOURCE.indexOf("void n")));
+		offset= SOURCE.indexOf("int f");
+		assertNull(findEnclosingBody(ast, offset, offset + 3));
+	}
+
+	public void testIsMovedOnly() throws Exception {
+		int[] ranges= computeMemberRanges(createAST(SOURCE));
+		assertEquals(6, ranges.length);
+
+		// edit inside the body of m, n is moved
+		int offset= SOURCE.indexOf("f++;") + 4;
+		String text= "\n\t\tf--;";
+		int[] newRanges= computeMemberRanges(createAST(insert(SOURCE, offset, text)));
+		assertTrue(isMovedOnly(ranges, newRanges, offset, offset + text.length(), text.length()));
+		assertFalse(isMovedOnly(ranges, newRanges, offset, offset + text.length(), 0));
+
+		// new member
+		offset= SOURCE.indexOf("\tvoid n");
+		text= "\tint g;\n";
+		newRanges= computeMemberRanges(createAST(insert(SOURCE, offset, text)));
+		assertFalse(isMovedOnly(ranges, newRanges, offset, offset + text.length(), text.length()));
+
+		// f moved behind m
+		String field= "\tint f;\n";
+		int fieldOffset= SOURCE.indexOf(field);
+		String removed= SOURCE.substring(0, fieldOffset) + SOURCE.substring(fieldOffset + field.length());
+		offset= removed.indexOf("\tvoid n");
+		newRanges= computeMemberRanges(createAST(insert(removed, offset, field)));
+		assertEquals(6, newRanges.length);
+		assertFalse(isMovedOnly(ranges, newRanges, fieldOffset, offset + field.length(), 0));
+	}
+
+	private static String insert(String source, int offset, String text) {
+		return source.substring(0, offset) + text + source.substring(offset);
+	}
+
+	private static CompilationUnit createAST(String source) {
+		ASTParser parser= ASTParser.newParser(IASTSharedValues.SHARED_AST_LEVEL);
+		parser.setSource(source.toCharArray());
+		return (CompilationUnit) parser.createAST(null);
+	}
+
+	private ASTNode findEnclosingBody(CompilationUnit ast, int start, int end) {
+		Accessor accessor= new Accessor(getSemanticHighlightingReconciler(), SemanticHighlightingReconciler.class);
+		return (ASTNode) accessor.invoke("findEnclosingBody", new Class[] { CompilationUnit.class, int.class, int.class }, new Object[] { ast, Integer.valueOf(start), Integer.valueOf(end) });
+	}
+
+	private int[] computeMemberRanges(CompilationUnit ast) {
+		Accessor accessor= new Accessor(getSemanticHighlightingReconciler(), SemanticHighlightingReconciler.class);
+		return (int[]) accessor.invoke("computeMemberRanges", new Class[] { CompilationUnit.class }, new Object[] { ast });
+	}
+
+	private boolean isMovedOnly(int[] oldRanges, int[] newRanges, int start, int end, int delta) {
+		Accessor accessor= new Accessor(getSemanticHighlightingReconciler(), SemanticHighlightingReconciler.class);
+		Object[] args= new Object[] { oldRanges, newRanges, Integer.valueOf(start), Integer.valueOf(end), Integer.valueOf(delta) };
+		return ((Boolean) accessor.invoke("isMovedOnly", new Class[] { int[].class, int[].class, int.class, int.class, int.class }, args)).booleanValue();
+	}
+
+	/*
+	 * The presenter updates its positions in place, compare snapshots.
+	 */
+	private static Position[] copy(Position[] positions) {
+		Position[] copy= new Position[positions.length];
+		for (int i= 0; i < positions.length; i++)
+			copy[i]= new Position(positions[i].getOffset(), positions[i].getLength());
+		return copy;
+	}
+
+	private static void assertContains(Position[] positions, Position expected) {
+		for (int i= 0; i < positions.length; i++) {
+			if (positions[i].getOffset() == expected.getOffset() && positions[i].getLength() == expected.getLength())
+				return;
+		}
+		fail("missing " + expected);
+	}
+}
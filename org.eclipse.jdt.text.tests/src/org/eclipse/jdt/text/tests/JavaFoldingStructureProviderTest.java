@@ -0,0 +1,197 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+import org.eclipse.jdt.text.tests.performance.EditorTestHelper;
+
+import org.eclipse.text.tests.Accessor;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.Position;
+import org.eclipse.jface.text.source.Annotation;
+import org.eclipse.jface.text.source.projection.ProjectionAnnotation;
+import org.eclipse.jface.text.source.projection.ProjectionAnnotationModel;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+
+import org.eclipse.jdt.ui.JavaUI;
+import org.eclipse.jdt.ui.text.folding.DefaultJavaFoldingStructureProvider;
+import org.eclipse.jdt.ui.text.folding.IJavaFoldingStructureProvider;
+
+import org.eclipse.jdt.internal.ui.javaeditor.JavaEditor;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the incremental update of the Java folding structure.
+ */
+public class JavaFoldingStructureProviderTest extends TestCase {
+
+	private IJavaProject fJProject;
+	private JavaEditor fEditor;
+	private IDocument fDocument;
+	private ProjectionAnnotationModel fModel;
+	private Accessor fProvider;
+
+	public static Test suite() {
+		return new TestSuite(JavaFoldingStructureProviderTest.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fJProject= JavaProjectHelper.createJavaProject("FoldingTest", "bin");
+		JavaProjectHelper.addRTJar(fJProject);
+		IPackageFragmentRoot sourceFolder= JavaProjectHelper.addSourceContainer(fJProject, "src");
+		IPackageFragment pack= sourceFolder.createPackageFragment("test1", false, null);
+		StringBuffer buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("\n");
+		buf.append("public class Folding {\n");
+		buf.append("    /**\n");
+		buf.append("     * Javadoc.\n");
+		buf.append("     */\n");
+		buf.append("    public void first() {\n");
+		buf.append("        int i= 0;\n");
+		buf.append("    }\n");
+		buf.append("\n");
+		buf.append("    public void second() {\n");
+		buf.append("        int j= 0;\n");
+		buf.append("    }\n");
+		buf.append("\n");
+		buf.append("    public void third() {\n");
+		buf.append("    }\n");
+		buf.append("}\n");
+		ICompilationUnit cu= pack.createCompilationUnit("Folding.java", buf.toString(), false, null);
+
+		fEditor= (JavaEditor) JavaUI.openInEditor(cu);
+		fDocument= fEditor.getDocumentProvider().getDocument(fEditor.getEditorInput());
+		fModel= fEditor.getAdapter(ProjectionAnnotationModel.class);
+		assertNotNull(fModel);
+		IJavaFoldingStructureProvider provider= fEditor.getAdapter(IJavaFoldingStructureProvider.class);
+		assertTrue(provider instanceof DefaultJavaFoldingStructureProvider);
+		fProvider= new Accessor(provider, DefaultJavaFoldingStructureProvider.class);
+		assertTrue(EditorTestHelper.joinReconciler(EditorTestHelper.getSourceViewer(fEditor), 0, 10000, 100));
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		EditorTestHelper.closeAllEditors();
+		JavaProjectHelper.delete(fJProject);
+	}
+
+	public void testBodyEditKeepsOtherAnnotations() throws Exception {
+		Map<Annotation, Position> before= getAnnotations();
+		assertEquals(4, before.size());
+		Object index= fProvider.get("fElementIndex");
+		assertNotNull(index);
+
+		String text= "\n        j++;";
+		int offset= fDocument.get().indexOf("int j= 0;") + 9;
+		replaceAndReconcile(offset, 0, text);
+
+		// the members have been updated from the delta
+		assertSame(index, fProvider.get("fElementIndex"));
+		Map<Annotation, Position> after= getAnnotations();
+		assertEquals(before.keySet(), after.keySet());
+		for (Iterator<Annotation> iter= before.keySet().iterator(); iter.hasNext();) {
+			Annotation annotation= iter.next();
+			Position oldPosition= before.get(annotation);
+			Position newPosition= after.get(annotation);
+			if (oldPosition.getOffset() + oldPosition.getLength() <= offset)
+				assertEquals(oldPosition, newPosition);
+			else if (oldPosition.getOffset() >= offset)
+				assertEquals(new Position(oldPosition.getOffset() + text.length(), oldPosition.getLength()), newPosition);
+			else
+				assertEquals(new Position(oldPosition.getOffset(), oldPosition.getLength() + text.length()), newPosition);
+		}
+
+		assertEquals(after, updateFully());
+	}
+
+	public void testNewMemberFallsBack() throws Exception {
+		Object index= fProvider.get("fElementIndex");
+
+		int offset= fDocument.get().indexOf("    public void third()");
+		replaceAndReconcile(offset, 0, "    public void added() {\n    }\n\n");
+
+		assertNotSame(index, fProvider.get("fElementIndex"));
+		Map<Annotation, Position> annotations= getAnnotations();
+		assertEquals(5, annotations.size());
+		assertEquals(annotations, updateFully());
+	}
+
+	public void testRenamedMemberFallsBack() throws Exception {
+		Object index= fProvider.get("fElementIndex");
+
+		int offset= fDocument.get().indexOf("third");
+		replaceAndReconcile(offset, 5, "fourth");
+
+		assertNotSame(index, fProvider.get("fElementIndex"));
+		Map<Annotation, Position> annotations= getAnnotations();
+		assertEquals(4, annotations.size());
+		assertEquals(annotations, updateFully());
+	}
+
+	public void testChangedTypeFallsBack() throws Exception {
+		Object index= fProvider.get("fElementIndex");
+
+		int offset= fDocument.get().indexOf("public class Folding");
+		replaceAndReconcile(offset, 6, "");
+
+		assertNotSame(index, fProvider.get("fElementIndex"));
+		Map<Annotation, Position> annotations= getAnnotations();
+		assertEquals(4, annotations.size());
+		assertEquals(annotations, updateFully());
+	}
+
+	private void replaceAndReconcile(int offset, int length, String text) throws BadLocationException {
+		fDocument.replace(offset, length, text);
+		assertTrue(EditorTestHelper.joinReconciler(EditorTestHelper.getSourceViewer(fEditor), 100, 10000, 100));
+		EditorTestHelper.runEventQueue(fEditor);
+	}
+
+	/*
+	 * Computes the folding structure from scratch, as done for deltas that are not handled
+	 * incrementally, and returns the resulting annotations.
+	 */
+	private Map<Annotation, Position> updateFully() {
+		Object ctx= fProvider.invoke("createContext", new Class[] { boolean.class }, new Object[] { Boolean.FALSE });
+		fProvider.invoke("update", new Class[] { ctx.getClass() }, new Object[] { ctx });
+		return getAnnotations();
+	}
+
+	/*
+	 * The annotation model updates its positions in place, returns snapshots.
+	 */
+	private Map<Annotation, Position> getAnnotations() {
+		Map<Annotation, Position> annotations= new HashMap<>();
+		Iterator<Annotation> iter= fModel.getAnnotationIterator();
+		while (iter.hasNext()) {
+			Annotation annotation= iter.next();
+			if (annotation instanceof ProjectionAnnotation) {
+				Position position= fModel.getPosition(annotation);
+				annotations.put(annotation, new Position(position.getOffset(), position.getLength()));
+			}
+		}
+		return annotations;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -1142,4 +1142,49 @@ public class JavaHeuristicScannerTest extends TestCase {
 		String indent= fScanner.computeIndentation(offset).toString();
 		assertEquals("\t", indent);
 	}
+
+	public void testSnapshotPeers() throws Exception {
+		StringBuffer buf= new StringBuffer();
+		buf.append("class A {\n");
+		buf.append("void m(int[] a) {\n");
+		buf.append("// { ( [\n");
+		buf.append("if (a[0] == '}') {\n");
+		buf.append("String s= \"(\";\n");
+		buf.append("}\n");
+		buf.append("}\n");
+		buf.append("}\n");
+		fDocument.set(buf.toString());
+
+		JavaHeuristicScanner snapshot= new JavaHeuristicScanner(fDocument, true);
+		try {
+			assertSamePeers(snapshot);
+
+			// indent line by line, as done by the indenter
+			int lines= fDocument.getNumberOfLines();
+			for (int line= 1; line < lines; line++) {
+				fDocument.replace(fDocument.getLineOffset(line), 0, "\t");
+				assertSamePeers(snapshot);
+			}
+
+			// a change of the bracket structure discards the snapshot
+			fDocument.replace(buf.indexOf("String"), 0, "{");
+			assertSamePeers(snapshot);
+		} finally {
+			snapshot.dispose();
+		}
+	}
+
+	private void assertSamePeers(JavaHeuristicScanner snapshot) {
+		JavaHeuristicScanner scanner= new JavaHeuristicScanner(fDocument);
+		int length= fDocument.getLength();
+		for (int offset= 0; offset < length; offset++) {
+			assertEquals(scanner.findOpeningPeer(offset, '{', '}'), snapshot.findOpeningPeer(offset, '{', '}'));
+			assertEquals(scanner.findOpeningPeer(offset, '(', ')'), snapshot.findOpeningPeer(offset, '(', ')'));
+			assertEquals(scanner.findClosingPeer(offset, '{', '}'), snapshot.findClosingPeer(offset, '{', '}'));
+			assertEquals(scanner.findClosingPeer(offset, '[', ']'), snapshot.findClosingPeer(offset, '[', ']'));
+			assertEquals(scanner.findOpeningPeer(offset, 10, '{', '}'), snapshot.findOpeningPeer(offset, 10, '{', '}'));
+			assertEquals(scanner.findClosingPeer(offset, length - 10, '{', '}'), snapshot.findClosingPeer(offset, length - 10, '{', '}'));
+			assertEquals(scanner.isDefaultPartition(offset), snapshot.isDefaultPartition(offset));
+		}
+	}
 }
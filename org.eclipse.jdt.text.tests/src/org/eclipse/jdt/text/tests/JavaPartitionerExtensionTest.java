@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -25,6 +25,7 @@ import org.eclipse.jface.text.IDocumentPartitioningListenerExtension;
 import org.eclipse.jface.text.IRegion;
 import org.eclipse.jface.text.ITypedRegion;
 
+import org.eclipse.jdt.ui.text.IJavaPartitions;
 import org.eclipse.jdt.ui.text.JavaTextTools;
 
 
@@ -195,4 +196,31 @@ public class JavaPartitionerExtensionTest extends TestCase {
 			assertTrue(false);
 		}
 	}
+
+	public void testOpenCommentStopsAtNextCommentEnd() {
+		try {
+			fDocument.set("class A {}\n/* c */\nint x;\n/** d */\nint y;\n");
+			check(11, 23);
+			fDocument.replace(0, 0, "/*");
+			// only the text up to the end of the next comment is repartitioned
+			check(0, 20);
+			assertEquals(IJavaPartitions.JAVA_DOC, fDocument.getPartition(29).getType());
+			fDocument.replace(0, 2, "");
+			check(0, 18);
+		} catch (BadLocationException x) {
+			assertTrue(false);
+		}
+	}
+
+	public void testOpenStringStopsAtLineEnd() {
+		try {
+			fDocument.set("int x;\nString s= \"a\";\n/* c */\n");
+			check(17, 12);
+			fDocument.replace(0, 0, "\"");
+			// the unterminated string ends with the line
+			check(0, 8);
+		} catch (BadLocationException x) {
+			assertTrue(false);
+		}
+	}
 }
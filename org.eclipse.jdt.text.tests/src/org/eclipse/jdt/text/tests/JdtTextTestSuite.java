@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -59,6 +59,8 @@ public class JdtTextTestSuite {
 		suite.addTest(SpellingTestSuite.suite());
 		suite.addTest(SemanticHighlightingTest.suite());
 		suite.addTest(AutoboxingSemanticHighlightingTest.suite());
+		suite.addTest(IncrementalSemanticHighlightingTest.suite());
+		suite.addTest(JavaFoldingStructureProviderTest.suite());
 		suite.addTest(NewForLoopJavaContextTest.suite());
 		suite.addTest(IteratorForLoopJavaContextTest.suite());
 		suite.addTest(ArrayWithTempVarForLoopJavaContextTest.suite());
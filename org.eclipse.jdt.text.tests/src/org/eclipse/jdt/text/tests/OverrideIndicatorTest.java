@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -26,6 +26,7 @@ import org.eclipse.core.resources.ResourcesPlugin;
 
 import org.eclipse.text.tests.Accessor;
 
+import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.source.Annotation;
 import org.eclipse.jface.text.source.IAnnotationModel;
@@ -139,6 +140,68 @@ public class OverrideIndicatorTest extends TestCase {
 		}
 	}
 
+	public void testBodyEditKeepsIndicators() throws Exception {
+		testCountOverrideIndicators();
+		Annotation[] before= fOverrideAnnotations;
+
+		String contents= fDocument.get();
+		int offset= contents.indexOf('{', contents.indexOf("countTestCases()")) + 1;
+		replaceAndReconcile(offset, 0, "\n\t\tint count= 0;");
+
+		computeOverrideIndicators();
+		assertSameAnnotations(before, fOverrideAnnotations);
+	}
+
+	public void testSupertypeChangeInSameCU() throws Exception {
+		testCountOverrideIndicators();
+		Annotation[] before= fOverrideAnnotations;
+
+		replaceAndReconcile(fDocument.getLength(), 0, "\nclass Base {\n\tvoid foo() {}\n}\nclass Sub extends Base {\n\tvoid foo() {}\n}\n");
+		computeOverrideIndicators();
+		assertEquals(4, fOverrideAnnotations.length);
+		Annotation added= null;
+		for (int i= 0; i < fOverrideAnnotations.length; i++) {
+			if ("overrides junit.framework.Base.foo".equals(fOverrideAnnotations[i].getText()))
+				added= fOverrideAnnotations[i];
+		}
+		assertNotNull(added);
+
+		// Sub itself does not change, the overridden method has to be looked up again
+		String contents= fDocument.get();
+		replaceAndReconcile(contents.indexOf("foo", contents.indexOf("class Base")), 3, "bar");
+		computeOverrideIndicators();
+		assertSameAnnotations(before, fOverrideAnnotations);
+
+		contents= fDocument.get();
+		replaceAndReconcile(contents.indexOf("bar", contents.indexOf("class Base")), 3, "foo");
+		computeOverrideIndicators();
+		assertEquals(4, fOverrideAnnotations.length);
+
+		// unchanged indicators are kept
+		for (int i= 0; i < before.length; i++)
+			assertTrue(contains(fOverrideAnnotations, before[i]));
+	}
+
+	private void replaceAndReconcile(int offset, int length, String text) throws BadLocationException {
+		fDocument.replace(offset, length, text);
+		assertTrue(EditorTestHelper.joinReconciler(EditorTestHelper.getSourceViewer(fEditor), 100, 10000, 100));
+		EditorTestHelper.runEventQueue(fEditor);
+	}
+
+	private static void assertSameAnnotations(Annotation[] expected, Annotation[] actual) {
+		assertEquals(expected.length, actual.length);
+		for (int i= 0; i < expected.length; i++)
+			assertTrue(contains(actual, expected[i]));
+	}
+
+	private static boolean contains(Annotation[] annotations, Annotation annotation) {
+		for (int i= 0; i < annotations.length; i++) {
+			if (annotations[i] == annotation)
+				return true;
+		}
+		return false;
+	}
+
 	private void computeOverrideIndicators() {
 		ArrayList<Annotation> annotations= new ArrayList<>();
 		Iterator<Annotation> iter= fAnnotationModel.getAnnotationIterator();
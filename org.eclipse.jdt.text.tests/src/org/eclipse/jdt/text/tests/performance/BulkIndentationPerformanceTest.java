@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests.performance;
+
+import junit.framework.Test;
+
+import org.eclipse.test.performance.PerformanceMeter;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.rules.FastPartitioner;
+
+import org.eclipse.jdt.ui.text.IJavaPartitions;
+
+import org.eclipse.jdt.internal.ui.text.FastJavaPartitionScanner;
+import org.eclipse.jdt.internal.ui.text.JavaHeuristicScanner;
+import org.eclipse.jdt.internal.ui.text.JavaIndenter;
+
+/**
+ * Compares indenting all lines of a large compilation unit with a plain
+ * {@link JavaHeuristicScanner} and with a scanner in snapshot mode, as done
+ * by the Correct Indentation action.
+ *
+ * @since 3.13
+ */
+public class BulkIndentationPerformanceTest extends TextPerformanceTestCase2 {
+
+	private static final int METHODS= 300;
+
+	private static String fgExpected;
+
+	private Document fDocument;
+
+	private FastPartitioner fPartitioner;
+
+	public static Test suite() {
+		return new PerformanceTestSetup(new PerfTestSuite(BulkIndentationPerformanceTest.class));
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		fDocument= new Document();
+		String[] types= new String[] {
+			IJavaPartitions.JAVA_DOC,
+			IJavaPartitions.JAVA_MULTI_LINE_COMMENT,
+			IJavaPartitions.JAVA_SINGLE_LINE_COMMENT,
+			IJavaPartitions.JAVA_STRING,
+			IJavaPartitions.JAVA_CHARACTER,
+			IDocument.DEFAULT_CONTENT_TYPE
+		};
+		fPartitioner= new FastPartitioner(new FastJavaPartitionScanner(), types);
+		fPartitioner.connect(fDocument);
+		fDocument.setDocumentPartitioner(IJavaPartitions.JAVA_PARTITIONING, fPartitioner);
+
+		setWarmUpRuns(2);
+		setMeasuredRuns(5);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		fDocument.setDocumentPartitioner(IJavaPartitions.JAVA_PARTITIONING, null);
+		fPartitioner.disconnect();
+		fPartitioner= null;
+		fDocument= null;
+		super.tearDown();
+	}
+
+	public void measurePlainScanner(PerformanceMeter meter) throws BadLocationException {
+		fDocument.set(createSource());
+		meter.start();
+		indent(fDocument, new JavaHeuristicScanner(fDocument));
+		meter.stop();
+		assertEquals(getExpected(), fDocument.get());
+	}
+
+	public void measureSnapshotScanner(PerformanceMeter meter) throws BadLocationException {
+		fDocument.set(createSource());
+		meter.start();
+		JavaHeuristicScanner scanner= new JavaHeuristicScanner(fDocument, true);
+		try {
+			indent(fDocument, scanner);
+		} finally {
+			scanner.dispose();
+		}
+		meter.stop();
+		assertEquals(getExpected(), fDocument.get());
+	}
+
+	private String getExpected() throws BadLocationException {
+		if (fgExpected == null) {
+			IDocument document= new Document(createSource());
+			FastPartitioner partitioner= new FastPartitioner(new FastJavaPartitionScanner(), fPartitioner.getLegalContentTypes());
+			partitioner.connect(document);
+			document.setDocumentPartitioner(IJavaPartitions.JAVA_PARTITIONING, partitioner);
+			try {
+				indent(document, new JavaHeuristicScanner(document));
+			} finally {
+				partitioner.disconnect();
+			}
+			fgExpected= document.get();
+		}
+		return fgExpected;
+	}
+
+	private static void indent(IDocument document, JavaHeuristicScanner scanner) throws BadLocationException {
+		JavaIndenter indenter= new JavaIndenter(document, scanner);
+		int lines= document.getNumberOfLines();
+		for (int line= 0; line < lines; line++) {
+			IRegion region= document.getLineInformation(line);
+			int offset= region.getOffset();
+			StringBuffer indent= indenter.computeIndentation(offset);
+			if (indent == null)
+				continue;
+			int end= offset;
+			int lineEnd= offset + region.getLength();
+			while (end < lineEnd && Character.isWhitespace(document.getChar(end)))
+				end++;
+			if (!indent.toString().equals(document.get(offset, end - offset)))
+				document.replace(offset, end - offset, indent.toString());
+		}
+	}
+
+	private static String createSource() {
+		StringBuffer buf= new StringBuffer();
+		buf.append("package p;\n");
+		buf.append("public class A {\n");
+		for (int i= 0; i < METHODS; i++) {
+			buf.append("/**\n");
+			buf.append("* Method {@link #m" + i + "()}.\n");
+			buf.append("*/\n");
+			buf.append("public int m" + i + "(int a, String s) {\n");
+			buf.append("int[] values= new int[] {\n");
+			buf.append("1, 2,\n");
+			buf.append("3 };\n");
+			buf.append("// a comment with { and (\n");
+			buf.append("for (int j= 0; j < values.length; j++) {\n");
+			buf.append("if (s.equals(\"}\"))\n");
+			buf.append("a++;\n");
+			buf.append("else if (a > values[j]\n");
+			buf.append("&& a < 100) {\n");
+			buf.append("a--;\n");
+			buf.append("}\n");
+			buf.append("}\n");
+			buf.append("switch (a) {\n");
+			buf.append("case 1:\n");
+			buf.append("return '{';\n");
+			buf.append("default:\n");
+			buf.append("break;\n");
+			buf.append("}\n");
+			buf.append("Runnable r= new Runnable() {\n");
+			buf.append("public void run() {\n");
+			buf.append("System.out.println(\"(\" +\n");
+			buf.append("a);\n");
+			buf.append("}\n");
+			buf.append("};\n");
+			buf.append("return a;\n");
+			buf.append("}\n");
+		}
+		buf.append("}\n");
+		return buf.toString();
+	}
+}
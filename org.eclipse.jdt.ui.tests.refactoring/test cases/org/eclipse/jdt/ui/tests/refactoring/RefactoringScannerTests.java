@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -92,6 +92,25 @@ public class RefactoringScannerTests extends RefactoringTest{
 		assertEquals("results.length", 0, fScanner.getMatches().size());
 	}
 
+	public void testNoOccurrence() throws Exception{
+		fScanner.scan("class X { /* TestPatter */ String s= \"Test Pattern\"; }");
+		assertEquals("results.length", 0, fScanner.getMatches().size());
+	}
+
+	public void testScannerReuse() throws Exception{
+		String text= "class X { /* TestPattern */ String s= \"org.eclipse.TestPattern\"; }";
+		fScanner.scan(text);
+		Set<TextMatch> first= fScanner.getMatches();
+		assertEquals("results.length", 2, first.size());
+
+		fScanner.scan("class Y { }");
+		assertEquals("results.length", 0, fScanner.getMatches().size());
+		assertEquals("previous results", 2, first.size());
+
+		fScanner.scan(text);
+		assertEquals("results.length", 2, fScanner.getMatches().size());
+	}
+
 	public void test1() throws Exception{
 		helper("A.java", 8);
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,6 +13,7 @@ package org.eclipse.jdt.ui.tests.refactoring;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import junit.framework.Test;
@@ -24,6 +25,8 @@ import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IMethod;
 import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.WorkingCopyOwner;
 
 import org.eclipse.jdt.internal.corext.refactoring.rename.RippleMethodFinder2;
 
@@ -130,4 +133,71 @@ public class RippleMethodFinderTests extends AbstractCUTestCase {
 		perform();
 	}
 
+	public void testCacheSeesNewOverride() throws Exception {
+		IPackageFragment pack= RefactoringTestSetup.getPackageP();
+		ICompilationUnit base= createCU(pack, "CacheBase.java", "package p;\nclass CacheBase {\n\tvoid m() {}\n}\n");
+		ICompilationUnit sub= null;
+		try {
+			IMethod method= base.getType("CacheBase").getMethod("m", new String[0]);
+			IMethod[] result= RippleMethodFinder2.getRelatedMethods(method, new NullProgressMonitor(), null);
+			assertEquals(1, result.length);
+
+			sub= createCU(pack, "CacheSub.java", "package p;\nclass CacheSub extends CacheBase {\n\tvoid m() {}\n}\n");
+			result= RippleMethodFinder2.getRelatedMethods(method, new NullProgressMonitor(), null);
+			assertEquals(2, result.length);
+			assertTrue(Arrays.asList(result).contains(sub.getType("CacheSub").getMethod("m", new String[0])));
+		} finally {
+			if (sub != null)
+				sub.delete(true, null);
+			base.delete(true, null);
+		}
+	}
+
+	public void testCacheKeptOnBodyEdit() throws Exception {
+		IPackageFragment pack= RefactoringTestSetup.getPackageP();
+		ICompilationUnit cu= createCU(pack, "CacheBody.java", "package p;\nclass CacheBody {\n\tvoid m() {}\n}\nclass CacheBodySub extends CacheBody {\n\tvoid m() {}\n}\n");
+		cu.becomeWorkingCopy(null);
+		try {
+			IMethod method= cu.getType("CacheBody").getMethod("m", new String[0]);
+			IMethod[] result= RippleMethodFinder2.getRelatedMethods(method, new NullProgressMonitor(), null);
+			assertEquals(2, result.length);
+
+			cu.getBuffer().setContents("package p;\nclass CacheBody {\n\tvoid m() {\n\t\tm();\n\t}\n}\nclass CacheBodySub extends CacheBody {\n\tvoid m() {}\n}\n");
+			cu.reconcile(ICompilationUnit.NO_AST, false, null, null);
+
+			// served from the cache: the same handles are returned
+			assertSameElements(result, RippleMethodFinder2.getRelatedMethods(method, new NullProgressMonitor(), null));
+		} finally {
+			cu.discardWorkingCopy();
+			cu.delete(true, null);
+		}
+	}
+
+	public void testCacheBypassedForOwner() throws Exception {
+		IPackageFragment pack= RefactoringTestSetup.getPackageP();
+		ICompilationUnit cu= createCU(pack, "CacheOwner.java", "package p;\nclass CacheOwner {\n\tvoid m() {}\n}\nclass CacheOwnerSub extends CacheOwner {\n\tvoid m() {}\n}\n");
+		try {
+			IType type= cu.getType("CacheOwner");
+			IMethod method= type.getMethod("m", new String[0]);
+			IMethod[] result= RippleMethodFinder2.getRelatedMethods(method, new NullProgressMonitor(), null);
+			assertSameElements(result, RippleMethodFinder2.getRelatedMethods(method, new NullProgressMonitor(), null));
+
+			IMethod[] ownerResult= RippleMethodFinder2.getRelatedMethods(method, new NullProgressMonitor(), new WorkingCopyOwner() {});
+			assertEquals(result.length, ownerResult.length);
+			for (int i= 0; i < ownerResult.length; i++) {
+				assertTrue(Arrays.asList(result).contains(ownerResult[i]));
+				for (int j= 0; j < result.length; j++)
+					assertNotSame(result[j], ownerResult[i]);
+			}
+		} finally {
+			cu.delete(true, null);
+		}
+	}
+
+	private static void assertSameElements(IMethod[] expected, IMethod[] actual) {
+		assertEquals(expected.length, actual.length);
+		for (int i= 0; i < expected.length; i++)
+			assertSame(expected[i], actual[i]);
+	}
+
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -441,6 +441,56 @@ public class JUnit4TestFinderTest extends TestCase {
 	}
 
 
+	public void testIndexFollowsChanges() throws Exception {
+		IPackageFragment p= fRoot.createPackageFragment("p", true, null);
+		StringBuffer buf= new StringBuffer();
+		buf.append("package p;\n");
+		buf.append("\n");
+		buf.append("public abstract class Base {\n");
+		buf.append("}\n");
+		String base= buf.toString();
+		p.createCompilationUnit("Base.java", base, false, null);
+
+		buf= new StringBuffer();
+		buf.append("package p;\n");
+		buf.append("\n");
+		buf.append("public class Sub extends Base {\n");
+		buf.append("}\n");
+		p.createCompilationUnit("Sub.java", buf.toString(), false, null);
+
+		buf= new StringBuffer();
+		buf.append("package p;\n");
+		buf.append("\n");
+		buf.append("import org.junit.Test;\n");
+		buf.append("\n");
+		buf.append("public class Test1 {\n");
+		buf.append("        @Test public void testFoo() {\n");
+		buf.append("        }\n");
+		buf.append("}\n");
+		p.createCompilationUnit("Test1.java", buf.toString(), false, null);
+
+		assertTestFound(fProject, new String[] { "p.Test1" });
+
+		// a test method in the superclass makes the subclass a test
+		buf= new StringBuffer();
+		buf.append("package p;\n");
+		buf.append("\n");
+		buf.append("import org.junit.Test;\n");
+		buf.append("\n");
+		buf.append("public abstract class Base {\n");
+		buf.append("        @Test public void testBar() {\n");
+		buf.append("        }\n");
+		buf.append("}\n");
+		p.createCompilationUnit("Base.java", buf.toString(), true, null);
+
+		assertTestFound(fProject, new String[] { "p.Test1", "p.Sub" });
+
+		p.createCompilationUnit("Base.java", base, true, null);
+		p.getCompilationUnit("Test1.java").delete(true, null);
+
+		assertTestFound(fProject, new String[] {});
+	}
+
 	private void assertTestFound(IJavaElement container, String[] expectedTypes) throws CoreException {
 		ITestKind testKind= TestKindRegistry.getContainerTestKind(container);
 		assertEquals(TestKindRegistry.JUNIT4_TEST_KIND_ID, testKind.getId());
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -61,8 +61,13 @@ public class CoreTests extends TestCase {
 		suite.addTest(TypeHierarchyTest.suite());
 		suite.addTest(TypeRulesTest.suite());
 		suite.addTest(TypeInfoTest.suite());
+		suite.addTest(TypeNameIndexTest.suite());
+		suite.addTest(OpenTypeHistoryTest.suite());
 		suite.addTest(StringsTest.suite());
 		suite.addTest(IndentManipulationTest.suite());
+		suite.addTest(ImageDescriptorRegistryTest.suite());
+		suite.addTest(JavaStructureTest.suite());
+		suite.addTest(JavadocContentCacheTest.suite());
 		suite.addTest(SelectionHistoryTest.suite());
 		suite.addTest(ASTProviderTest.suite());
 		suite.addTest(JDTFlagsTest18.suite());
@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.core;
+
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.Point;
+import org.eclipse.swt.graphics.Rectangle;
+
+import org.eclipse.jface.resource.ImageDescriptor;
+
+import org.eclipse.jdt.ui.JavaElementImageDescriptor;
+
+import org.eclipse.jdt.internal.ui.JavaPluginImages;
+import org.eclipse.jdt.internal.ui.viewsupport.ImageDescriptorRegistry;
+import org.eclipse.jdt.internal.ui.viewsupport.ImageDescriptorRegistry.IOverlayDescriptorFactory;
+import org.eclipse.jdt.internal.ui.viewsupport.JavaElementImageProvider;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class ImageDescriptorRegistryTest extends TestCase {
+
+	private static final Class<ImageDescriptorRegistryTest> THIS= ImageDescriptorRegistryTest.class;
+
+	private ImageDescriptorRegistry fRegistry;
+
+	public ImageDescriptorRegistryTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(THIS);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fRegistry= new ImageDescriptorRegistry();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		fRegistry.dispose();
+		fRegistry= null;
+	}
+
+	public void testOverlayIsShared() throws Exception {
+		Point size= JavaElementImageProvider.SMALL_SIZE;
+		Image image= fRegistry.get(JavaPluginImages.DESC_FIELD_PUBLIC, JavaElementImageDescriptor.STATIC, size);
+		assertNotNull(image);
+		assertSame(image, fRegistry.get(JavaPluginImages.DESC_FIELD_PUBLIC, JavaElementImageDescriptor.STATIC, new Point(size.x, size.y)));
+
+		Rectangle bounds= image.getBounds();
+		assertEquals(size.x, bounds.width);
+		assertEquals(size.y, bounds.height);
+	}
+
+	public void testOverlaysAreDistinguished() throws Exception {
+		Point size= JavaElementImageProvider.SMALL_SIZE;
+		Image image= fRegistry.get(JavaPluginImages.DESC_FIELD_PUBLIC, JavaElementImageDescriptor.STATIC, size);
+		Image otherAdornments= fRegistry.get(JavaPluginImages.DESC_FIELD_PUBLIC, JavaElementImageDescriptor.STATIC | JavaElementImageDescriptor.FINAL, size);
+		Image otherBase= fRegistry.get(JavaPluginImages.DESC_FIELD_PRIVATE, JavaElementImageDescriptor.STATIC, size);
+		Image otherSize= fRegistry.get(JavaPluginImages.DESC_FIELD_PUBLIC, JavaElementImageDescriptor.STATIC, JavaElementImageProvider.BIG_SIZE);
+
+		assertNotSame(image, otherAdornments);
+		assertNotSame(image, otherBase);
+		assertNotSame(image, otherSize);
+		assertEquals(JavaElementImageProvider.BIG_SIZE.x, otherSize.getBounds().width);
+	}
+
+	public void testOverlayDescriptorCreatedOnMissOnly() throws Exception {
+		final int[] created= new int[1];
+		IOverlayDescriptorFactory factory= new IOverlayDescriptorFactory() {
+			@Override
+			public ImageDescriptor createDescriptor(ImageDescriptor baseImage, int adornments, Point size) {
+				created[0]++;
+				return new JavaElementImageDescriptor(baseImage, adornments, size);
+			}
+		};
+		Point size= JavaElementImageProvider.SMALL_SIZE;
+		Image image= fRegistry.get(JavaPluginImages.DESC_FIELD_PUBLIC, JavaElementImageDescriptor.FINAL, size, factory);
+		assertSame(image, fRegistry.get(JavaPluginImages.DESC_FIELD_PUBLIC, JavaElementImageDescriptor.FINAL, size, factory));
+		assertEquals(1, created[0]);
+
+		// overlays of another factory are not shared
+		Image other= fRegistry.get(JavaPluginImages.DESC_FIELD_PUBLIC, JavaElementImageDescriptor.FINAL, size);
+		assertNotSame(image, other);
+		assertEquals(1, created[0]);
+	}
+
+	public void testCounters() throws Exception {
+		Point size= JavaElementImageProvider.SMALL_SIZE;
+		fRegistry.get(JavaPluginImages.DESC_FIELD_PUBLIC, JavaElementImageDescriptor.STATIC, size);
+		fRegistry.get(JavaPluginImages.DESC_FIELD_PUBLIC, JavaElementImageDescriptor.STATIC, size);
+		fRegistry.get(JavaPluginImages.DESC_FIELD_PUBLIC);
+		fRegistry.acquire(JavaPluginImages.DESC_FIELD_PUBLIC);
+
+		assertEquals(2, fRegistry.size());
+		assertEquals(2, fRegistry.getMissCount());
+		assertEquals(2, fRegistry.getHitCount());
+		assertEquals(2, fRegistry.getImageCreationCount());
+		assertEquals(0, fRegistry.getEvictionCount());
+	}
+
+	public void testReleaseEvictsUnreferencedImage() throws Exception {
+		ImageDescriptorRegistry registry= new ImageDescriptorRegistry(true);
+		try {
+			Image image= registry.acquire(JavaPluginImages.DESC_FIELD_PRIVATE);
+			assertSame(image, registry.acquire(JavaPluginImages.DESC_FIELD_PRIVATE));
+			assertEquals(1, registry.getImageCreationCount());
+
+			registry.release(JavaPluginImages.DESC_FIELD_PRIVATE);
+			assertFalse(image.isDisposed());
+			assertEquals(1, registry.size());
+
+			registry.release(JavaPluginImages.DESC_FIELD_PRIVATE);
+			assertTrue(image.isDisposed());
+			assertEquals(0, registry.size());
+			assertEquals(1, registry.getEvictionCount());
+
+			// a new image is created on the next request
+			Image recreated= registry.acquire(JavaPluginImages.DESC_FIELD_PRIVATE);
+			assertNotSame(image, recreated);
+			assertEquals(2, registry.getImageCreationCount());
+			assertEquals(2, registry.getMissCount());
+		} finally {
+			registry.dispose();
+		}
+	}
+
+	public void testReleaseKeepsPinnedImage() throws Exception {
+		ImageDescriptorRegistry registry= new ImageDescriptorRegistry(true);
+		try {
+			Image image= registry.acquire(JavaPluginImages.DESC_FIELD_PRIVATE);
+			assertSame(image, registry.get(JavaPluginImages.DESC_FIELD_PRIVATE));
+
+			registry.release(JavaPluginImages.DESC_FIELD_PRIVATE);
+			assertFalse(image.isDisposed());
+			assertEquals(1, registry.size());
+			assertEquals(0, registry.getEvictionCount());
+		} finally {
+			registry.dispose();
+		}
+	}
+
+	public void testReleaseWithoutEviction() throws Exception {
+		Image image= fRegistry.acquire(JavaPluginImages.DESC_FIELD_PRIVATE);
+		fRegistry.release(JavaPluginImages.DESC_FIELD_PRIVATE);
+		assertFalse(image.isDisposed());
+		assertSame(image, fRegistry.acquire(JavaPluginImages.DESC_FIELD_PRIVATE));
+		assertEquals(0, fRegistry.getEvictionCount());
+	}
+
+	public void testDispose() throws Exception {
+		Image overlay= fRegistry.get(JavaPluginImages.DESC_FIELD_PUBLIC, JavaElementImageDescriptor.STATIC, JavaElementImageProvider.SMALL_SIZE);
+		Image plain= fRegistry.get(JavaPluginImages.DESC_FIELD_PUBLIC);
+		fRegistry.dispose();
+		assertTrue(overlay.isDisposed());
+		assertTrue(plain.isDisposed());
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -662,4 +662,78 @@ public class JavaElementLabelsTest extends CoreTests {
 		lab= JavaElementLabels.getTextLabel(foo2, JavaElementLabels.ALL_DEFAULT | JavaElementLabels.ALL_FULLY_QUALIFIED | JavaElementLabels.M_PARAMETER_ANNOTATIONS);
 		assertEqualString(lab, "org.test.Annotations.foo2(@Ann(value=\"\", cl=Annotations.class, ints={1, 2, -19}, ch='\\u0000', sh=32767, r=@Retention(value=RetentionPolicy.SOURCE)) String)");
 	}
+
+	public void testMethodLabelAfterChange() throws Exception {
+		IPackageFragmentRoot sourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+		IPackageFragment pack1= sourceFolder.createPackageFragment("org.test", false, null);
+		StringBuffer buf= new StringBuffer();
+		buf.append("package org.test;\n");
+		buf.append("public class A {\n");
+		buf.append("    public int foo() {\n");
+		buf.append("        return 0;\n");
+		buf.append("    }\n");
+		buf.append("}\n");
+		String content= buf.toString();
+		ICompilationUnit cu= pack1.createCompilationUnit("A.java", content, false, null);
+
+		IJavaElement foo= cu.getElementAt(content.indexOf("foo"));
+		assertExpectedLabel(foo, "foo()" + JavaElementLabels.DECL_STRING + "int", JavaElementLabels.M_APP_RETURNTYPE);
+
+		buf= new StringBuffer();
+		buf.append("package org.test;\n");
+		buf.append("public class A {\n");
+		buf.append("    public String foo() {\n");
+		buf.append("        return null;\n");
+		buf.append("    }\n");
+		buf.append("}\n");
+		pack1.createCompilationUnit("A.java", buf.toString(), true, null);
+
+		// the cached label must not survive the change of the return type
+		assertExpectedLabel(foo, "foo()" + JavaElementLabels.DECL_STRING + "String", JavaElementLabels.M_APP_RETURNTYPE);
+	}
+
+	public void testLabelsAfterReconcile() throws Exception {
+		IPackageFragmentRoot sourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+		IPackageFragment pack1= sourceFolder.createPackageFragment("org.test", false, null);
+		StringBuffer buf= new StringBuffer();
+		buf.append("package org.test;\n");
+		buf.append("public class A {\n");
+		buf.append("    {\n");
+		buf.append("        long x= 0;\n");
+		buf.append("    }\n");
+		buf.append("    int count;\n");
+		buf.append("    public int foo() {\n");
+		buf.append("        return 0;\n");
+		buf.append("    }\n");
+		buf.append("}\n");
+		String content= buf.toString();
+		ICompilationUnit cu= pack1.createCompilationUnit("A.java", content, false, null);
+
+		cu.becomeWorkingCopy(null);
+		try {
+			IJavaElement x= cu.codeSelect(content.indexOf("x="), 1)[0];
+			IJavaElement count= cu.getElementAt(content.indexOf("count"));
+			IJavaElement foo= cu.getElementAt(content.indexOf("foo"));
+			assertExpectedLabel(x, "x" + JavaElementLabels.DECL_STRING + "long", JavaElementLabels.F_APP_TYPE_SIGNATURE);
+			assertExpectedLabel(count, "count" + JavaElementLabels.DECL_STRING + "int", JavaElementLabels.F_APP_TYPE_SIGNATURE);
+			assertExpectedLabel(foo, "foo()" + JavaElementLabels.DECL_STRING + "int", JavaElementLabels.M_APP_RETURNTYPE);
+
+			// only the initializer changes, the new local variable is equal to the old one
+			content= content.replace("long x", "char x");
+			cu.getBuffer().setContents(content);
+			cu.reconcile(ICompilationUnit.NO_AST, false, null, null);
+			IJavaElement newX= cu.codeSelect(content.indexOf("x="), 1)[0];
+			assertEquals(x, newX);
+			assertExpectedLabel(newX, "x" + JavaElementLabels.DECL_STRING + "char", JavaElementLabels.F_APP_TYPE_SIGNATURE);
+
+			// fine-grained deltas report the changed types as content changes of the members
+			content= content.replace("int count", "String count").replace("public int foo", "public String foo").replace("return 0", "return null");
+			cu.getBuffer().setContents(content);
+			cu.reconcile(ICompilationUnit.NO_AST, false, null, null);
+			assertExpectedLabel(count, "count" + JavaElementLabels.DECL_STRING + "String", JavaElementLabels.F_APP_TYPE_SIGNATURE);
+			assertExpectedLabel(foo, "foo()" + JavaElementLabels.DECL_STRING + "String", JavaElementLabels.M_APP_RETURNTYPE);
+		} finally {
+			cu.discardWorkingCopy();
+		}
+	}
 }
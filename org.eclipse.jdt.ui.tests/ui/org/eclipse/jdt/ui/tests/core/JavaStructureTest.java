@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.compare.IEncodedStreamContentAccessor;
+import org.eclipse.compare.structuremergeviewer.DocumentRangeNode;
+import org.eclipse.compare.structuremergeviewer.IStructureComparator;
+
+import org.eclipse.jface.text.Position;
+
+import org.eclipse.jdt.core.JavaCore;
+
+import org.eclipse.jdt.internal.ui.compare.JavaStructure;
+import org.eclipse.jdt.internal.ui.compare.JavaStructureCreator;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class JavaStructureTest extends TestCase {
+
+	private static final Class<JavaStructureTest> THIS= JavaStructureTest.class;
+
+	private static final String SOURCE=
+			"package p;\n" +
+			"\n" +
+			"import java.util.List;\n" +
+			"\n" +
+			"public class A {\n" +
+			"	int f;\n" +
+			"	static {\n" +
+			"	}\n" +
+			"	void m(List<String> l) {\n" +
+			"	}\n" +
+			"	class B {\n" +
+			"		void m() {\n" +
+			"		}\n" +
+			"	}\n" +
+			"}\n";
+
+	public JavaStructureTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(THIS);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		JavaStructure.shutdown();
+	}
+
+	public void testEqualContentsShareStructure() throws Exception {
+		JavaStructure structure= JavaStructure.getStructure(SOURCE.toCharArray(), null, null);
+		assertSame(structure, JavaStructure.getStructure(SOURCE.toCharArray(), null, null));
+
+		assertNotSame(structure, JavaStructure.getStructure((SOURCE + " ").toCharArray(), null, null));
+
+		Map<String, String> options= new HashMap<>();
+		options.put(JavaCore.COMPILER_SOURCE, JavaCore.VERSION_1_4);
+		assertNotSame(structure, JavaStructure.getStructure(SOURCE.toCharArray(), options, null));
+	}
+
+	public void testCachedNodesMatchUncachedParse() throws Exception {
+		JavaStructureCreator creator= new JavaStructureCreator();
+		List<String> uncached= getNodes(creator.getStructure(new Input(SOURCE)));
+
+		// served from the cache
+		List<String> cached= getNodes(creator.getStructure(new Input(SOURCE)));
+		assertEquals(uncached, cached);
+
+		JavaStructure.shutdown();
+		assertEquals(uncached, getNodes(creator.getStructure(new Input(SOURCE))));
+	}
+
+	private static List<String> getNodes(IStructureComparator root) {
+		assertNotNull(root);
+		List<String> nodes= new ArrayList<>();
+		collectNodes(root, "", nodes);
+		assertTrue(nodes.size() > 1);
+		return nodes;
+	}
+
+	private static void collectNodes(Object node, String path, List<String> nodes) {
+		DocumentRangeNode rangeNode= (DocumentRangeNode) node;
+		Position range= rangeNode.getRange();
+		path= path + '/' + rangeNode.getId();
+		nodes.add(path + " [" + range.getOffset() + ", " + range.getLength() + "]");
+		Object[] children= rangeNode.getChildren();
+		for (int i= 0; i < children.length; i++) {
+			collectNodes(children[i], path, nodes);
+		}
+	}
+
+	private static class Input implements IEncodedStreamContentAccessor {
+
+		private final String fContents;
+
+		Input(String contents) {
+			fContents= contents;
+		}
+
+		@Override
+		public InputStream getContents() {
+			return new ByteArrayInputStream(fContents.getBytes(StandardCharsets.UTF_8));
+		}
+
+		@Override
+		public String getCharset() {
+			return "UTF-8";
+		}
+	}
+}
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.core;
+
+import java.io.File;
+import java.net.URL;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+import org.eclipse.jdt.testplugin.JavaTestPlugin;
+
+import org.eclipse.text.tests.Accessor;
+
+import org.eclipse.core.runtime.Path;
+
+import org.eclipse.jdt.core.IClasspathAttribute;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+
+import org.eclipse.jdt.internal.ui.text.javadoc.JavadocContentCache;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class JavadocContentCacheTest extends TestCase {
+
+	private static final Class<JavadocContentCacheTest> THIS= JavadocContentCacheTest.class;
+
+	private static final String STORED= "<p>Stored Javadoc.</p>";
+
+	private IJavaProject fJProject;
+	private IPackageFragmentRoot fRoot;
+	private IType fType;
+	private Accessor fCache;
+
+	public JavadocContentCacheTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(THIS);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fJProject= JavaProjectHelper.createJavaProject("JavadocCache", "bin");
+		File mylib= JavaTestPlugin.getDefault().getFileInPlugin(JavaProjectHelper.MYLIB);
+		fRoot= JavaProjectHelper.addLibraryWithImport(fJProject, new Path(mylib.getAbsolutePath()), null, null);
+		setJavadocLocation(getDocLocation("doc"));
+		fType= fRoot.getPackageFragment("mylib").getClassFile("Foo.class").getType();
+		assertTrue(fType.exists());
+		fCache= new Accessor(JavadocContentCache.getInstance(), JavadocContentCache.class);
+		assertNotNull(fCache.get("fCacheDir"));
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		JavaProjectHelper.delete(fJProject);
+	}
+
+	public void testStoredJavadocIsServed() throws Exception {
+		String key= getStoreKey(fType);
+		File file= store(key, STORED);
+		try {
+			assertEquals(STORED, fCache.invoke("getAttachedJavadoc", new Class[] { IJavaElement.class }, new Object[] { fType }));
+		} finally {
+			file.delete();
+		}
+	}
+
+	public void testArchiveChangeMissesStore() throws Exception {
+		String key= getStoreKey(fType);
+		File file= store(key, STORED);
+		try {
+			File archive= fRoot.getResource().getLocation().toFile();
+			assertTrue(archive.setLastModified(archive.lastModified() + 10000));
+
+			String newKey= getStoreKey(fType);
+			assertFalse(key.equals(newKey));
+			assertNull(read(newKey));
+			assertEquals(STORED, read(key));
+		} finally {
+			file.delete();
+		}
+	}
+
+	public void testJavadocLocationChangeMissesStore() throws Exception {
+		String key= getStoreKey(fType);
+		File file= store(key, STORED);
+		try {
+			setJavadocLocation(getDocLocation("otherdoc"));
+
+			String newKey= getStoreKey(fType);
+			assertFalse(key.equals(newKey));
+			assertNull(read(newKey));
+			assertEquals(STORED, read(key));
+		} finally {
+			file.delete();
+		}
+	}
+
+	private URL getDocLocation(String folder) throws Exception {
+		return fJProject.getProject().getLocation().append(folder).toFile().toURI().toURL();
+	}
+
+	private void setJavadocLocation(URL location) throws Exception {
+		IClasspathAttribute attribute= JavaCore.newClasspathAttribute(IClasspathAttribute.JAVADOC_LOCATION_ATTRIBUTE_NAME, location.toExternalForm());
+		IClasspathEntry[] entries= fJProject.getRawClasspath();
+		for (int i= 0; i < entries.length; i++) {
+			if (entries[i].getPath().equals(fRoot.getPath()))
+				entries[i]= JavaCore.newLibraryEntry(fRoot.getPath(), null, null, null, new IClasspathAttribute[] { attribute }, false);
+		}
+		fJProject.setRawClasspath(entries, null);
+	}
+
+	private String getStoreKey(IJavaElement element) {
+		String key= (String) fCache.invoke("getStoreKey", new Class[] { IJavaElement.class }, new Object[] { element });
+		assertNotNull(key);
+		return key;
+	}
+
+	private File getFile(String key) {
+		String name= (String) fCache.invoke("getFileName", new Class[] { String.class }, new Object[] { key });
+		return new File((File) fCache.get("fCacheDir"), name);
+	}
+
+	private File store(String key, String javadoc) {
+		File file= getFile(key);
+		fCache.invoke("write", new Class[] { File.class, String.class, String.class }, new Object[] { file, key, javadoc });
+		assertTrue(file.isFile());
+		return file;
+	}
+
+	private String read(String key) {
+		return (String) fCache.invoke("read", new Class[] { File.class, String.class }, new Object[] { getFile(key), key });
+	}
+}
@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.search.SearchEngine;
+import org.eclipse.jdt.core.search.TypeNameMatch;
+
+import org.eclipse.jdt.internal.corext.util.OpenTypeHistory;
+import org.eclipse.jdt.internal.corext.util.OpenTypeHistory.IConsistencyCheckListener;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class OpenTypeHistoryTest extends TestCase {
+
+	private static final Class<OpenTypeHistoryTest> THIS= OpenTypeHistoryTest.class;
+
+	private IJavaProject fJProject;
+	private ICompilationUnit fCompilationUnit;
+	private TypeNameMatch fMatch;
+	private OpenTypeHistory fHistory;
+
+	public OpenTypeHistoryTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return setUpTest(new TestSuite(THIS));
+	}
+
+	public static Test setUpTest(Test test) {
+		return new ProjectTestSetup(test);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fJProject= JavaProjectHelper.createJavaProject("TestProject1", "bin");
+		assertNotNull("jre is null", JavaProjectHelper.addRTJar(fJProject));
+		IPackageFragmentRoot sourceFolder= JavaProjectHelper.addSourceContainer(fJProject, "src");
+		IPackageFragment pack= sourceFolder.createPackageFragment("pack", false, null);
+		fCompilationUnit= pack.createCompilationUnit("HistoryEntry.java", "package pack;\npublic class HistoryEntry {\n}\n", false, null);
+
+		IType type= fCompilationUnit.getType("HistoryEntry");
+		fMatch= SearchEngine.createTypeNameMatch(type, type.getFlags());
+		fHistory= OpenTypeHistory.getInstance();
+		fHistory.accessed(fMatch);
+		fHistory.markAsInconsistent();
+		fHistory.checkConsistency(new NullProgressMonitor());
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (fHistory.contains(fMatch))
+			fHistory.remove(fMatch);
+		JavaProjectHelper.delete(fJProject);
+	}
+
+	public void testUnverifiedUntilChecked() throws Exception {
+		assertTrue(fHistory.contains(fMatch));
+		assertTrue(fHistory.isVerified(fMatch));
+
+		// the background check can't verify entries while the history is locked
+		synchronized (fHistory) {
+			fHistory.markAsInconsistent();
+			assertFalse(fHistory.isVerified(fMatch));
+		}
+		fHistory.checkConsistency(new NullProgressMonitor());
+		assertTrue(fHistory.contains(fMatch));
+		assertTrue(fHistory.isVerified(fMatch));
+	}
+
+	public void testRemovedTypeDropped() throws Exception {
+		fCompilationUnit.delete(true, null);
+		fHistory.markAsInconsistent();
+		fHistory.checkConsistency(new NullProgressMonitor());
+		assertFalse(fHistory.contains(fMatch));
+	}
+
+	public void testListenerNotified() throws Exception {
+		final AtomicInteger notifications= new AtomicInteger();
+		IConsistencyCheckListener listener= new IConsistencyCheckListener() {
+			@Override
+			public void consistencyChecked() {
+				notifications.incrementAndGet();
+			}
+		};
+		fHistory.addConsistencyCheckListener(listener);
+		try {
+			fHistory.markAsInconsistent();
+			fHistory.checkConsistency(new NullProgressMonitor());
+			assertTrue(notifications.get() > 0);
+			assertTrue(fHistory.isVerified(fMatch));
+		} finally {
+			fHistory.removeConsistencyCheckListener(listener);
+		}
+	}
+}
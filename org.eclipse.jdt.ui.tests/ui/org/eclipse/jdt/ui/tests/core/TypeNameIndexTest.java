@@ -0,0 +1,202 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.core;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+import org.eclipse.jdt.testplugin.JavaTestPlugin;
+
+import org.eclipse.core.runtime.Path;
+
+import org.eclipse.core.resources.IFile;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.search.IJavaSearchConstants;
+import org.eclipse.jdt.core.search.SearchEngine;
+import org.eclipse.jdt.core.search.TypeNameMatch;
+import org.eclipse.jdt.core.search.TypeNameMatchRequestor;
+
+import org.eclipse.jdt.internal.corext.util.TypeInfoFilter;
+import org.eclipse.jdt.internal.corext.util.TypeNameIndex;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class TypeNameIndexTest extends TestCase {
+
+	private static final Class<TypeNameIndexTest> THIS= TypeNameIndexTest.class;
+
+	private IJavaProject fJProject;
+	private IPackageFragmentRoot fSourceFolder;
+	private TypeNameIndex fIndex;
+
+	public TypeNameIndexTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return setUpTest(new TestSuite(THIS));
+	}
+
+	public static Test setUpTest(Test test) {
+		return new ProjectTestSetup(test);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fJProject= JavaProjectHelper.createJavaProject("TestProject1", "bin");
+		assertNotNull("jre is null", JavaProjectHelper.addRTJar(fJProject));
+		fSourceFolder= JavaProjectHelper.addSourceContainer(fJProject, "src");
+
+		IPackageFragment pack= fSourceFolder.createPackageFragment("pack", false, null);
+		StringBuffer buf= new StringBuffer();
+		buf.append("package pack;\n");
+		buf.append("public class FooBar {\n");
+		buf.append("    class Qwerty {}\n");
+		buf.append("}\n");
+		buf.append("interface FooListener {\n");
+		buf.append("}\n");
+		pack.createCompilationUnit("FooBar.java", buf.toString(), false, null);
+
+		fIndex= TypeNameIndex.getInstance();
+		fIndex.update(null);
+		assertTrue(fIndex.isReady());
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		JavaProjectHelper.delete(fJProject);
+	}
+
+	private List<String> search(String pattern) throws Exception {
+		return search(pattern, IJavaSearchConstants.TYPE);
+	}
+
+	private List<String> search(String pattern, int elementKind) throws Exception {
+		TypeInfoFilter filter= new TypeInfoFilter(pattern, SearchEngine.createJavaSearchScope(new IJavaElement[] { fJProject }), elementKind, null);
+		final List<String> result= new ArrayList<>();
+		TypeNameMatchRequestor requestor= new TypeNameMatchRequestor() {
+			@Override
+			public void acceptTypeNameMatch(TypeNameMatch match) {
+				result.add(match.getFullyQualifiedName());
+			}
+		};
+		assertTrue("query not answered by the index", fIndex.search(filter, requestor, null));
+		Collections.sort(result);
+		return result;
+	}
+
+	private static void assertTypes(List<String> actual, String... expected) {
+		assertEquals(Arrays.asList(expected), actual);
+	}
+
+	public void testPrefixAndCamelCase() throws Exception {
+		assertTypes(search("Foo"), "pack.FooBar", "pack.FooListener");
+		assertTypes(search("foob"), "pack.FooBar");
+		assertTypes(search("FoL"), "pack.FooListener");
+		assertTypes(search("*wert*"), "pack.FooBar.Qwerty");
+		assertTypes(search("Bar"));
+	}
+
+	public void testPackageAndKind() throws Exception {
+		assertTypes(search("p.Foo"), "pack.FooBar", "pack.FooListener");
+		assertTypes(search("q.Foo"));
+		assertTypes(search("Foo", IJavaSearchConstants.INTERFACE), "pack.FooListener");
+		assertTypes(search("Foo", IJavaSearchConstants.CLASS), "pack.FooBar");
+	}
+
+	public void testCompilationUnitChanges() throws Exception {
+		IPackageFragment pack= fSourceFolder.getPackageFragment("pack");
+		ICompilationUnit cu= pack.createCompilationUnit("FooBaz.java", "package pack;\npublic class FooBaz {\n}\n", false, null);
+		fIndex.update(null);
+		assertTrue(fIndex.getChangedContainerCount() > 0);
+		assertTypes(search("FooBa"), "pack.FooBar", "pack.FooBaz");
+
+		cu.delete(true, null);
+		fIndex.update(null);
+		assertTypes(search("FooBa"), "pack.FooBar");
+	}
+
+	public void testPackageChanges() throws Exception {
+		IPackageFragment pack2= fSourceFolder.createPackageFragment("pack2", false, null);
+		pack2.createCompilationUnit("FooQux.java", "package pack2;\npublic class FooQux {\n}\n", false, null);
+		fIndex.update(null);
+		assertTypes(search("Foo"), "pack.FooBar", "pack.FooListener", "pack2.FooQux");
+
+		JavaProjectHelper.delete(fSourceFolder.getPackageFragment("pack"));
+		fIndex.update(null);
+		assertTypes(search("Foo"), "pack2.FooQux");
+	}
+
+	public void testWorkingCopy() throws Exception {
+		ICompilationUnit cu= fSourceFolder.getPackageFragment("pack").getCompilationUnit("FooBar.java");
+		cu.becomeWorkingCopy(null);
+		try {
+			cu.getBuffer().setContents("package pack;\npublic class FooBar {\n}\nclass FooUnsaved {\n}\n");
+			cu.reconcile(ICompilationUnit.NO_AST, false, null, null);
+			fIndex.update(null);
+			assertTypes(search("Foo"), "pack.FooBar", "pack.FooUnsaved");
+		} finally {
+			cu.discardWorkingCopy();
+		}
+		fIndex.update(null);
+		assertTypes(search("Foo"), "pack.FooBar", "pack.FooListener");
+	}
+
+	public void testCompaction() throws Exception {
+		IPackageFragment pack= fSourceFolder.getPackageFragment("pack");
+		pack.createCompilationUnit("FooBaz.java", "package pack;\npublic class FooBaz {\n}\n", false, null);
+		pack.getCompilationUnit("FooBar.java").delete(true, null);
+		fIndex.update(null);
+		assertTrue(fIndex.getChangedContainerCount() > 0);
+		List<String> before= search("Foo");
+		assertTypes(before, "pack.FooBaz");
+
+		fIndex.compact();
+		assertEquals(0, fIndex.getChangedContainerCount());
+		assertEquals(before, search("Foo"));
+		assertTypes(search("FB"), "pack.FooBaz");
+	}
+
+	public void testBinaryRootChanges() throws Exception {
+		File lib= JavaTestPlugin.getDefault().getFileInPlugin(JavaProjectHelper.MYLIB);
+		assertNotNull("lib does not exist", lib);
+		IPackageFragmentRoot root= JavaProjectHelper.addLibraryWithImport(fJProject, new Path(lib.getPath()), null, null);
+		fIndex.update(null);
+		assertTrue(search("Foo").contains("mylib.Foo"));
+		assertEquals(0, fIndex.getChangedContainerCount());
+
+		// replace the archive's content: only this root is read again
+		File otherLib= JavaTestPlugin.getDefault().getFileInPlugin(JavaProjectHelper.NLS_LIB);
+		InputStream contents= new FileInputStream(otherLib);
+		try {
+			((IFile) root.getResource()).setContents(contents, true, false, null);
+		} finally {
+			contents.close();
+		}
+		fIndex.update(null);
+		assertTrue(fIndex.getChangedContainerCount() > 0);
+		assertTypes(search("Foo"), "pack.FooBar", "pack.FooListener");
+		assertTypes(search("Messages"), "pkg.Messages");
+	}
+}
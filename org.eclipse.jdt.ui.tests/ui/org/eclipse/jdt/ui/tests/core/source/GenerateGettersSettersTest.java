@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,9 @@
  *******************************************************************************/
 package org.eclipse.jdt.ui.tests.core.source;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import junit.framework.Test;
 import junit.framework.TestSuite;
 
@@ -20,6 +23,8 @@ import org.eclipse.core.runtime.NullProgressMonitor;
 
 import org.eclipse.jface.preference.IPreferenceStore;
 
+import org.eclipse.ltk.core.refactoring.RefactoringCore;
+
 import org.eclipse.jdt.core.Flags;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IField;
@@ -32,6 +37,7 @@ import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.dom.Modifier;
 
+import org.eclipse.jdt.internal.corext.codemanipulation.AddGetterSetterBatchOperation;
 import org.eclipse.jdt.internal.corext.codemanipulation.AddGetterSetterOperation;
 import org.eclipse.jdt.internal.corext.codemanipulation.IRequestQuery;
 import org.eclipse.jdt.internal.corext.refactoring.util.RefactoringASTParser;
@@ -877,6 +883,104 @@ public class GenerateGettersSettersTest extends SourceTestCase {
 		assertInsertAt2(expectedSetter, false);
 	}
 
+	/**
+	 * Tests that existing accessors are found by name and signature, overloads with other
+	 * signatures do not count as existing.
+	 *
+	 * @throws Exception
+	 */
+	public void testExistingAccessorsFoundByName() throws Exception {
+		StringBuffer buf= new StringBuffer();
+		buf.append("package p;\n");
+		buf.append("\n");
+		buf.append("public class B {\n");
+		buf.append("	private int count;\n");
+		buf.append("	private String name;\n");
+		buf.append("	public int getCount(int offset) {\n");
+		buf.append("		return count + offset;\n");
+		buf.append("	}\n");
+		buf.append("	public void setCount(long count) {\n");
+		buf.append("	}\n");
+		buf.append("	public String getName() {\n");
+		buf.append("		return name;\n");
+		buf.append("	}\n");
+		buf.append("	public void setName(String name) {\n");
+		buf.append("	}\n");
+		buf.append("}\n");
+		ICompilationUnit unit= fPackageP.createCompilationUnit("B.java", buf.toString(), true, null);
+		IType type= unit.findPrimaryType();
+
+		final List<String> queried= new ArrayList<>();
+		IRequestQuery skip= new IRequestQuery() {
+
+			@Override
+			public int doQuery(IMember member) {
+				queried.add(member.getElementName());
+				return IRequestQuery.YES;
+			}
+		};
+		CompilationUnit ast= new RefactoringASTParser(IASTSharedValues.SHARED_AST_LEVEL).parse(unit, true);
+		AddGetterSetterOperation op= new AddGetterSetterOperation(type, NOFIELDS, NOFIELDS, new IField[] { type.getField("count"), type.getField("name") }, ast, skip, null, fSettings, true, true);
+		op.run(new NullProgressMonitor());
+		JavaModelUtil.reconcile(unit);
+
+		assertEquals("[getName, setName]", queried.toString());
+		assertTrue(type.getMethod("getCount", new String[0]).exists());
+		assertTrue(type.getMethod("setCount", new String[] { "I" }).exists());
+		assertTrue(type.getMethod("getCount", new String[] { "I" }).exists());
+		assertTrue(type.getMethod("setCount", new String[] { "J" }).exists());
+		assertEquals(6, type.getMethods().length);
+	}
+
+	/**
+	 * Tests the batch generation across compilation units, which is undone as a whole.
+	 *
+	 * @throws Exception
+	 */
+	public void testBatchAcrossUnits() throws Exception {
+		IPackageFragment fragment= fRoot.createPackageFragment("q", true, null);
+		StringBuffer buf= new StringBuffer();
+		buf.append("package q;\n");
+		buf.append("\n");
+		buf.append("public class Dto1 {\n");
+		buf.append("	private int a;\n");
+		buf.append("	private final String b= \"\";\n");
+		buf.append("}\n");
+		String original1= buf.toString();
+		ICompilationUnit unit1= fragment.createCompilationUnit("Dto1.java", original1, true, null);
+
+		buf= new StringBuffer();
+		buf.append("package q;\n");
+		buf.append("\n");
+		buf.append("public class Dto2 {\n");
+		buf.append("	private long c;\n");
+		buf.append("	public long getC() {\n");
+		buf.append("		return c;\n");
+		buf.append("	}\n");
+		buf.append("}\n");
+		String original2= buf.toString();
+		ICompilationUnit unit2= fragment.createCompilationUnit("Dto2.java", original2, true, null);
+
+		IType type1= unit1.findPrimaryType();
+		IType type2= unit2.findPrimaryType();
+		AddGetterSetterBatchOperation op= new AddGetterSetterBatchOperation(new IType[] { type1, type2 }, fSettings, true);
+		op.run(new NullProgressMonitor());
+		assertNotNull(op.getResultingChange());
+
+		assertTrue(type1.getMethod("getA", new String[0]).exists());
+		assertTrue(type1.getMethod("setA", new String[] { "I" }).exists());
+		assertTrue(type1.getMethod("getB", new String[0]).exists());
+		assertFalse(type1.getMethod("setB", new String[] { "QString;" }).exists());
+		assertTrue(Flags.isFinal(type1.getField("b").getFlags()));
+		assertTrue(type2.getMethod("setC", new String[] { "J" }).exists());
+		assertEquals(2, type2.getMethods().length);
+
+		// one change for both units
+		RefactoringCore.getUndoManager().performUndo(null, new NullProgressMonitor());
+		assertEquals(original1, unit1.getSource());
+		assertEquals(original2, unit2.getSource());
+	}
+
 	private void assertInsertAt(String expectedMethod, boolean isGetter) throws CoreException {
 		StringBuffer buf= new StringBuffer();
 		buf.append("package p;\n");
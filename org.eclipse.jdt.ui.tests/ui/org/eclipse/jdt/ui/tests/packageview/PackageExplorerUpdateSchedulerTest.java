@@ -0,0 +1,255 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.packageview;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jface.viewers.ITreeContentProvider;
+import org.eclipse.jface.viewers.Viewer;
+
+import org.eclipse.jdt.internal.ui.packageview.PackageExplorerUpdateScheduler;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the coalescing and time-slicing of Package Explorer updates.
+ */
+public class PackageExplorerUpdateSchedulerTest extends TestCase {
+
+	private static final Object INPUT= "input";
+
+	/**
+	 * A tree of strings: input / p / p.A / p.A.m and input / q / q.B.
+	 */
+	private static class TreeContentProvider implements ITreeContentProvider {
+
+		private final Map<Object, Object> fParents= new HashMap<>();
+
+		TreeContentProvider() {
+			fParents.put("p", INPUT);
+			fParents.put("p.A", "p");
+			fParents.put("p.A.m", "p.A");
+			fParents.put("q", INPUT);
+			fParents.put("q.B", "q");
+		}
+
+		@Override
+		public Object[] getElements(Object inputElement) {
+			return getChildren(inputElement);
+		}
+
+		@Override
+		public Object[] getChildren(Object parentElement) {
+			List<Object> children= new ArrayList<>();
+			for (Map.Entry<Object, Object> entry : fParents.entrySet()) {
+				if (entry.getValue().equals(parentElement))
+					children.add(entry.getKey());
+			}
+			return children.toArray();
+		}
+
+		@Override
+		public Object getParent(Object element) {
+			return fParents.get(element);
+		}
+
+		@Override
+		public boolean hasChildren(Object element) {
+			return getChildren(element).length > 0;
+		}
+
+		@Override
+		public void dispose() {
+		}
+
+		@Override
+		public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
+		}
+	}
+
+	private class Refresh extends PackageExplorerUpdateScheduler.RefreshUpdate {
+
+		private final String fName;
+
+		Refresh(String name, boolean updateLabels, Object... elements) {
+			super(Arrays.asList(elements), updateLabels);
+			fName= name;
+		}
+
+		@Override
+		public void run() {
+			fRun.add(toString());
+		}
+
+		@Override
+		protected PackageExplorerUpdateScheduler.RefreshUpdate copy(List<Object> elements, boolean updateLabels) {
+			return new Refresh(fName, updateLabels, elements.toArray());
+		}
+
+		@Override
+		public String toString() {
+			return fName + fElements + (fUpdateLabels ? " labels" : "");
+		}
+	}
+
+	private class Update extends PackageExplorerUpdateScheduler.ElementUpdate {
+
+		private final String fName;
+
+		Update(String name, Object target, boolean targetIncluded, boolean needsLabels) {
+			super(target, targetIncluded, needsLabels);
+			fName= name;
+		}
+
+		@Override
+		public void run() {
+			fRun.add(toString());
+		}
+
+		@Override
+		public String toString() {
+			return fName;
+		}
+	}
+
+	private List<String> fRun;
+
+	public PackageExplorerUpdateSchedulerTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(PackageExplorerUpdateSchedulerTest.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fRun= new ArrayList<>();
+	}
+
+	private static List<Runnable> updates(Runnable... updates) {
+		return new ArrayList<>(Arrays.asList(updates));
+	}
+
+	private static void assertUpdates(String expected, List<Runnable> actual) {
+		assertEquals(expected, actual.toString());
+	}
+
+	public void testChildUpdateAbsorbedByParentRefresh() throws Exception {
+		PackageExplorerUpdateScheduler scheduler= new PackageExplorerUpdateScheduler(new TreeContentProvider(), true);
+		List<Runnable> updates= updates(
+				new Update("add to p.A", "p.A", true, false),
+				new Refresh("refresh", false, "p"),
+				new Update("remove q.B", "q.B", false, false),
+				new Update("remove p.A.m", "p.A.m", false, false));
+
+		assertUpdates("[refresh[p], remove q.B]", scheduler.coalesce(updates, INPUT));
+	}
+
+	public void testLabelUpdateNeedsLabelRefresh() throws Exception {
+		PackageExplorerUpdateScheduler scheduler= new PackageExplorerUpdateScheduler(new TreeContentProvider(), true);
+		List<Runnable> updates= updates(
+				new Update("icon p.A", "p.A", true, true),
+				new Refresh("refresh", false, "p"));
+		assertUpdates("[icon p.A, refresh[p]]", scheduler.coalesce(updates, INPUT));
+
+		updates= updates(
+				new Update("icon p.A", "p.A", true, true),
+				new Refresh("refresh", true, "p"));
+		assertUpdates("[refresh[p] labels]", scheduler.coalesce(updates, INPUT));
+	}
+
+	public void testRemovedElementNotCoveredByOwnRefresh() throws Exception {
+		PackageExplorerUpdateScheduler scheduler= new PackageExplorerUpdateScheduler(new TreeContentProvider(), true);
+		List<Runnable> updates= updates(
+				new Refresh("refresh", false, "q.B"),
+				new Update("remove q.B", "q.B", false, false));
+
+		assertUpdates("[refresh[q.B], remove q.B]", scheduler.coalesce(updates, INPUT));
+	}
+
+	public void testDuplicateRefreshesMerged() throws Exception {
+		PackageExplorerUpdateScheduler scheduler= new PackageExplorerUpdateScheduler(new TreeContentProvider(), true);
+		List<Runnable> updates= updates(
+				new Refresh("first", false, "p"),
+				new Refresh("second", true, "p.A", "p", "q"));
+
+		assertUpdates("[first[p] labels, second[q] labels]", scheduler.coalesce(updates, INPUT));
+	}
+
+	public void testInputRefreshCoversAll() throws Exception {
+		PackageExplorerUpdateScheduler scheduler= new PackageExplorerUpdateScheduler(new TreeContentProvider(), true);
+		Runnable other= new Runnable() {
+			@Override
+			public void run() {
+				fRun.add("other");
+			}
+
+			@Override
+			public String toString() {
+				return "other";
+			}
+		};
+		List<Runnable> updates= updates(
+				new Update("icon q", "q", true, true),
+				new Refresh("refresh", false, "p.A"),
+				other,
+				new Refresh("all", true, INPUT),
+				new Refresh("again", false, (Object) null));
+
+		assertUpdates("[other, all[input] labels]", scheduler.coalesce(updates, INPUT));
+	}
+
+	public void testNoDescendantCoalescingForMultipleParents() throws Exception {
+		PackageExplorerUpdateScheduler scheduler= new PackageExplorerUpdateScheduler(new TreeContentProvider(), false);
+		List<Runnable> updates= updates(
+				new Refresh("refresh", false, "p"),
+				new Update("add to p.A", "p.A", true, false),
+				new Update("add to p", "p", true, false));
+
+		assertUpdates("[refresh[p], add to p.A]", scheduler.coalesce(updates, INPUT));
+	}
+
+	public void testUpdatesLeftOverAfterBudgetRunLater() throws Exception {
+		Runnable slow= new Runnable() {
+			@Override
+			public void run() {
+				fRun.add("slow");
+				try {
+					Thread.sleep(50);
+				} catch (InterruptedException e) {
+					// ignore
+				}
+			}
+		};
+		List<Runnable> updates= updates(slow, new Update("second", "p", true, false), new Update("third", "q", true, false));
+
+		List<Runnable> remaining= PackageExplorerUpdateScheduler.run(updates, 10);
+		assertEquals(Arrays.asList("slow"), fRun);
+		assertUpdates("[second, third]", remaining);
+
+		assertNull(PackageExplorerUpdateScheduler.run(remaining, 1000));
+		assertEquals(Arrays.asList("slow", "second", "third"), fRun);
+	}
+
+	public void testNoBudgetRunsAll() throws Exception {
+		List<Runnable> updates= updates(new Update("first", "p", true, false), new Update("second", "q", true, false));
+
+		assertNull(PackageExplorerUpdateScheduler.run(updates, 0));
+		assertEquals(Arrays.asList("first", "second"), fRun);
+	}
+}
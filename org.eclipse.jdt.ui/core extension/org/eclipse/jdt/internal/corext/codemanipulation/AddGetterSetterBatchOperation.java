@@ -0,0 +1,298 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.codemanipulation;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubProgressMonitor;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.text.edits.TextEdit;
+
+import org.eclipse.ltk.core.refactoring.Change;
+import org.eclipse.ltk.core.refactoring.CompositeChange;
+import org.eclipse.ltk.core.refactoring.PerformChangeOperation;
+import org.eclipse.ltk.core.refactoring.RefactoringCore;
+
+import org.eclipse.jdt.core.Flags;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IField;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.Modifier;
+import org.eclipse.jdt.core.dom.rewrite.ASTRewrite;
+import org.eclipse.jdt.core.refactoring.CompilationUnitChange;
+
+import org.eclipse.jdt.internal.corext.dom.IASTSharedValues;
+import org.eclipse.jdt.internal.corext.refactoring.util.RefactoringASTParser;
+import org.eclipse.jdt.internal.corext.util.JdtFlags;
+
+/**
+ * Workspace runnable to add the missing accessor methods to the fields of many types at once.
+ * <p>
+ * The types are grouped by compilation unit. The units are processed in parallel, each with one
+ * {@link ASTRewrite} that is shared by the {@link AddGetterSetterOperation}s of its types. The
+ * resulting edits are combined into one change, which is undone as a whole. Existing accessors
+ * are kept, and no setters are created for final fields.
+ * </p>
+ *
+ * @since 3.13
+ */
+public final class AddGetterSetterBatchOperation implements IWorkspaceRunnable {
+
+	private static final int MAX_THREADS= 8;
+
+	/** The types by compilation unit */
+	private final Map<ICompilationUnit, List<IType>> fTypes;
+
+	/** The code generation settings to use */
+	private final CodeGenerationSettings fSettings;
+
+	/** Should the resulting change be performed? */
+	private final boolean fApply;
+
+	/** The visibility flags of the new accessors */
+	private int fVisibility= Modifier.PUBLIC;
+
+	/** The resulting change */
+	private Change fChange= null;
+
+	/**
+	 * Creates a new batch operation.
+	 *
+	 * @param types the types to add the accessors to, must be in compilation units
+	 * @param settings the code generation settings to use
+	 * @param apply <code>true</code> if the resulting change should be performed and added to
+	 *            the undo stack, <code>false</code> otherwise
+	 */
+	public AddGetterSetterBatchOperation(final IType[] types, final CodeGenerationSettings settings, final boolean apply) {
+		Assert.isNotNull(types);
+		Assert.isNotNull(settings);
+		fTypes= new LinkedHashMap<>();
+		for (int i= 0; i < types.length; i++) {
+			ICompilationUnit unit= types[i].getCompilationUnit();
+			Assert.isNotNull(unit);
+			List<IType> list= fTypes.get(unit);
+			if (list == null) {
+				list= new ArrayList<>();
+				fTypes.put(unit, list);
+			}
+			list.add(types[i]);
+		}
+		fSettings= settings;
+		fApply= apply;
+	}
+
+	/**
+	 * Returns the resulting change.
+	 *
+	 * @return the resulting change, or <code>null</code> if no accessor has been added
+	 */
+	public final Change getResultingChange() {
+		return fChange;
+	}
+
+	/**
+	 * Returns the scheduling rule for this operation.
+	 *
+	 * @return the scheduling rule
+	 */
+	public final ISchedulingRule getSchedulingRule() {
+		return ResourcesPlugin.getWorkspace().getRoot();
+	}
+
+	/**
+	 * Sets the visibility modifier of the generated accessors.
+	 *
+	 * @param visibility the visibility modifier
+	 */
+	public final void setVisibility(final int visibility) {
+		fVisibility= visibility;
+	}
+
+	/*
+	 * @see org.eclipse.core.resources.IWorkspaceRunnable#run(org.eclipse.core.runtime.IProgressMonitor)
+	 */
+	@Override
+	public final void run(IProgressMonitor monitor) throws CoreException {
+		if (monitor == null)
+			monitor= new NullProgressMonitor();
+		try {
+			monitor.setTaskName(CodeGenerationMessages.AddGetterSetterOperation_description);
+			monitor.beginTask("", 2); //$NON-NLS-1$
+			final List<ICompilationUnit> units= new ArrayList<>(fTypes.keySet());
+			final TextEdit[] edits= createEditsInParallel(units, new SubProgressMonitor(monitor, 1));
+
+			CompositeChange change= new CompositeChange(CodeGenerationMessages.AddGetterSetterBatchOperation_change_name);
+			for (int i= 0; i < edits.length; i++) {
+				if (edits[i] == null || !edits[i].hasChildren())
+					continue;
+				ICompilationUnit unit= units.get(i);
+				CompilationUnitChange unitChange= new CompilationUnitChange(unit.getElementName(), unit);
+				unitChange.setEdit(edits[i]);
+				change.add(unitChange);
+			}
+			if (change.getChildren().length == 0)
+				return;
+			fChange= change;
+
+			if (fApply) {
+				change.initializeValidationData(new NullProgressMonitor());
+				PerformChangeOperation operation= new PerformChangeOperation(change);
+				operation.setUndoManager(RefactoringCore.getUndoManager(), change.getName());
+				operation.run(new SubProgressMonitor(monitor, 1));
+			}
+		} finally {
+			monitor.done();
+		}
+	}
+
+	/**
+	 * Creates the edits of the given compilation units with a pool of worker threads. Every unit
+	 * is parsed and rewritten by one worker, the ASTs are not shared.
+	 *
+	 * @param units the compilation units
+	 * @param monitor the progress monitor
+	 * @return the edits, in the order of the units
+	 * @throws CoreException if an accessor could not be created
+	 */
+	private TextEdit[] createEditsInParallel(final List<ICompilationUnit> units, IProgressMonitor monitor) throws CoreException {
+		final int count= units.size();
+		final TextEdit[] edits= new TextEdit[count];
+		final AtomicInteger next= new AtomicInteger();
+		final AtomicInteger created= new AtomicInteger();
+		final AtomicBoolean canceled= new AtomicBoolean();
+
+		int threadCount= Math.max(1, Math.min(count, Math.min(Runtime.getRuntime().availableProcessors(), MAX_THREADS)));
+		ExecutorService executor= Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread= new Thread(runnable, "Getter and setter generation"); //$NON-NLS-1$
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		try {
+			monitor.beginTask("", count); //$NON-NLS-1$
+			List<Future<Void>> futures= new ArrayList<>(threadCount);
+			for (int t= 0; t < threadCount; t++) {
+				futures.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws CoreException {
+						int index;
+						while (!canceled.get() && (index= next.getAndIncrement()) < count) {
+							ICompilationUnit unit= units.get(index);
+							edits[index]= createEdit(unit, fTypes.get(unit));
+							created.incrementAndGet();
+						}
+						return null;
+					}
+				}));
+			}
+
+			int reported= 0;
+			for (Iterator<Future<Void>> iter= futures.iterator(); iter.hasNext();) {
+				Future<Void> future= iter.next();
+				while (true) {
+					if (monitor.isCanceled()) {
+						canceled.set(true);
+						throw new OperationCanceledException();
+					}
+					try {
+						future.get(100, TimeUnit.MILLISECONDS);
+						break;
+					} catch (TimeoutException e) {
+						// keep waiting
+					} finally {
+						int current= created.get();
+						monitor.worked(current - reported);
+						reported= current;
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			canceled.set(true);
+			Thread.currentThread().interrupt();
+			throw new OperationCanceledException();
+		} catch (ExecutionException e) {
+			canceled.set(true);
+			Throwable cause= e.getCause();
+			if (cause instanceof CoreException)
+				throw (CoreException) cause;
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			throw new IllegalStateException(cause);
+		} finally {
+			executor.shutdownNow();
+			monitor.done();
+		}
+		return edits;
+	}
+
+	/**
+	 * Adds the accessors of all given types of a compilation unit to one rewrite.
+	 *
+	 * @param unit the compilation unit
+	 * @param types the types of the compilation unit
+	 * @return the edit of the compilation unit
+	 * @throws CoreException if an accessor could not be created
+	 */
+	private TextEdit createEdit(ICompilationUnit unit, List<IType> types) throws CoreException {
+		CompilationUnit root= new RefactoringASTParser(IASTSharedValues.SHARED_AST_LEVEL).parse(unit, false);
+		ASTRewrite astRewrite= ASTRewrite.create(root.getAST());
+		for (Iterator<IType> iter= types.iterator(); iter.hasNext();) {
+			IType type= iter.next();
+			if (type.isInterface())
+				continue;
+			List<IField> getters= new ArrayList<>();
+			List<IField> accessors= new ArrayList<>();
+			IField[] fields= type.getFields();
+			for (int i= 0; i < fields.length; i++) {
+				if (JdtFlags.isEnum(fields[i]))
+					continue;
+				if (Flags.isFinal(fields[i].getFlags()))
+					getters.add(fields[i]);
+				else
+					accessors.add(fields[i]);
+			}
+			if (getters.isEmpty() && accessors.isEmpty())
+				continue;
+
+			AddGetterSetterOperation operation= new AddGetterSetterOperation(type, getters.toArray(new IField[getters.size()]), new IField[0],
+					accessors.toArray(new IField[accessors.size()]), root, null, null, fSettings, false, false);
+			operation.setVisibility(fVisibility);
+			operation.addAccessors(astRewrite, new NullProgressMonitor());
+		}
+		return astRewrite.rewriteAST();
+	}
+}
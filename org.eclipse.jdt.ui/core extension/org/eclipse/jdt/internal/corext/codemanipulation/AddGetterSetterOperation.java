@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,8 +11,12 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.corext.codemanipulation;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.core.runtime.Assert;
@@ -110,6 +114,15 @@ public final class AddGetterSetterOperation implements IWorkspaceRunnable {
 	/** The visibility flags of the new accessors */
 	private int fVisibility= Modifier.PUBLIC;
 
+	/** The methods of the type by name, while running */
+	private Map<String, List<IMethod>> fExistingMethods;
+
+	/** The formatter options of the project, while running */
+	private Map<String, String> fFormatterOptions;
+
+	/** The line delimiter of the compilation unit, while running */
+	private String fLineDelimiter;
+
 	/**
 	 * Creates a new add getter setter operation.
 	 *
@@ -143,16 +156,12 @@ public final class AddGetterSetterOperation implements IWorkspaceRunnable {
 	/**
 	 * Adds a new accessor for the specified field.
 	 *
-	 * @param type the type
-	 * @param field the field
 	 * @param contents the contents of the accessor method
 	 * @param rewrite the list rewrite to use
 	 * @param insertion the insertion point
-	 * @throws JavaModelException if an error occurs
 	 */
-	private void addNewAccessor(final IType type, final IField field, final String contents, final ListRewrite rewrite, final ASTNode insertion) throws JavaModelException {
-		final String delimiter= StubUtility.getLineDelimiterUsed(type);
-		final MethodDeclaration declaration= (MethodDeclaration) rewrite.getASTRewrite().createStringPlaceholder(CodeFormatterUtil.format(CodeFormatter.K_CLASS_BODY_DECLARATIONS, contents, 0, delimiter, field.getJavaProject()), ASTNode.METHOD_DECLARATION);
+	private void addNewAccessor(final String contents, final ListRewrite rewrite, final ASTNode insertion) {
+		final MethodDeclaration declaration= (MethodDeclaration) rewrite.getASTRewrite().createStringPlaceholder(CodeFormatterUtil.format(CodeFormatter.K_CLASS_BODY_DECLARATIONS, contents, 0, fLineDelimiter, fFormatterOptions), ASTNode.METHOD_DECLARATION);
 		if (insertion != null)
 			rewrite.insertBefore(declaration, insertion, null);
 		else
@@ -168,9 +177,8 @@ public final class AddGetterSetterOperation implements IWorkspaceRunnable {
 	 * @throws OperationCanceledException if the operation has been cancelled
 	 */
 	private void generateGetterMethod(final IField field, final ListRewrite rewrite) throws CoreException, OperationCanceledException {
-		final IType type= field.getDeclaringType();
 		final String name= GetterSetterUtil.getGetterName(field, null);
-		final IMethod existing= JavaModelUtil.findMethod(name, EMPTY_STRINGS, false, type);
+		final IMethod existing= findExistingMethod(name, EMPTY_STRINGS);
 		if (existing == null || !querySkipExistingMethods(existing)) {
 			IJavaElement sibling= null;
 			if (existing != null) {
@@ -179,7 +187,7 @@ public final class AddGetterSetterOperation implements IWorkspaceRunnable {
 			} else
 				sibling= fInsert;
 			ASTNode insertion= StubUtility2.getNodeToInsertBefore(rewrite, sibling);
-			addNewAccessor(type, field, GetterSetterUtil.getGetterStub(field, name, fSettings.createComments, fVisibility | (field.getFlags() & Flags.AccStatic)), rewrite, insertion);
+			addNewAccessor(GetterSetterUtil.getGetterStub(field, name, fSettings.createComments, fVisibility | (field.getFlags() & Flags.AccStatic)), rewrite, insertion);
 		}
 	}
 
@@ -193,9 +201,8 @@ public final class AddGetterSetterOperation implements IWorkspaceRunnable {
 	 * @throws OperationCanceledException if the operation has been cancelled
 	 */
 	private void generateSetterMethod(final IField field, ASTRewrite astRewrite, final ListRewrite rewrite) throws CoreException, OperationCanceledException {
-		final IType type= field.getDeclaringType();
 		final String name= GetterSetterUtil.getSetterName(field, null);
-		final IMethod existing= JavaModelUtil.findMethod(name, new String[] { field.getTypeSignature()}, false, type);
+		final IMethod existing= findExistingMethod(name, new String[] { field.getTypeSignature()});
 		if (existing == null || !querySkipExistingMethods(existing)) {
 			IJavaElement sibling= null;
 			if (existing != null) {
@@ -204,7 +211,7 @@ public final class AddGetterSetterOperation implements IWorkspaceRunnable {
 			} else
 				sibling= fInsert;
 			ASTNode insertion= StubUtility2.getNodeToInsertBefore(rewrite, sibling);
-			addNewAccessor(type, field, GetterSetterUtil.getSetterStub(field, name, fSettings.createComments, fVisibility | (field.getFlags() & Flags.AccStatic)), rewrite, insertion);
+			addNewAccessor(GetterSetterUtil.getSetterStub(field, name, fSettings.createComments, fVisibility | (field.getFlags() & Flags.AccStatic)), rewrite, insertion);
 			if (Flags.isFinal(field.getFlags())) {
 				ASTNode fieldDecl= ASTNodes.getParent(NodeFinder.perform(fASTRoot, field.getNameRange()), FieldDeclaration.class);
 				if (fieldDecl != null) {
@@ -215,6 +222,27 @@ public final class AddGetterSetterOperation implements IWorkspaceRunnable {
 		}
 	}
 
+	/**
+	 * Finds an existing method of the type with the given name and parameter types.
+	 *
+	 * @param name the method name
+	 * @param paramTypes the type signatures of the parameters
+	 * @return the method or <code>null</code> if none
+	 * @throws JavaModelException if an error occurs
+	 * @see JavaModelUtil#findMethod(String, String[], boolean, IType)
+	 */
+	private IMethod findExistingMethod(final String name, final String[] paramTypes) throws JavaModelException {
+		final List<IMethod> methods= fExistingMethods.get(name);
+		if (methods != null) {
+			for (int i= 0; i < methods.size(); i++) {
+				final IMethod method= methods.get(i);
+				if (JavaModelUtil.isSameMethodSignature(name, paramTypes, false, method))
+					return method;
+			}
+		}
+		return null;
+	}
+
 	/**
 	 * Returns the resulting text edit.
 	 *
@@ -297,6 +325,28 @@ public final class AddGetterSetterOperation implements IWorkspaceRunnable {
 			monitor.beginTask("", fGetterFields.length + fSetterFields.length); //$NON-NLS-1$
 			final ICompilationUnit unit= fType.getCompilationUnit();
 			final ASTRewrite astRewrite= ASTRewrite.create(fASTRoot.getAST());
+			addAccessors(astRewrite, monitor);
+			fEdit= astRewrite.rewriteAST();
+			if (fApply) {
+				JavaElementUtil.applyEdit(unit, fEdit, fSave, new SubProgressMonitor(monitor, 1));
+			}
+		} finally {
+			monitor.done();
+		}
+	}
+
+	/**
+	 * Adds the accessors to the given rewrite. The rewrite may be shared by the operations for
+	 * other types of the same compilation unit, see {@link AddGetterSetterBatchOperation}.
+	 *
+	 * @param astRewrite the rewrite of the compilation unit ast node
+	 * @param monitor the progress monitor, one unit of work per accessor field
+	 * @throws CoreException if an error occurs
+	 * @throws OperationCanceledException if the operation has been cancelled
+	 * @since 3.13
+	 */
+	void addAccessors(final ASTRewrite astRewrite, final IProgressMonitor monitor) throws CoreException, OperationCanceledException {
+		try {
 			ListRewrite listRewriter= null;
 			if (fType.isAnonymous()) {
 				final ClassInstanceCreation creation= (ClassInstanceCreation) ASTNodes.getParent(NodeFinder.perform(fASTRoot, fType.getNameRange()), ClassInstanceCreation.class);
@@ -315,6 +365,20 @@ public final class AddGetterSetterOperation implements IWorkspaceRunnable {
 			}
 
 			fSkipAllExisting= (fSkipExistingQuery == null);
+
+			// look up the existing accessors and the settings once for all fields
+			fExistingMethods= new HashMap<>();
+			final IMethod[] methods= fType.getMethods();
+			for (int i= 0; i < methods.length; i++) {
+				List<IMethod> list= fExistingMethods.get(methods[i].getElementName());
+				if (list == null) {
+					list= new ArrayList<>(1);
+					fExistingMethods.put(methods[i].getElementName(), list);
+				}
+				list.add(methods[i]);
+			}
+			fFormatterOptions= fType.getJavaProject().getOptions(true);
+			fLineDelimiter= StubUtility.getLineDelimiterUsed(fType);
 			
 			Set<IField> accessors = new HashSet<>(Arrays.asList(fAccessorFields));
 			Set<IField> getters = new HashSet<>(Arrays.asList(fGetterFields));
@@ -350,12 +414,10 @@ public final class AddGetterSetterOperation implements IWorkspaceRunnable {
 					}
 				}
 			}
-			fEdit= astRewrite.rewriteAST();
-			if (fApply) {
-				JavaElementUtil.applyEdit(unit, fEdit, fSave, new SubProgressMonitor(monitor, 1));
-			}
 		} finally {
-			monitor.done();
+			fExistingMethods= null;
+			fFormatterOptions= null;
+			fLineDelimiter= null;
 		}
 	}
 
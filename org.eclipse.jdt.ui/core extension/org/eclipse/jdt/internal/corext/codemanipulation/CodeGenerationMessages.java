@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2009 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -23,6 +23,7 @@ public final class CodeGenerationMessages extends NLS {
 
 	public static String AddGetterSetterOperation_description;
 	public static String AddGetterSetterOperation_error_input_type_not_found;
+	public static String AddGetterSetterBatchOperation_change_name;
 	public static String AddImportsOperation_description;
 	public static String AddImportsOperation_error_not_visible_class;
 	public static String AddImportsOperation_error_notresolved_message;
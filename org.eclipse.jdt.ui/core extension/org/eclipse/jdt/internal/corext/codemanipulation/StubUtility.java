@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,7 +11,6 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.corext.codemanipulation;
 
-import java.io.IOException;
 import java.lang.reflect.Modifier;
 import java.util.AbstractList;
 import java.util.ArrayList;
@@ -1473,13 +1472,7 @@ public class StubUtility {
 	public static Template getCodeTemplate(String id, IJavaProject project) {
 		if (project == null)
 			return JavaPlugin.getDefault().getCodeTemplateStore().findTemplateById(id);
-		ProjectTemplateStore projectStore= new ProjectTemplateStore(project.getProject());
-		try {
-			projectStore.load();
-		} catch (IOException e) {
-			JavaPlugin.log(e);
-		}
-		return projectStore.findTemplateById(id);
+		return ProjectTemplateStore.findTemplateById(project.getProject(), id);
 	}
 
 
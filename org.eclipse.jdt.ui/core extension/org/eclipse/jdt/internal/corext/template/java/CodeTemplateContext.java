@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,6 +11,8 @@
 package org.eclipse.jdt.internal.corext.template.java;
 
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.eclipse.core.runtime.Assert;
 
@@ -23,6 +25,7 @@ import org.eclipse.jface.text.templates.TemplateBuffer;
 import org.eclipse.jface.text.templates.TemplateContext;
 import org.eclipse.jface.text.templates.TemplateException;
 import org.eclipse.jface.text.templates.TemplateTranslator;
+import org.eclipse.jface.text.templates.TemplateVariable;
 import org.eclipse.jface.text.templates.TemplateVariableResolver;
 
 import org.eclipse.jdt.core.ICompilationUnit;
@@ -32,6 +35,22 @@ import org.eclipse.jdt.internal.ui.JavaPlugin;
 
 public class CodeTemplateContext extends TemplateContext {
 
+	private static final int MAX_CACHED_BUFFERS= 32;
+
+	/**
+	 * The translated patterns by line delimiter and pattern. Code templates are evaluated for every
+	 * generated method, field and comment, but only few patterns are in use. Guarded by
+	 * <code>fgTranslatedPatterns</code>.
+	 */
+	private static final Map<String, TemplateBuffer> fgTranslatedPatterns= new LinkedHashMap<String, TemplateBuffer>(16, 0.75f, true) {
+		private static final long serialVersionUID= 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, TemplateBuffer> eldest) {
+			return size() > MAX_CACHED_BUFFERS;
+		}
+	};
+
 	private String fLineDelimiter;
 	private IJavaProject fProject;
 
@@ -62,14 +81,43 @@ public class CodeTemplateContext extends TemplateContext {
 		if (!canEvaluate(template))
 			return null;
 
-		String pattern= changeLineDelimiter(template.getPattern(), fLineDelimiter);
-
-		TemplateTranslator translator= new TemplateTranslator();
-		TemplateBuffer buffer= translator.translate(pattern);
+		TemplateBuffer buffer= translate(template.getPattern(), fLineDelimiter);
 		getContextType().resolve(buffer, this);
 		return buffer;
 	}
 
+	/**
+	 * Returns a new template buffer with the translation of the given pattern. The translations are
+	 * cached, resolving modifies the returned buffer only.
+	 * 
+	 * @param pattern the pattern
+	 * @param lineDelim the line delimiter to use
+	 * @return the translated pattern
+	 * @throws TemplateException if the pattern has a syntax error
+	 */
+	private static TemplateBuffer translate(String pattern, String lineDelim) throws TemplateException {
+		String key= lineDelim + '\0' + pattern;
+		TemplateBuffer buffer;
+		synchronized (fgTranslatedPatterns) {
+			buffer= fgTranslatedPatterns.get(key);
+		}
+		if (buffer == null) {
+			TemplateTranslator translator= new TemplateTranslator();
+			buffer= translator.translate(changeLineDelimiter(pattern, lineDelim));
+			synchronized (fgTranslatedPatterns) {
+				fgTranslatedPatterns.put(key, buffer);
+			}
+		}
+
+		TemplateVariable[] variables= buffer.getVariables();
+		TemplateVariable[] copies= new TemplateVariable[variables.length];
+		for (int i= 0; i < variables.length; i++) {
+			TemplateVariable variable= variables[i];
+			copies[i]= new TemplateVariable(variable.getVariableType(), variable.getName(), variable.getValues().clone(), variable.getOffsets().clone());
+		}
+		return new TemplateBuffer(buffer.getString(), copies);
+	}
+
 	private static String changeLineDelimiter(String code, String lineDelim) {
 		try {
 			ILineTracker tracker= new DefaultLineTracker();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,10 +14,12 @@ import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.w3c.dom.Element;
 
@@ -27,6 +29,7 @@ import org.eclipse.core.filesystem.IFileInfo;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.ListenerList;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
@@ -54,9 +57,109 @@ import org.eclipse.jdt.internal.corext.CorextMessages;
 
 /**
  * History for the open type dialog. Object and keys are both {@link TypeNameMatch}s.
+ * <p>
+ * The consistency of the history is checked in a background job, batched per package
+ * fragment root. Until an entry has been checked, it is reported as not
+ * {@link #isVerified(TypeNameMatch) verified}; clients can show such entries but have
+ * to be prepared that the type does not exist anymore. Listeners are notified when a check
+ * has finished.
+ * </p>
  */
 public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 
+	/**
+	 * Listener that is notified when the consistency check of the history has finished.
+	 *
+	 * @since 3.13
+	 */
+	public interface IConsistencyCheckListener {
+
+		/**
+		 * Called after all entries of the history have been checked. This method is
+		 * called in the thread that ran the check.
+		 */
+		void consistencyChecked();
+	}
+
+	/**
+	 * Open addressing hash map from {@link TypeNameMatch} to a time stamp, storing
+	 * the time stamps without boxing.
+	 */
+	private static final class TimestampMap {
+
+		private Object[] fKeys= new Object[16];
+		private long[] fValues= new long[16];
+		private int fSize;
+
+		public boolean containsKey(Object key) {
+			return fKeys[indexOf(key)] != null;
+		}
+
+		/**
+		 * @param key the key
+		 * @return the time stamp or {@link IResource#NULL_STAMP} if the key is not mapped
+		 */
+		public long get(Object key) {
+			int index= indexOf(key);
+			return fKeys[index] != null ? fValues[index] : IResource.NULL_STAMP;
+		}
+
+		public void put(Object key, long value) {
+			int index= indexOf(key);
+			if (fKeys[index] == null) {
+				if (2 * (fSize + 1) > fKeys.length) {
+					rehash(2 * fKeys.length);
+					index= indexOf(key);
+				}
+				fKeys[index]= key;
+				fSize++;
+			}
+			fValues[index]= value;
+		}
+
+		public void remove(Object key) {
+			int index= indexOf(key);
+			if (fKeys[index] == null)
+				return;
+			fKeys[index]= null;
+			fSize--;
+			// re-insert the following entries of the cluster
+			int mask= fKeys.length - 1;
+			for (int i= (index + 1) & mask; fKeys[i] != null; i= (i + 1) & mask) {
+				Object rehashedKey= fKeys[i];
+				long rehashedValue= fValues[i];
+				fKeys[i]= null;
+				int newIndex= indexOf(rehashedKey);
+				fKeys[newIndex]= rehashedKey;
+				fValues[newIndex]= rehashedValue;
+			}
+		}
+
+		private int indexOf(Object key) {
+			int mask= fKeys.length - 1;
+			int hash= key.hashCode();
+			int index= (hash ^ (hash >>> 16)) & mask;
+			while (fKeys[index] != null && !fKeys[index].equals(key)) {
+				index= (index + 1) & mask;
+			}
+			return index;
+		}
+
+		private void rehash(int capacity) {
+			Object[] oldKeys= fKeys;
+			long[] oldValues= fValues;
+			fKeys= new Object[capacity];
+			fValues= new long[capacity];
+			for (int i= 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != null) {
+					int index= indexOf(oldKeys[i]);
+					fKeys[index]= oldKeys[i];
+					fValues[index]= oldValues[i];
+				}
+			}
+		}
+	}
+
 	private static class TypeHistoryDeltaListener implements IElementChangedListener {
 		@Override
 		public void elementChanged(ElementChangedEvent event) {
@@ -167,10 +270,19 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 	// Needs to be volatile since accesses aren't synchronized.
 	private volatile boolean fNeedsConsistencyCheck;
 	// Map of cached time stamps
-	private Map<TypeNameMatch, Long> fTimestampMapping;
+	private TimestampMap fTimestampMapping;
+	// Entries that have not been checked since the history became inconsistent.
+	// Concurrent, so that label providers can query it while the history is checked.
+	private final Set<TypeNameMatch> fUnverified;
+	// Set when the history became inconsistent but fUnverified hasn't been filled yet
+	private volatile boolean fAllUnverified;
+
+	// Serializes the consistency checks of the update job and of checkConsistency(IProgressMonitor)
+	private final Object fCheckLock= new Object();
 
 	private final IElementChangedListener fDeltaListener;
 	private final UpdateJob fUpdateJob;
+	private final ListenerList<IConsistencyCheckListener> fCheckListeners= new ListenerList<>();
 
 	private static final String FILENAME= "OpenTypeHistory.xml"; //$NON-NLS-1$
 	private static final String NODE_ROOT= "typeInfoHistroy"; //$NON-NLS-1$
@@ -195,9 +307,11 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 
 	private OpenTypeHistory() {
 		super(FILENAME, NODE_ROOT, NODE_TYPE_INFO);
-		fTimestampMapping= new HashMap<>();
+		fTimestampMapping= new TimestampMap();
+		fUnverified= ConcurrentHashMap.newKeySet();
 		fNeedsConsistencyCheck= true;
 		load();
+		fUnverified.addAll(getKeys());
 		fDeltaListener= new TypeHistoryDeltaListener();
 		JavaCore.addElementChangedListener(fDeltaListener);
 		fUpdateJob= new UpdateJob();
@@ -211,6 +325,7 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 
 	public void markAsInconsistent() {
 		fNeedsConsistencyCheck= true;
+		fAllUnverified= true;
 		// cancel the old job. If no job is running this is a NOOP.
 		fUpdateJob.cancel();
 		fUpdateJob.schedule();
@@ -220,6 +335,34 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 		return fNeedsConsistencyCheck;
 	}
 
+	/**
+	 * Schedules the consistency check in the background if the history needs one.
+	 * Unlike {@link #checkConsistency(IProgressMonitor)}, this method doesn't block.
+	 */
+	public void scheduleConsistencyCheck() {
+		if (fNeedsConsistencyCheck && fUpdateJob.getState() == Job.NONE)
+			fUpdateJob.schedule();
+	}
+
+	/**
+	 * Tells whether the given entry has been checked since the history last became inconsistent.
+	 *
+	 * @param type the history entry
+	 * @return <code>true</code> if the entry has been verified, <code>false</code> if it might
+	 *  refer to a type that does not exist anymore
+	 */
+	public boolean isVerified(TypeNameMatch type) {
+		return !fAllUnverified && !fUnverified.contains(type);
+	}
+
+	public void addConsistencyCheckListener(IConsistencyCheckListener listener) {
+		fCheckListeners.add(listener);
+	}
+
+	public void removeConsistencyCheckListener(IConsistencyCheckListener listener) {
+		fCheckListeners.remove(listener);
+	}
+
 	public void checkConsistency(IProgressMonitor monitor) throws OperationCanceledException {
 		if (!fNeedsConsistencyCheck)
 			return;
@@ -249,7 +392,7 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 		// Fetching the timestamp might not be cheap (remote file system
 		// external Jars. So check if we alreay have one.
 		if (!fTimestampMapping.containsKey(info)) {
-			fTimestampMapping.put(info, new Long(getContainerTimestamp(info)));
+			fTimestampMapping.put(info, getContainerTimestamp(info));
 		}
 		super.accessed(info);
 	}
@@ -257,12 +400,14 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 	@Override
 	public synchronized TypeNameMatch remove(TypeNameMatch info) {
 		fTimestampMapping.remove(info);
+		fUnverified.remove(info);
 		return (TypeNameMatch)super.remove(info);
 	}
 
 	public synchronized void replace(TypeNameMatch old, TypeNameMatch newMatch) {
 		fTimestampMapping.remove(old);
-		fTimestampMapping.put(newMatch, new Long(getContainerTimestamp(newMatch)));
+		fTimestampMapping.put(newMatch, getContainerTimestamp(newMatch));
+		fUnverified.remove(old);
 		super.remove(old);
 		super.accessed(newMatch);
 	}
@@ -297,44 +442,124 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 		return object;
 	}
 
-	private synchronized void internalCheckConsistency(IProgressMonitor monitor) throws OperationCanceledException {
-		// Setting fNeedsConsistencyCheck is necessary here since
-		// markAsInconsistent isn't synchronized.
-		fNeedsConsistencyCheck= true;
-		List<TypeNameMatch> typesToCheck= new ArrayList<>(getKeys());
-		monitor.beginTask(CorextMessages.TypeInfoHistory_consistency_check, typesToCheck.size());
-		monitor.setTaskName(CorextMessages.TypeInfoHistory_consistency_check);
-		for (Iterator<TypeNameMatch> iter= typesToCheck.iterator(); iter.hasNext();) {
-			TypeNameMatch type= iter.next();
-			long currentTimestamp= getContainerTimestamp(type);
-			Long lastTested= fTimestampMapping.get(type);
-			if (lastTested != null && currentTimestamp != IResource.NULL_STAMP && currentTimestamp == lastTested.longValue() && !isContainerDirty(type))
-				continue;
-			try {
-				IType jType= type.getType();
-				if (jType == null || !jType.exists()) {
-					remove(type);
-				} else {
-					// copy over the modifiers since they may have changed
-					int modifiers= jType.getFlags();
-					if (modifiers != type.getModifiers()) {
-						replace(type, SearchEngine.createTypeNameMatch(jType, modifiers));
+	/*
+	 * Not synchronized as a whole, so that the history can be read while it is checked.
+	 * The entries are checked in batches per package fragment root; the time stamp of
+	 * an archive is only fetched once per batch. Concurrent checks are serialized by
+	 * fCheckLock.
+	 */
+	private void internalCheckConsistency(IProgressMonitor monitor) throws OperationCanceledException {
+		synchronized (fCheckLock) {
+			// Setting fNeedsConsistencyCheck is necessary here since
+			// markAsInconsistent isn't synchronized.
+			fNeedsConsistencyCheck= true;
+			Map<IPackageFragmentRoot, List<TypeNameMatch>> batches= new LinkedHashMap<>();
+			int count;
+			synchronized (this) {
+				if (fAllUnverified) {
+					fUnverified.addAll(getKeys());
+					fAllUnverified= false;
+				}
+				List<TypeNameMatch> typesToCheck= new ArrayList<>(getKeys());
+				count= typesToCheck.size();
+				for (Iterator<TypeNameMatch> iter= typesToCheck.iterator(); iter.hasNext();) {
+					TypeNameMatch type= iter.next();
+					IPackageFragmentRoot root= type.getPackageFragmentRoot();
+					List<TypeNameMatch> batch= batches.get(root);
+					if (batch == null) {
+						batch= new ArrayList<>();
+						batches.put(root, batch);
+					}
+					batch.add(type);
+				}
+			}
+			monitor.beginTask(CorextMessages.TypeInfoHistory_consistency_check, count);
+			monitor.setTaskName(CorextMessages.TypeInfoHistory_consistency_check);
+			for (Iterator<Map.Entry<IPackageFragmentRoot, List<TypeNameMatch>>> iter= batches.entrySet().iterator(); iter.hasNext();) {
+				Map.Entry<IPackageFragmentRoot, List<TypeNameMatch>> batch= iter.next();
+				checkConsistency(batch.getKey(), batch.getValue());
+				if (monitor.isCanceled())
+					throw new OperationCanceledException();
+				monitor.worked(batch.getValue().size());
+			}
+			monitor.done();
+			for (IConsistencyCheckListener listener : fCheckListeners) {
+				listener.consistencyChecked();
+			}
+			fNeedsConsistencyCheck= false;
+		}
+	}
+
+	private void checkConsistency(IPackageFragmentRoot root, List<TypeNameMatch> types) {
+		if (root == null || !root.exists()) {
+			synchronized (this) {
+				for (Iterator<TypeNameMatch> iter= types.iterator(); iter.hasNext();) {
+					remove(iter.next());
+				}
+			}
+			return;
+		}
+		// fetch the time stamp outside of the lock, it may require file system access
+		long archiveTimestamp= root.isArchive() ? getArchiveTimestamp(root) : IResource.NULL_STAMP;
+		synchronized (this) {
+			for (Iterator<TypeNameMatch> iter= types.iterator(); iter.hasNext();) {
+				TypeNameMatch type= iter.next();
+				if (!containsKey(type))
+					continue; // removed in the meantime
+				long currentTimestamp= root.isArchive() ? archiveTimestamp : getContainerTimestamp(type);
+				long lastTested= fTimestampMapping.get(type);
+				if (fTimestampMapping.containsKey(type) && currentTimestamp != IResource.NULL_STAMP && currentTimestamp == lastTested && !isContainerDirty(type)) {
+					fUnverified.remove(type);
+					continue;
+				}
+				try {
+					IType jType= type.getType();
+					if (jType == null || !jType.exists()) {
+						remove(type);
 					} else {
-						fTimestampMapping.put(type, new Long(currentTimestamp));
+						// copy over the modifiers since they may have changed
+						int modifiers= jType.getFlags();
+						if (modifiers != type.getModifiers()) {
+							replace(type, SearchEngine.createTypeNameMatch(jType, modifiers));
+						} else {
+							fTimestampMapping.put(type, currentTimestamp);
+							fUnverified.remove(type);
+						}
 					}
+				} catch (JavaModelException e) {
+					remove(type);
 				}
-			} catch (JavaModelException e) {
-				remove(type);
 			}
-			if (monitor.isCanceled())
-				throw new OperationCanceledException();
-			monitor.worked(1);
 		}
-		monitor.done();
-		fNeedsConsistencyCheck= false;
+	}
+
+	private long getArchiveTimestamp(IPackageFragmentRoot root) {
+		try {
+			IResource resource= root.getResource();
+			if (resource != null) {
+				URI location= resource.getLocationURI();
+				if (location != null) {
+					IFileInfo info= EFS.getStore(location).fetchInfo();
+					if (info.exists())
+						return info.getLastModified();
+				}
+			} else { // external JAR
+				IFileInfo info= EFS.getLocalFileSystem().getStore(root.getPath()).fetchInfo();
+				if (info.exists())
+					return info.getLastModified();
+			}
+		} catch (CoreException e) {
+			// Fall through
+		}
+		return IResource.NULL_STAMP;
 	}
 
 	private long getContainerTimestamp(TypeNameMatch match) {
+		IPackageFragmentRoot root= match.getPackageFragmentRoot();
+		if (root.isArchive()) {
+			// The archive could be removed from the build path.
+			return root.exists() ? getArchiveTimestamp(root) : IResource.NULL_STAMP;
+		}
 		try {
 			IType type= match.getType();
 			IResource resource= type.getResource();
@@ -350,14 +575,6 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 							return info.getLastModified();
 					}
 				}
-			} else { // external JAR
-				IPackageFragmentRoot root= match.getPackageFragmentRoot();
-				if (root.exists()) {
-					IFileInfo info= EFS.getLocalFileSystem().getStore(root.getPath()).fetchInfo();
-					if (info.exists()) {
-						return info.getLastModified();
-					}
-				}
 			}
 		} catch (CoreException e) {
 			// Fall through
@@ -413,7 +630,7 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 			}
 		}
 		if (timestamp != IResource.NULL_STAMP) {
-			fTimestampMapping.put(info, new Long(timestamp));
+			fTimestampMapping.put(info, timestamp);
 		}
 		return info;
 	}
@@ -424,12 +641,7 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 		String handleId= type.getType().getHandleIdentifier();
 		typeElement.setAttribute(NODE_HANDLE, handleId);
 		typeElement.setAttribute(NODE_MODIFIERS, Integer.toString(type.getModifiers()));
-		Long timestamp= fTimestampMapping.get(type);
-		if (timestamp == null) {
-			typeElement.setAttribute(NODE_TIMESTAMP, Long.toString(IResource.NULL_STAMP));
-		} else {
-			typeElement.setAttribute(NODE_TIMESTAMP, timestamp.toString());
-		}
+		typeElement.setAttribute(NODE_TIMESTAMP, Long.toString(fTimestampMapping.get(type)));
 	}
 
 }
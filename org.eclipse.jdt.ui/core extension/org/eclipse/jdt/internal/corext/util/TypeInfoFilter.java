@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -160,6 +160,19 @@ public class TypeInfoFilter {
 		return matchesName(type);
 	}
 
+	/**
+	 * Checks a type reported by the {@link TypeNameIndex}. Like {@link #matchesHistoryElement(TypeNameMatch)},
+	 * but without consulting the filter extension.
+	 *
+	 * @param type the type to check
+	 * @return <code>true</code> if the type matches the pattern, kind and scope of this filter
+	 */
+	public boolean matchesIndexedType(TypeNameMatch type) {
+		if (!(matchesPackage(type) && matchesModifiers(type) && matchesScope(type)))
+			return false;
+		return matchesName(type);
+	}
+
 	public boolean matchesFilterExtension(TypeNameMatch type) {
 		if (fFilterExtension == null)
 			return true;
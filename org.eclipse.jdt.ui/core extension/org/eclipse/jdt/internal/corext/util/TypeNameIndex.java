@@ -0,0 +1,778 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.WorkingCopyOwner;
+import org.eclipse.jdt.core.search.IJavaSearchConstants;
+import org.eclipse.jdt.core.search.SearchEngine;
+import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.core.search.TypeNameMatch;
+import org.eclipse.jdt.core.search.TypeNameMatchRequestor;
+
+import org.eclipse.jdt.internal.corext.CorextMessages;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
+/**
+ * An in-memory index of the names of all types in the workspace scope, used by the Open Type
+ * dialog to answer pattern queries without running the search engine.
+ * <p>
+ * The index consists of an immutable snapshot that is sorted by lower case simple type name,
+ * and an overlay with the types of the containers that have changed since the snapshot
+ * has been built. Changes to source compilation units and source packages are applied
+ * incrementally from Java element deltas, including the reconcile deltas of primary working
+ * copies, so that types that only exist in unsaved editors are found. Changes in binary package
+ * fragment roots are applied per root in the background, the index is unavailable until then.
+ * Classpath changes make the index unavailable until it has been rebuilt in the background.
+ * </p>
+ * <p>
+ * The index is built on first use. Clients must fall back to the search engine if
+ * {@link #search(TypeInfoFilter, TypeNameMatchRequestor, IProgressMonitor)} returns
+ * <code>false</code>.
+ * </p>
+ */
+public class TypeNameIndex {
+
+	/**
+	 * Immutable, sorted view of the indexed types.
+	 */
+	private static final class Snapshot {
+
+		/** The types, sorted by lower case simple name. */
+		final TypeNameMatch[] fMatches;
+		/** The lower case simple names of all types, concatenated in the order of {@link #fMatches}. */
+		final char[] fNames;
+		/** The end offsets of the names in {@link #fNames}, parallel to {@link #fMatches}. */
+		final int[] fNameEnds;
+		/** The distinct paths of the containers (compilation unit, class file or archive). */
+		final IPath[] fContainerPaths;
+		/** The indices of the containers in {@link #fContainerPaths}, parallel to {@link #fMatches}. */
+		final int[] fContainers;
+
+		Snapshot(List<Entry> entries) {
+			Collections.sort(entries, ENTRY_COMPARATOR);
+			int size= entries.size();
+			int length= 0;
+			for (int i= 0; i < size; i++) {
+				length+= entries.get(i).fLowerCaseName.length;
+			}
+			fMatches= new TypeNameMatch[size];
+			fNames= new char[length];
+			fNameEnds= new int[size];
+			fContainers= new int[size];
+			Map<IPath, Integer> containerIndices= new HashMap<>();
+			List<IPath> containerPaths= new ArrayList<>();
+			int end= 0;
+			for (int i= 0; i < size; i++) {
+				Entry entry= entries.get(i);
+				fMatches[i]= entry.fMatch;
+				System.arraycopy(entry.fLowerCaseName, 0, fNames, end, entry.fLowerCaseName.length);
+				end+= entry.fLowerCaseName.length;
+				fNameEnds[i]= end;
+				Integer containerIndex= containerIndices.get(entry.fContainer);
+				if (containerIndex == null) {
+					containerIndex= Integer.valueOf(containerPaths.size());
+					containerIndices.put(entry.fContainer, containerIndex);
+					containerPaths.add(entry.fContainer);
+				}
+				fContainers[i]= containerIndex.intValue();
+			}
+			fContainerPaths= containerPaths.toArray(new IPath[containerPaths.size()]);
+		}
+
+		IPath getContainer(int index) {
+			return fContainerPaths[fContainers[index]];
+		}
+
+		char[] getLowerCaseName(int index) {
+			int start= index == 0 ? 0 : fNameEnds[index - 1];
+			char[] name= new char[fNameEnds[index] - start];
+			System.arraycopy(fNames, start, name, 0, name.length);
+			return name;
+		}
+
+		/**
+		 * @param index the index of the type
+		 * @param lowerCasePrefix the lower case prefix
+		 * @return <code>true</code> if the name of the type starts with the prefix
+		 */
+		boolean startsWith(int index, char[] lowerCasePrefix) {
+			int start= index == 0 ? 0 : fNameEnds[index - 1];
+			if (fNameEnds[index] - start < lowerCasePrefix.length)
+				return false;
+			for (int i= 0; i < lowerCasePrefix.length; i++) {
+				if (fNames[start + i] != lowerCasePrefix[i])
+					return false;
+			}
+			return true;
+		}
+
+		/**
+		 * @param lowerCasePrefix the lower case prefix
+		 * @return the index of the first name that is greater than or equal to the prefix
+		 */
+		int lowerBound(char[] lowerCasePrefix) {
+			int low= 0;
+			int high= fMatches.length;
+			while (low < high) {
+				int mid= (low + high) >>> 1;
+				if (compareName(mid, lowerCasePrefix) < 0)
+					low= mid + 1;
+				else
+					high= mid;
+			}
+			return low;
+		}
+
+		private int compareName(int index, char[] name) {
+			int start= index == 0 ? 0 : fNameEnds[index - 1];
+			int length= fNameEnds[index] - start;
+			int min= Math.min(length, name.length);
+			for (int i= 0; i < min; i++) {
+				char c= fNames[start + i];
+				if (c != name[i])
+					return c - name[i];
+			}
+			return length - name.length;
+		}
+	}
+
+	private static final class Entry {
+
+		final TypeNameMatch fMatch;
+		final char[] fLowerCaseName;
+		final IPath fContainer;
+
+		Entry(TypeNameMatch match, IPath container) {
+			this(match, toLowerCase(match.getSimpleTypeName()), container);
+		}
+
+		Entry(TypeNameMatch match, char[] lowerCaseName, IPath container) {
+			fMatch= match;
+			fLowerCaseName= lowerCaseName;
+			fContainer= container;
+		}
+	}
+
+	private static final Comparator<Entry> ENTRY_COMPARATOR= new Comparator<Entry>() {
+		@Override
+		public int compare(Entry e1, Entry e2) {
+			return TypeNameIndex.compare(e1.fLowerCaseName, e2.fLowerCaseName);
+		}
+	};
+
+	private static final TypeNameMatch[] NO_MATCHES= new TypeNameMatch[0];
+
+	private class DeltaListener implements IElementChangedListener {
+
+		@Override
+		public void elementChanged(ElementChangedEvent event) {
+			IJavaElementDelta delta= event.getDelta();
+			// reconciling a body does not change any type names
+			if (event.getType() == ElementChangedEvent.POST_RECONCILE && !JavaModelUtil.affectsDeclarations(delta))
+				return;
+			processDelta(delta);
+		}
+
+		private void processDelta(IJavaElementDelta delta) {
+			IJavaElement element= delta.getElement();
+			int kind= delta.getKind();
+			int flags= delta.getFlags();
+			switch (element.getElementType()) {
+				case IJavaElement.JAVA_MODEL:
+					processChildren(delta);
+					return;
+				case IJavaElement.JAVA_PROJECT:
+					if (kind != IJavaElementDelta.CHANGED || (flags & (IJavaElementDelta.F_OPENED | IJavaElementDelta.F_CLOSED
+							| IJavaElementDelta.F_CLASSPATH_CHANGED | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED)) != 0) {
+						markForRebuild();
+						return;
+					}
+					processChildren(delta);
+					return;
+				case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+					IPackageFragmentRoot root= (IPackageFragmentRoot) element;
+					if (kind != IJavaElementDelta.CHANGED || (flags & (IJavaElementDelta.F_ADDED_TO_CLASSPATH | IJavaElementDelta.F_REMOVED_FROM_CLASSPATH)) != 0) {
+						markForRebuild();
+						return;
+					}
+					if (isSourceRoot(root)) {
+						processChildren(delta);
+					} else if ((flags & ~(IJavaElementDelta.F_CONTENT | IJavaElementDelta.F_SOURCEATTACHED | IJavaElementDelta.F_SOURCEDETACHED)) != 0) {
+						// F_CONTENT alone: non-Java resources have changed
+						addPendingRoot(root);
+					}
+					return;
+				case IJavaElement.PACKAGE_FRAGMENT:
+					if (kind != IJavaElementDelta.CHANGED) {
+						addPendingUpdate(element);
+						return;
+					}
+					processChildren(delta);
+					return;
+				case IJavaElement.COMPILATION_UNIT:
+					if (JavaModelUtil.isPrimary((ICompilationUnit) element))
+						addPendingUpdate(element);
+					return;
+				case IJavaElement.CLASS_FILE:
+					addPendingRoot((IPackageFragmentRoot) element.getAncestor(IJavaElement.PACKAGE_FRAGMENT_ROOT));
+					return;
+				default:
+					return;
+			}
+		}
+
+		private void processChildren(IJavaElementDelta delta) {
+			IJavaElementDelta[] children= delta.getAffectedChildren();
+			for (int i= 0; i < children.length; i++) {
+				processDelta(children[i]);
+			}
+		}
+
+		private boolean isSourceRoot(IPackageFragmentRoot root) {
+			try {
+				return root.getKind() == IPackageFragmentRoot.K_SOURCE;
+			} catch (JavaModelException e) {
+				return false;
+			}
+		}
+	}
+
+	private class UpdateJob extends Job {
+
+		public UpdateJob() {
+			super(CorextMessages.TypeNameIndex_update_job);
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			try {
+				update(monitor);
+			} catch (OperationCanceledException e) {
+				return Status.CANCEL_STATUS;
+			} catch (JavaModelException e) {
+				JavaPlugin.log(e);
+			}
+			return Status.OK_STATUS;
+		}
+	}
+
+	/**
+	 * Number of changed containers after which the overlay is merged into a new snapshot.
+	 */
+	private static final int COMPACTION_THRESHOLD= 500;
+
+	private static TypeNameIndex fgInstance;
+
+	private final IElementChangedListener fDeltaListener;
+	private final UpdateJob fUpdateJob;
+
+	/**
+	 * Serializes the computation of overlay changes. The types are read without holding the
+	 * lock of the index, and only published under it.
+	 */
+	private final Object fUpdateLock= new Object();
+
+	/** The current snapshot, or <code>null</code> if the index has not been built yet. Guarded by <code>this</code>. */
+	private Snapshot fSnapshot;
+	/** Types of changed containers, replacing the snapshot's types of the same container. Guarded by <code>this</code>. */
+	private final Map<IPath, TypeNameMatch[]> fOverlay= new HashMap<>();
+	/** Compilation units and package fragments whose types have to be re-read. Guarded by <code>this</code>. */
+	private final Set<IJavaElement> fPendingUpdates= new LinkedHashSet<>();
+	/** Binary package fragment roots whose types have to be re-read, by path. Guarded by <code>this</code>. */
+	private final Map<IPath, IPackageFragmentRoot> fPendingRoots= new LinkedHashMap<>();
+	/** Incremented whenever a rebuild starts, changes computed for an older generation are dropped. Guarded by <code>this</code>. */
+	private int fGeneration;
+
+	private volatile boolean fNeedsRebuild;
+	/** <code>true</code> while the snapshot is rebuilt. Guarded by <code>this</code>. */
+	private boolean fBuilding;
+
+	public static synchronized TypeNameIndex getInstance() {
+		if (fgInstance == null)
+			fgInstance= new TypeNameIndex();
+		return fgInstance;
+	}
+
+	public static synchronized void shutdown() {
+		if (fgInstance == null)
+			return;
+		fgInstance.doShutdown();
+		fgInstance= null;
+	}
+
+	private TypeNameIndex() {
+		fNeedsRebuild= true;
+		fDeltaListener= new DeltaListener();
+		JavaCore.addElementChangedListener(fDeltaListener, ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+		fUpdateJob= new UpdateJob();
+		fUpdateJob.setSystem(true);
+		fUpdateJob.setPriority(Job.LONG);
+	}
+
+	/**
+	 * Reports all indexed types that match the given filter. Matches are not checked against
+	 * the filter's {@link TypeInfoFilter#matchesFilterExtension(TypeNameMatch) extension}.
+	 * <p>
+	 * If the index is not up to date, nothing is reported, an update is scheduled and
+	 * <code>false</code> is returned.
+	 * </p>
+	 *
+	 * @param filter the filter
+	 * @param requestor the requestor to report the matches to
+	 * @param monitor the progress monitor
+	 * @return <code>true</code> if the query has been answered by the index
+	 * @throws OperationCanceledException if the monitor has been canceled
+	 */
+	public boolean search(TypeInfoFilter filter, TypeNameMatchRequestor requestor, IProgressMonitor monitor) {
+		String namePattern= filter.getNamePattern();
+		if (namePattern.length() == 0)
+			return false;
+
+		if (!isReady()) {
+			schedule();
+			return false;
+		}
+		try {
+			applyPendingUpdates(false, monitor);
+		} catch (JavaModelException e) {
+			JavaPlugin.log(e);
+			return false;
+		}
+		Snapshot snapshot;
+		Map<IPath, TypeNameMatch[]> overlay;
+		synchronized (this) {
+			if (!isReady())
+				return false;
+			snapshot= fSnapshot;
+			overlay= fOverlay.isEmpty() ? Collections.<IPath, TypeNameMatch[]>emptyMap() : new HashMap<>(fOverlay);
+		}
+
+		char[] prefix= toLowerCase(getLiteralPrefix(namePattern, filter.getSearchFlags()));
+		int count= snapshot.fMatches.length;
+		for (int i= snapshot.lowerBound(prefix); i < count; i++) {
+			if (!snapshot.startsWith(i, prefix))
+				break;
+			if ((i & 0x3ff) == 0 && monitor != null && monitor.isCanceled())
+				throw new OperationCanceledException();
+			if (!overlay.isEmpty() && overlay.containsKey(snapshot.getContainer(i)))
+				continue;
+			TypeNameMatch match= snapshot.fMatches[i];
+			if (filter.matchesIndexedType(match))
+				requestor.acceptTypeNameMatch(match);
+		}
+		for (Iterator<TypeNameMatch[]> iter= overlay.values().iterator(); iter.hasNext();) {
+			TypeNameMatch[] matches= iter.next();
+			for (int i= 0; i < matches.length; i++) {
+				TypeNameMatch match= matches[i];
+				if (startsWith(toLowerCase(match.getSimpleTypeName()), prefix) && filter.matchesIndexedType(match))
+					requestor.acceptTypeNameMatch(match);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return <code>true</code> if queries can currently be answered by the index
+	 */
+	public synchronized boolean isReady() {
+		return !fNeedsRebuild && !fBuilding && fSnapshot != null && fPendingRoots.isEmpty();
+	}
+
+	/**
+	 * Schedules building the index if it is not up to date.
+	 */
+	public void schedule() {
+		if (fNeedsRebuild || hasPendingUpdates())
+			fUpdateJob.schedule();
+	}
+
+	/**
+	 * Brings the index up to date in the calling thread: rebuilds it if needed, applies all pending
+	 * changes and compacts the overlay once it has grown too large.
+	 *
+	 * @param monitor the progress monitor, can be <code>null</code>
+	 * @throws JavaModelException if the types cannot be read
+	 * @throws OperationCanceledException if the monitor has been canceled
+	 */
+	public void update(IProgressMonitor monitor) throws JavaModelException {
+		if (fNeedsRebuild)
+			rebuild(monitor);
+		applyPendingUpdates(true, monitor);
+		synchronized (this) {
+			if (fOverlay.size() < COMPACTION_THRESHOLD)
+				return;
+		}
+		compact();
+	}
+
+	/**
+	 * Merges the overlay into a new snapshot.
+	 */
+	public void compact() {
+		synchronized (fUpdateLock) {
+			Snapshot snapshot;
+			Map<IPath, TypeNameMatch[]> overlay;
+			int generation;
+			synchronized (this) {
+				if (fSnapshot == null || fOverlay.isEmpty())
+					return;
+				snapshot= fSnapshot;
+				overlay= new HashMap<>(fOverlay);
+				generation= fGeneration;
+			}
+
+			List<Entry> entries= new ArrayList<>(snapshot.fMatches.length);
+			for (int i= 0; i < snapshot.fMatches.length; i++) {
+				IPath container= snapshot.getContainer(i);
+				if (!overlay.containsKey(container))
+					entries.add(new Entry(snapshot.fMatches[i], snapshot.getLowerCaseName(i), container));
+			}
+			for (Iterator<Map.Entry<IPath, TypeNameMatch[]>> iter= overlay.entrySet().iterator(); iter.hasNext();) {
+				Map.Entry<IPath, TypeNameMatch[]> overlayEntry= iter.next();
+				TypeNameMatch[] matches= overlayEntry.getValue();
+				for (int i= 0; i < matches.length; i++) {
+					entries.add(new Entry(matches[i], overlayEntry.getKey()));
+				}
+			}
+			Snapshot compacted= new Snapshot(entries);
+
+			synchronized (this) {
+				// the overlay is only changed by a rebuild while the update lock is held
+				if (generation != fGeneration)
+					return;
+				fSnapshot= compacted;
+				fOverlay.clear();
+			}
+		}
+	}
+
+	/**
+	 * @return the number of containers whose types are kept in the overlay
+	 */
+	public synchronized int getChangedContainerCount() {
+		return fOverlay.size();
+	}
+
+	private synchronized boolean hasPendingUpdates() {
+		return !fPendingUpdates.isEmpty() || !fPendingRoots.isEmpty();
+	}
+
+	void markForRebuild() {
+		fNeedsRebuild= true;
+		synchronized (this) {
+			if (fSnapshot == null)
+				return; // built on first use
+		}
+		fUpdateJob.schedule(500);
+	}
+
+	synchronized void addPendingUpdate(IJavaElement element) {
+		fPendingUpdates.add(element);
+		if (fSnapshot != null)
+			fUpdateJob.schedule(500);
+	}
+
+	synchronized void addPendingRoot(IPackageFragmentRoot root) {
+		fPendingRoots.put(root.getPath(), root);
+		if (fSnapshot != null)
+			fUpdateJob.schedule(500);
+	}
+
+	private void rebuild(IProgressMonitor monitor) throws JavaModelException {
+		int generation;
+		synchronized (this) {
+			fNeedsRebuild= false;
+			fBuilding= true;
+			generation= ++fGeneration;
+			fPendingUpdates.clear();
+			fPendingRoots.clear();
+			fOverlay.clear();
+		}
+		final List<Entry> entries= new ArrayList<>();
+		TypeNameMatchRequestor requestor= new TypeNameMatchRequestor() {
+			@Override
+			public void acceptTypeNameMatch(TypeNameMatch match) {
+				entries.add(new Entry(match, match.getType().getPath()));
+			}
+		};
+		try {
+			new SearchEngine((WorkingCopyOwner) null).searchAllTypeNames(null, SearchPattern.R_PATTERN_MATCH, null, SearchPattern.R_PATTERN_MATCH,
+					IJavaSearchConstants.TYPE, SearchEngine.createWorkspaceScope(), requestor, IJavaSearchConstants.WAIT_UNTIL_READY_TO_SEARCH, monitor);
+		} catch (OperationCanceledException e) {
+			buildFailed(generation);
+			throw e;
+		} catch (JavaModelException e) {
+			buildFailed(generation);
+			throw e;
+		}
+		Snapshot snapshot= new Snapshot(entries);
+		synchronized (this) {
+			// a newer rebuild has started in the meantime
+			if (generation != fGeneration)
+				return;
+			fSnapshot= snapshot;
+			fBuilding= false;
+		}
+	}
+
+	private synchronized void buildFailed(int generation) {
+		if (generation != fGeneration)
+			return;
+		fNeedsRebuild= true;
+		fBuilding= false;
+	}
+
+	/**
+	 * Reads the types of the pending elements and publishes them in the overlay. The types are
+	 * read without holding the lock of the index, so that queries and delta notifications are
+	 * not blocked.
+	 *
+	 * @param includeRoots whether to update the pending binary roots, which can take long
+	 * @param monitor the progress monitor, can be <code>null</code>
+	 * @throws JavaModelException if the types cannot be read
+	 */
+	private void applyPendingUpdates(boolean includeRoots, IProgressMonitor monitor) throws JavaModelException {
+		synchronized (fUpdateLock) {
+			IJavaElement[] elements;
+			IPackageFragmentRoot[] roots;
+			Snapshot snapshot;
+			Set<IPath> changedContainers;
+			int generation;
+			synchronized (this) {
+				if (fSnapshot == null || fPendingUpdates.isEmpty() && (!includeRoots || fPendingRoots.isEmpty()))
+					return;
+				elements= fPendingUpdates.toArray(new IJavaElement[fPendingUpdates.size()]);
+				fPendingUpdates.clear();
+				if (includeRoots) {
+					roots= fPendingRoots.values().toArray(new IPackageFragmentRoot[fPendingRoots.size()]);
+				} else {
+					roots= new IPackageFragmentRoot[0];
+				}
+				snapshot= fSnapshot;
+				changedContainers= new HashSet<>(fOverlay.keySet());
+				generation= fGeneration;
+			}
+
+			Map<IPath, TypeNameMatch[]> changes= new LinkedHashMap<>();
+			try {
+				for (int i= 0; i < elements.length; i++) {
+					IJavaElement element= elements[i];
+					if (element instanceof ICompilationUnit) {
+						updateCompilationUnit((ICompilationUnit) element, changes);
+					} else if (element instanceof IPackageFragment) {
+						updatePackageFragment((IPackageFragment) element, snapshot, changedContainers, changes);
+					}
+				}
+				for (int i= 0; i < roots.length; i++) {
+					updateBinaryRoot(roots[i], snapshot, changedContainers, changes, monitor);
+				}
+			} catch (JavaModelException e) {
+				markForRebuild();
+				throw e;
+			} catch (OperationCanceledException e) {
+				// the roots are still pending
+				synchronized (this) {
+					if (generation == fGeneration)
+						fPendingUpdates.addAll(Arrays.asList(elements));
+				}
+				throw e;
+			}
+
+			synchronized (this) {
+				// a rebuild has started in the meantime
+				if (generation != fGeneration)
+					return;
+				fOverlay.putAll(changes);
+				for (int i= 0; i < roots.length; i++) {
+					// the root may have changed again while it was read
+					if (fPendingRoots.get(roots[i].getPath()) == roots[i])
+						fPendingRoots.remove(roots[i].getPath());
+				}
+			}
+		}
+	}
+
+	private static void updateCompilationUnit(ICompilationUnit cu, Map<IPath, TypeNameMatch[]> changes) throws JavaModelException {
+		TypeNameMatch[] matches;
+		if (cu.exists()) {
+			IType[] types= cu.getAllTypes();
+			matches= new TypeNameMatch[types.length];
+			for (int i= 0; i < types.length; i++) {
+				matches[i]= SearchEngine.createTypeNameMatch(types[i], types[i].getFlags());
+			}
+		} else {
+			matches= NO_MATCHES;
+		}
+		changes.put(cu.getPath(), matches);
+	}
+
+	private static void updatePackageFragment(IPackageFragment fragment, Snapshot snapshot, Set<IPath> changedContainers, Map<IPath, TypeNameMatch[]> changes) throws JavaModelException {
+		IPath folder= fragment.getPath();
+		List<IPath> removed= new ArrayList<>();
+		collectContainers(Arrays.asList(snapshot.fContainerPaths), folder, false, removed);
+		collectContainers(changedContainers, folder, false, removed);
+		collectContainers(changes.keySet(), folder, false, removed);
+		for (Iterator<IPath> iter= removed.iterator(); iter.hasNext();) {
+			changes.put(iter.next(), NO_MATCHES);
+		}
+		if (fragment.exists()) {
+			ICompilationUnit[] cus= fragment.getCompilationUnits();
+			for (int i= 0; i < cus.length; i++) {
+				updateCompilationUnit(cus[i], changes);
+			}
+		}
+	}
+
+	private static void updateBinaryRoot(IPackageFragmentRoot root, Snapshot snapshot, Set<IPath> changedContainers, Map<IPath, TypeNameMatch[]> changes, IProgressMonitor monitor) throws JavaModelException {
+		IPath rootPath= root.getPath();
+		List<IPath> removed= new ArrayList<>();
+		collectContainers(Arrays.asList(snapshot.fContainerPaths), rootPath, true, removed);
+		collectContainers(changedContainers, rootPath, true, removed);
+		collectContainers(changes.keySet(), rootPath, true, removed);
+		for (Iterator<IPath> iter= removed.iterator(); iter.hasNext();) {
+			changes.put(iter.next(), NO_MATCHES);
+		}
+		if (!root.exists())
+			return;
+
+		final Map<IPath, List<TypeNameMatch>> matchesByContainer= new LinkedHashMap<>();
+		TypeNameMatchRequestor requestor= new TypeNameMatchRequestor() {
+			@Override
+			public void acceptTypeNameMatch(TypeNameMatch match) {
+				IPath container= match.getType().getPath();
+				List<TypeNameMatch> matches= matchesByContainer.get(container);
+				if (matches == null) {
+					matches= new ArrayList<>();
+					matchesByContainer.put(container, matches);
+				}
+				matches.add(match);
+			}
+		};
+		new SearchEngine((WorkingCopyOwner) null).searchAllTypeNames(null, SearchPattern.R_PATTERN_MATCH, null, SearchPattern.R_PATTERN_MATCH,
+				IJavaSearchConstants.TYPE, SearchEngine.createJavaSearchScope(new IJavaElement[] { root }), requestor, IJavaSearchConstants.WAIT_UNTIL_READY_TO_SEARCH, monitor);
+		for (Iterator<Map.Entry<IPath, List<TypeNameMatch>>> iter= matchesByContainer.entrySet().iterator(); iter.hasNext();) {
+			Map.Entry<IPath, List<TypeNameMatch>> entry= iter.next();
+			List<TypeNameMatch> matches= entry.getValue();
+			changes.put(entry.getKey(), matches.toArray(new TypeNameMatch[matches.size()]));
+		}
+	}
+
+	/**
+	 * Collects the containers that belong to the given folder.
+	 *
+	 * @param containers the containers to search
+	 * @param folder the path of a package fragment or a binary package fragment root
+	 * @param binaryRoot <code>true</code> to collect the class files and archives in or below the
+	 *            folder, <code>false</code> to collect the containers directly in the folder
+	 * @param result the list to add the containers to
+	 */
+	private static void collectContainers(Iterable<IPath> containers, IPath folder, boolean binaryRoot, List<IPath> result) {
+		for (Iterator<IPath> iter= containers.iterator(); iter.hasNext();) {
+			IPath container= iter.next();
+			if (!folder.isPrefixOf(container))
+				continue;
+			if (binaryRoot ? !"java".equals(container.getFileExtension()) : container.segmentCount() == folder.segmentCount() + 1) //$NON-NLS-1$
+				result.add(container);
+		}
+	}
+
+	private void doShutdown() {
+		JavaCore.removeElementChangedListener(fDeltaListener);
+		fUpdateJob.cancel();
+	}
+
+	/**
+	 * Returns the part of the name pattern that every matching name starts with (ignoring case).
+	 *
+	 * @param pattern the name pattern
+	 * @param matchKind the match kind of the pattern
+	 * @return the prefix, possibly empty
+	 */
+	static String getLiteralPrefix(String pattern, int matchKind) {
+		switch (matchKind) {
+			case SearchPattern.R_PATTERN_MATCH:
+				int end= 0;
+				while (end < pattern.length() && pattern.charAt(end) != '*' && pattern.charAt(end) != '?')
+					end++;
+				return pattern.substring(0, end);
+			case SearchPattern.R_CAMELCASE_MATCH:
+			case SearchPattern.R_CAMELCASE_SAME_PART_COUNT_MATCH:
+				return pattern.substring(0, 1);
+			default:
+				return pattern;
+		}
+	}
+
+	private static char[] toLowerCase(String name) {
+		char[] result= new char[name.length()];
+		for (int i= 0; i < result.length; i++) {
+			result[i]= Character.toLowerCase(name.charAt(i));
+		}
+		return result;
+	}
+
+	private static boolean startsWith(char[] name, char[] prefix) {
+		if (name.length < prefix.length)
+			return false;
+		for (int i= 0; i < prefix.length; i++) {
+			if (name[i] != prefix[i])
+				return false;
+		}
+		return true;
+	}
+
+	static int compare(char[] c1, char[] c2) {
+		int length= Math.min(c1.length, c2.length);
+		for (int i= 0; i < length; i++) {
+			if (c1[i] != c2[i])
+				return c1[i] - c2[i];
+		}
+		return c1.length - c2.length;
+	}
+
+	// for debugging
+	@Override
+	public synchronized String toString() {
+		int size= fSnapshot == null ? 0 : fSnapshot.fMatches.length;
+		return "TypeNameIndex: " + size + " types, " + fOverlay.size() + " changed containers, rebuild needed: " + fNeedsRebuild; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -15,13 +15,16 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
 
 import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IStorage;
 
 import org.eclipse.core.filebuffers.FileBuffers;
@@ -71,6 +74,35 @@ import org.eclipse.jdt.internal.ui.JavaPlugin;
 
 public class NLSHintHelper {
 
+	private static final int MAX_CACHED_PROPERTIES= 20;
+
+	/**
+	 * Properties read from a file, valid as long as the file has the same modification stamp.
+	 */
+	private static final class CachedProperties {
+
+		final long fModificationStamp;
+		final Properties fProperties;
+
+		CachedProperties(long modificationStamp, Properties properties) {
+			fModificationStamp= modificationStamp;
+			fProperties= properties;
+		}
+	}
+
+	/**
+	 * The properties read from files that are not open in a file buffer, by full path. Hovers read
+	 * the same bundles over and over again. Guarded by <code>fgProperties</code>.
+	 */
+	private static final Map<IPath, CachedProperties> fgProperties= new LinkedHashMap<IPath, CachedProperties>(16, 0.75f, true) {
+		private static final long serialVersionUID= 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<IPath, CachedProperties> eldest) {
+			return size() > MAX_CACHED_PROPERTIES;
+		}
+	};
+
 	private NLSHintHelper() {
 	}
 
@@ -446,6 +478,7 @@ public class NLSHintHelper {
 
 		Properties props= new Properties();
 		InputStream is= null;
+		long modificationStamp= IResource.NULL_STAMP;
 
 		ITextFileBufferManager manager= FileBuffers.getTextFileBufferManager();
 		try {
@@ -458,11 +491,28 @@ public class NLSHintHelper {
 			}
 
 			// Fallback: read from storage
-			if (is == null)
+			if (is == null) {
+				if (storage instanceof IFile) {
+					modificationStamp= ((IFile) storage).getModificationStamp();
+					if (modificationStamp != IResource.NULL_STAMP) {
+						synchronized (fgProperties) {
+							CachedProperties cached= fgProperties.get(storage.getFullPath());
+							if (cached != null && cached.fModificationStamp == modificationStamp)
+								return (Properties) cached.fProperties.clone();
+						}
+					}
+				}
 				is= storage.getContents();
+			}
 
 			props.load(is);
 
+			if (modificationStamp != IResource.NULL_STAMP) {
+				synchronized (fgProperties) {
+					fgProperties.put(storage.getFullPath(), new CachedProperties(modificationStamp, (Properties) props.clone()));
+				}
+			}
+
 		} catch (IOException e) {
 			// sorry no properties
 			return null;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -67,9 +67,6 @@ public class RefactoringScanner {
 
 	public void scan(ICompilationUnit cu)	throws JavaModelException {
 		char[] chars= cu.getBuffer().getCharacters();
-		fMatches= new HashSet<>();
-		fScanner= ToolFactory.createScanner(true, true, false, true);
-		fScanner.setSource(chars);
 
 //		IImportContainer importContainer= cu.getImportContainer();
 //		if (importContainer.exists())
@@ -77,8 +74,7 @@ public class RefactoringScanner {
 //		else
 //			fNoFlyZone= null;
 
-		doScan();
-		fScanner= null;
+		scan(chars);
 	}
 
 	/**
@@ -90,12 +86,56 @@ public class RefactoringScanner {
 	 * @param text the text
 	 */
 	public void scan(String text) {
-		char[] chars= text.toCharArray();
+		scan(text.toCharArray());
+	}
+
+	/**
+	 * Scans the comments and string literals of the given source for textual matches.
+	 * <p>
+	 * The underlying {@link IScanner} is created lazily and reused for subsequent calls,
+	 * so a single instance must not be used by several threads at the same time. Sources
+	 * that do not contain the name at all are not tokenized.
+	 * </p>
+	 * 
+	 * @param chars the source to scan
+	 */
+	public void scan(char[] chars) {
 		fMatches= new HashSet<>();
-		fScanner= ToolFactory.createScanner(true, true, false, true);
+		if (chars == null || indexOf(chars, fName, 0) == -1)
+			return;
+
+		if (fScanner == null)
+			fScanner= ToolFactory.createScanner(true, true, false, true);
 		fScanner.setSource(chars);
 		doScan();
-		fScanner= null;
+		fScanner.setSource(null);
+	}
+
+	/**
+	 * Finds the first occurrence of <code>pattern</code> in <code>chars</code>. This is used as
+	 * a cheap pre-filter before the source gets tokenized.
+	 * 
+	 * @param chars the characters to search
+	 * @param pattern the pattern to find
+	 * @param from the start index
+	 * @return the index of the first occurrence, or <code>-1</code> if none
+	 */
+	static int indexOf(char[] chars, String pattern, int from) {
+		int patternLength= pattern.length();
+		if (patternLength == 0)
+			return from <= chars.length ? from : -1;
+		char first= pattern.charAt(0);
+		int last= chars.length - patternLength;
+		for (int i= from; i <= last; i++) {
+			if (chars[i] != first)
+				continue;
+			int j= 1;
+			while (j < patternLength && chars[i + j] == pattern.charAt(j))
+				j++;
+			if (j == patternLength)
+				return i;
+		}
+		return -1;
 	}
 
 	private void doScan() {
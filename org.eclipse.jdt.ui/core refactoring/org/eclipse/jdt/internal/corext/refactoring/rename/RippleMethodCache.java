@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.refactoring.rename;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.ITypeHierarchy;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.search.SearchMatch;
+
+import org.eclipse.jdt.internal.corext.util.JavaModelUtil;
+
+/**
+ * Caches the ripple methods computed by {@link RippleMethodFinder2} and the type hierarchies of
+ * the types involved, so that renaming or changing the signature of the same method again does
+ * not search the workspace again.
+ * <p>
+ * Only computations on primary working copies are cached. The cache is cleared by every Java
+ * element delta, except for changes inside the bodies of methods, fields and initializers, which
+ * cannot change the overriding relationships.
+ * </p>
+ *
+ * @since 3.13
+ */
+public class RippleMethodCache {
+
+	/** Binary declarations are excluded from the ripple methods. */
+	static final int EXCLUDE_BINARIES= 0;
+	/** Binary declarations are included in the ripple methods. */
+	static final int INCLUDE_BINARIES= 1;
+	/** Binary declarations are reported as binary references. */
+	static final int BINARY_REFERENCES= 2;
+
+	private static final int MAX_ENTRIES= 50;
+	private static final int MAX_HIERARCHIES= 20;
+
+	/**
+	 * The ripple methods of a method.
+	 */
+	static final class Entry {
+
+		final IMethod[] fMethods;
+		/** The matches of the binary declarations in {@link #BINARY_REFERENCES} mode. */
+		final SearchMatch[] fBinaryMatches;
+
+		Entry(IMethod[] methods, SearchMatch[] binaryMatches) {
+			fMethods= methods;
+			fBinaryMatches= binaryMatches;
+		}
+	}
+
+	private class DeltaListener implements IElementChangedListener {
+
+		@Override
+		public void elementChanged(ElementChangedEvent event) {
+			if (JavaModelUtil.affectsDeclarations(event.getDelta()))
+				clear();
+		}
+	}
+
+	private static RippleMethodCache fgInstance;
+
+	private final IElementChangedListener fDeltaListener;
+
+	/** The ripple methods by method handle and mode. Guarded by <code>this</code>. */
+	private final Map<String, Entry> fEntries= new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+		private static final long serialVersionUID= 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+
+	/** The type hierarchies by focus type. Guarded by <code>this</code>. */
+	private final Map<IType, ITypeHierarchy> fHierarchies= new LinkedHashMap<IType, ITypeHierarchy>(16, 0.75f, true) {
+		private static final long serialVersionUID= 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<IType, ITypeHierarchy> eldest) {
+			return size() > MAX_HIERARCHIES;
+		}
+	};
+
+	/** Incremented whenever the cache is cleared. Guarded by <code>this</code>. */
+	private int fGeneration;
+
+	public static synchronized RippleMethodCache getInstance() {
+		if (fgInstance == null)
+			fgInstance= new RippleMethodCache();
+		return fgInstance;
+	}
+
+	public static synchronized void shutdown() {
+		if (fgInstance == null)
+			return;
+		JavaCore.removeElementChangedListener(fgInstance.fDeltaListener);
+		fgInstance.clear();
+		fgInstance= null;
+	}
+
+	private RippleMethodCache() {
+		fDeltaListener= new DeltaListener();
+		JavaCore.addElementChangedListener(fDeltaListener, ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+	}
+
+	/**
+	 * Returns the generation of the cache. Results computed while the generation changes must not
+	 * be stored.
+	 *
+	 * @return the generation
+	 */
+	synchronized int getGeneration() {
+		return fGeneration;
+	}
+
+	synchronized Entry get(IMethod method, int mode) {
+		return fEntries.get(getKey(method, mode));
+	}
+
+	synchronized void put(IMethod method, int mode, Entry entry, int generation) {
+		if (generation == fGeneration)
+			fEntries.put(getKey(method, mode), entry);
+	}
+
+	synchronized ITypeHierarchy getHierarchy(IType type) {
+		return fHierarchies.get(type);
+	}
+
+	synchronized void putHierarchy(IType type, ITypeHierarchy hierarchy, int generation) {
+		if (generation == fGeneration)
+			fHierarchies.put(type, hierarchy);
+	}
+
+	synchronized void clear() {
+		fGeneration++;
+		fEntries.clear();
+		fHierarchies.clear();
+	}
+
+	private static String getKey(IMethod method, int mode) {
+		return method.getHandleIdentifier() + '#' + mode;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -62,6 +62,11 @@ public class RippleMethodFinder2 {
 	private final ReferencesInBinaryContext fBinaryRefs;
 	private Map<IMethod, SearchMatch> fDeclarationToMatch;
 
+	/** The cache, or <code>null</code> if the results must not be cached. */
+	private RippleMethodCache fCache;
+	/** The generation of the cache when the computation started. */
+	private int fCacheGeneration;
+
 	private static class MultiMap<K, V> {
 		HashMap<K, Collection<V>> fImplementation= new HashMap<>();
 
@@ -165,20 +170,50 @@ public class RippleMethodFinder2 {
 	}
 
 	private IMethod[] getAllRippleMethods(IProgressMonitor pm, WorkingCopyOwner owner) throws CoreException {
+		int mode;
+		if (fBinaryRefs != null)
+			mode= RippleMethodCache.BINARY_REFERENCES;
+		else
+			mode= fExcludeBinaries ? RippleMethodCache.EXCLUDE_BINARIES : RippleMethodCache.INCLUDE_BINARIES;
+
+		// only the primary working copies are tracked by the cache
+		if (owner == null) {
+			fCache= RippleMethodCache.getInstance();
+			fCacheGeneration= fCache.getGeneration();
+			RippleMethodCache.Entry entry= fCache.get(fMethod, mode);
+			if (entry != null) {
+				pm.beginTask("", 1); //$NON-NLS-1$
+				if (fBinaryRefs != null) {
+					for (int i= 0; i < entry.fBinaryMatches.length; i++)
+						fBinaryRefs.add(entry.fBinaryMatches[i]);
+				}
+				return entry.fMethods.clone();
+			}
+		}
+
 		IMethod[] rippleMethods= findAllRippleMethods(pm, owner);
-		if (fDeclarationToMatch == null)
+		if (fDeclarationToMatch == null) {
+			if (fCache != null)
+				fCache.put(fMethod, mode, new RippleMethodCache.Entry(rippleMethods.clone(), new SearchMatch[0]), fCacheGeneration);
 			return rippleMethods;
+		}
 
 		List<IMethod> rippleMethodsList= new ArrayList<>(Arrays.asList(rippleMethods));
+		List<SearchMatch> binaryMatches= new ArrayList<>();
 		for (Iterator<IMethod> iter= rippleMethodsList.iterator(); iter.hasNext(); ) {
-			Object match= fDeclarationToMatch.get(iter.next());
+			SearchMatch match= fDeclarationToMatch.get(iter.next());
 			if (match != null) {
 				iter.remove();
-				fBinaryRefs.add((SearchMatch) match);
+				binaryMatches.add(match);
+				if (fBinaryRefs != null)
+					fBinaryRefs.add(match);
 			}
 		}
 		fDeclarationToMatch= null;
-		return rippleMethodsList.toArray(new IMethod[rippleMethodsList.size()]);
+		IMethod[] result= rippleMethodsList.toArray(new IMethod[rippleMethodsList.size()]);
+		if (fCache != null)
+			fCache.put(fMethod, mode, new RippleMethodCache.Entry(result.clone(), binaryMatches.toArray(new SearchMatch[binaryMatches.size()])), fCacheGeneration);
+		return result;
 	}
 
 	private IMethod[] findAllRippleMethods(IProgressMonitor pm, WorkingCopyOwner owner) throws CoreException {
@@ -258,7 +293,7 @@ public class RippleMethodFinder2 {
 				IType relatedType= iter.next();
 				ITypeHierarchy hierarchy= getCachedHierarchy(relatedType, owner, new SubProgressMonitor(pm, 1));
 				if (hierarchy == null)
-					hierarchy= relatedType.newTypeHierarchy(owner, new SubProgressMonitor(pm, 1));
+					hierarchy= newTypeHierarchy(relatedType, owner, new SubProgressMonitor(pm, 1));
 				IType[] allSubTypes= hierarchy.getAllSubtypes(relatedType);
 				for (int i= 0; i < allSubTypes.length; i++)
 					relatedSubTypes.add(allSubTypes[i]);
@@ -273,7 +308,7 @@ public class RippleMethodFinder2 {
 				IMethod alienMethod= fTypeToMethod.get(alienType);
 				ITypeHierarchy hierarchy= getCachedHierarchy(alienType, owner, new SubProgressMonitor(pm, 1));
 				if (hierarchy == null)
-					hierarchy= alienType.newTypeHierarchy(owner, new SubProgressMonitor(pm, 1));
+					hierarchy= newTypeHierarchy(alienType, owner, new SubProgressMonitor(pm, 1));
 				IType[] allSubtypes= hierarchy.getAllSubtypes(alienType);
 				for (int i= 0; i < allSubtypes.length; i++) {
 					IType subtype= allSubtypes[i];
@@ -318,7 +353,7 @@ public class RippleMethodFinder2 {
 				IType root= iter.next();
 				ITypeHierarchy hierarchy= fRootHierarchies.get(root);
 				if (hierarchy == null) {
-					hierarchy= root.newTypeHierarchy(owner, new SubProgressMonitor(monitor, 1));
+					hierarchy= newTypeHierarchy(root, owner, new SubProgressMonitor(monitor, 1));
 					fRootHierarchies.put(root, hierarchy);
 				}
 				if (hierarchy.contains(type))
@@ -328,6 +363,20 @@ public class RippleMethodFinder2 {
 		return null;
 	}
 
+	private ITypeHierarchy newTypeHierarchy(IType type, WorkingCopyOwner owner, IProgressMonitor monitor) throws JavaModelException {
+		if (fCache == null)
+			return type.newTypeHierarchy(owner, monitor);
+
+		ITypeHierarchy hierarchy= fCache.getHierarchy(type);
+		if (hierarchy == null) {
+			hierarchy= type.newTypeHierarchy(owner, monitor);
+			fCache.putHierarchy(type, hierarchy, fCacheGeneration);
+		} else {
+			monitor.done();
+		}
+		return hierarchy;
+	}
+
 	private void findAllDeclarations(IProgressMonitor monitor, WorkingCopyOwner owner) throws CoreException {
 		fDeclarations= new ArrayList<>();
 
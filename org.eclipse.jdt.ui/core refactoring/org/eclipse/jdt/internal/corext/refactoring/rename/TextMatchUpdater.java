@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,7 +14,18 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
@@ -58,12 +69,22 @@ class TextMatchUpdater {
 			RefactoringCoreMessages.TextMatchUpdater_textualMatches_name,
 			RefactoringCoreMessages.TextMatchUpdater_textualMatches_description));
 
+	/**
+	 * Minimal number of compilation units for which the comments and strings are scanned
+	 * concurrently. Smaller sets are scanned in the calling thread.
+	 */
+	private static final int PARALLEL_SCAN_THRESHOLD= 50;
+
+	private static final int MAX_SCANNER_THREADS= 8;
+
 	private final IJavaSearchScope fScope;
 	private final TextChangeManager fManager;
 	private final SearchResultGroup[] fReferences;
 	private final boolean fOnlyQualified;
 
 	private final RefactoringScanner fScanner;
+	private final String fCurrentName;
+	private final String fCurrentQualifier;
 	private final String fNewName;
 	private final int fCurrentNameLength;
 
@@ -76,6 +97,8 @@ class TextMatchUpdater {
 		fReferences= references;
 		fOnlyQualified= onlyQualified;
 
+		fCurrentName= currentName;
+		fCurrentQualifier= currentQualifier;
 		fNewName= newName;
 		fCurrentNameLength= currentName.length();
 		fScanner= new RefactoringScanner(currentName, currentQualifier);
@@ -93,13 +116,20 @@ class TextMatchUpdater {
 		try{
 			IProject[] projectsInScope= getProjectsInScope();
 
-			pm.beginTask("", projectsInScope.length); //$NON-NLS-1$
+			pm.beginTask("", 2 * projectsInScope.length); //$NON-NLS-1$
 
+			List<ICompilationUnit> cus= new ArrayList<>();
 			for (int i =0 ; i < projectsInScope.length; i++){
 				if (pm.isCanceled())
 					throw new OperationCanceledException();
-				addTextMatches(projectsInScope[i], new SubProgressMonitor(pm, 1));
+				collectCompilationUnits(projectsInScope[i], cus, new SubProgressMonitor(pm, 1));
 			}
+
+			IProgressMonitor scanMonitor= new SubProgressMonitor(pm, projectsInScope.length);
+			if (cus.size() >= PARALLEL_SCAN_THRESHOLD && getScannerThreadCount() > 1)
+				scanInParallel(cus, scanMonitor);
+			else
+				scanSequentially(cus, scanMonitor);
 		} finally{
 			pm.done();
 		}
@@ -120,7 +150,7 @@ class TextMatchUpdater {
 		return projectsInScope.toArray(new IProject[projectsInScope.size()]);
 	}
 
-	private void addTextMatches(IResource resource, IProgressMonitor pm) throws JavaModelException{
+	private void collectCompilationUnits(IResource resource, List<ICompilationUnit> cus, IProgressMonitor pm) throws JavaModelException{
 		try{
 			String task= RefactoringCoreMessages.TextMatchUpdater_searching + resource.getFullPath();
 			if (resource instanceof IFile){
@@ -132,7 +162,7 @@ class TextMatchUpdater {
 					return;
 				if (! fScope.encloses(element))
 					return;
-				addCuTextMatches((ICompilationUnit) element);
+				cus.add((ICompilationUnit) element);
 
 			} else if (resource instanceof IContainer){
 				IResource[] members= ((IContainer) resource).members();
@@ -142,7 +172,7 @@ class TextMatchUpdater {
 					if (pm.isCanceled())
 						throw new OperationCanceledException();
 
-					addTextMatches(members[i], new SubProgressMonitor(pm, 1));
+					collectCompilationUnits(members[i], cus, new SubProgressMonitor(pm, 1));
 				}
 			}
 		} catch (JavaModelException e){
@@ -154,9 +184,116 @@ class TextMatchUpdater {
 		}
 	}
 
-	private void addCuTextMatches(ICompilationUnit cu) throws JavaModelException{
-		fScanner.scan(cu);
-		Set<TextMatch> matches= fScanner.getMatches(); //Set of TextMatch
+	private void scanSequentially(List<ICompilationUnit> cus, IProgressMonitor pm) throws JavaModelException {
+		try {
+			pm.beginTask("", cus.size()); //$NON-NLS-1$
+			for (Iterator<ICompilationUnit> iter= cus.iterator(); iter.hasNext();) {
+				if (pm.isCanceled())
+					throw new OperationCanceledException();
+				ICompilationUnit cu= iter.next();
+				fScanner.scan(cu);
+				addCuTextMatches(cu, fScanner.getMatches());
+				pm.worked(1);
+			}
+		} finally {
+			pm.done();
+		}
+	}
+
+	/**
+	 * Scans the given compilation units with a pool of worker threads. Every worker owns
+	 * its own {@link RefactoringScanner}, which is reused for all units the worker takes
+	 * from the shared queue. The text edits are created afterwards in the calling thread,
+	 * since the {@link TextChangeManager} is not thread safe.
+	 *
+	 * @param cus the compilation units to scan
+	 * @param pm the progress monitor
+	 * @throws JavaModelException if a compilation unit could not be read
+	 */
+	private void scanInParallel(final List<ICompilationUnit> cus, IProgressMonitor pm) throws JavaModelException {
+		final int count= cus.size();
+		final Object[] results= new Object[count];
+		final AtomicInteger next= new AtomicInteger();
+		final AtomicInteger scanned= new AtomicInteger();
+		final AtomicBoolean canceled= new AtomicBoolean();
+
+		int threadCount= getScannerThreadCount();
+		ExecutorService executor= Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread= new Thread(runnable, "Text match scanner"); //$NON-NLS-1$
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		try {
+			pm.beginTask("", count); //$NON-NLS-1$
+			List<Future<Void>> futures= new ArrayList<>(threadCount);
+			for (int t= 0; t < threadCount; t++) {
+				futures.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws JavaModelException {
+						RefactoringScanner scanner= new RefactoringScanner(fCurrentName, fCurrentQualifier);
+						int index;
+						while (!canceled.get() && (index= next.getAndIncrement()) < count) {
+							scanner.scan(cus.get(index));
+							results[index]= scanner.getMatches();
+							scanned.incrementAndGet();
+						}
+						return null;
+					}
+				}));
+			}
+
+			int reported= 0;
+			for (Iterator<Future<Void>> iter= futures.iterator(); iter.hasNext();) {
+				Future<Void> future= iter.next();
+				while (true) {
+					if (pm.isCanceled()) {
+						canceled.set(true);
+						throw new OperationCanceledException();
+					}
+					try {
+						future.get(100, TimeUnit.MILLISECONDS);
+						break;
+					} catch (TimeoutException e) {
+						// keep waiting
+					} finally {
+						int current= scanned.get();
+						pm.worked(current - reported);
+						reported= current;
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			canceled.set(true);
+			Thread.currentThread().interrupt();
+			throw new OperationCanceledException();
+		} catch (ExecutionException e) {
+			canceled.set(true);
+			Throwable cause= e.getCause();
+			if (cause instanceof JavaModelException)
+				throw (JavaModelException) cause;
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			throw new IllegalStateException(cause);
+		} finally {
+			executor.shutdownNow();
+			pm.done();
+		}
+
+		for (int i= 0; i < count; i++) {
+			@SuppressWarnings("unchecked")
+			Set<TextMatch> matches= (Set<TextMatch>) results[i];
+			addCuTextMatches(cus.get(i), matches);
+		}
+	}
+
+	private static int getScannerThreadCount() {
+		return Math.min(Runtime.getRuntime().availableProcessors(), MAX_SCANNER_THREADS);
+	}
+
+	private void addCuTextMatches(ICompilationUnit cu, Set<TextMatch> matches) {
 		if (matches.size() == 0)
 			return;
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -33,6 +33,7 @@ import org.eclipse.core.runtime.IConfigurationElement;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.PerformanceStats;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.preferences.InstanceScope;
@@ -82,11 +83,13 @@ import org.eclipse.jdt.core.WorkingCopyOwner;
 import org.eclipse.jdt.core.manipulation.JavaManipulation;
 
 import org.eclipse.jdt.internal.corext.fix.CleanUpRegistry;
+import org.eclipse.jdt.internal.corext.refactoring.rename.RippleMethodCache;
 import org.eclipse.jdt.internal.corext.template.java.AbstractJavaContextType;
 import org.eclipse.jdt.internal.corext.template.java.CodeTemplateContextType;
 import org.eclipse.jdt.internal.corext.template.java.JavaContextType;
 import org.eclipse.jdt.internal.corext.template.java.SWTContextType;
 import org.eclipse.jdt.internal.corext.util.OpenTypeHistory;
+import org.eclipse.jdt.internal.corext.util.TypeNameIndex;
 import org.eclipse.jdt.internal.corext.util.QualifiedTypeNameHistory;
 import org.eclipse.jdt.internal.corext.util.TypeFilter;
 
@@ -95,6 +98,7 @@ import org.eclipse.jdt.ui.JavaUI;
 import org.eclipse.jdt.ui.PreferenceConstants;
 import org.eclipse.jdt.ui.text.JavaTextTools;
 
+import org.eclipse.jdt.internal.ui.compare.JavaStructure;
 import org.eclipse.jdt.internal.ui.javaeditor.ASTProvider;
 import org.eclipse.jdt.internal.ui.javaeditor.ClassFileDocumentProvider;
 import org.eclipse.jdt.internal.ui.javaeditor.CompilationUnitDocumentProvider;
@@ -109,9 +113,11 @@ import org.eclipse.jdt.internal.ui.text.PreferencesAdapter;
 import org.eclipse.jdt.internal.ui.text.folding.JavaFoldingStructureProviderRegistry;
 import org.eclipse.jdt.internal.ui.text.java.ContentAssistHistory;
 import org.eclipse.jdt.internal.ui.text.java.hover.JavaEditorTextHoverDescriptor;
+import org.eclipse.jdt.internal.ui.text.javadoc.JavadocContentCache;
 import org.eclipse.jdt.internal.ui.text.spelling.SpellCheckEngine;
 import org.eclipse.jdt.internal.ui.viewsupport.ImageDescriptorRegistry;
 import org.eclipse.jdt.internal.ui.viewsupport.ImagesOnFileSystemRegistry;
+import org.eclipse.jdt.internal.ui.viewsupport.JavaElementLabelCache;
 import org.eclipse.jdt.internal.ui.viewsupport.ProblemMarkerManager;
 import org.eclipse.jdt.internal.ui.wizards.buildpaths.ClasspathAttributeConfigurationDescriptors;
 
@@ -150,6 +156,12 @@ public class JavaPlugin extends AbstractUIPlugin implements DebugOptionsListener
 	 * @since 3.0
 	 */
 	private static final String CODE_TEMPLATES_MIGRATION_KEY= "org.eclipse.jdt.ui.text.code_templates_migrated"; //$NON-NLS-1$
+	/**
+	 * Performance event for the phases of {@link #start(BundleContext)} and of
+	 * {@link #initializeAfterLoad(IProgressMonitor)}. The blame of each event is the name of the phase.
+	 * @since 3.13
+	 */
+	private static final String PERF_STARTUP= "org.eclipse.jdt.ui/perf/startup"; //$NON-NLS-1$
 
 	public static boolean DEBUG_AST_PROVIDER;
 
@@ -372,6 +384,8 @@ public class JavaPlugin extends AbstractUIPlugin implements DebugOptionsListener
 		super.start(context);
 		fBundleContext= context;
 
+		PerformanceStats stats= startPhase("initializeCore"); //$NON-NLS-1$
+
 		// register debug options listener
 		Hashtable<String, String> properties= new Hashtable<>(2);
 		properties.put(DebugOptions.LISTENER_SYMBOLICNAME, getPluginId());
@@ -393,16 +407,23 @@ public class JavaPlugin extends AbstractUIPlugin implements DebugOptionsListener
 		// must add here to guarantee that it is the first in the listener list
 		fMembersOrderPreferenceCache= new MembersOrderPreferenceCache();
 		fMembersOrderPreferenceCache.install(store);
+		endPhase(stats);
 
+		stats= startPhase("checkFormatterProfiles"); //$NON-NLS-1$
 		FormatterProfileStore.checkCurrentOptionsVersion();
+		endPhase(stats);
 		
 		// make sure org.eclipse.jdt.core.manipulation is loaded too
 		// can be removed if JavaElementPropertyTester is moved down to jdt.core (bug 127085)
+		stats= startPhase("loadManipulation"); //$NON-NLS-1$
 		JavaManipulation.class.toString();
+		endPhase(stats);
 
 		if (PlatformUI.isWorkbenchRunning()) {
 			// Initialize AST provider
+			stats= startPhase("initializeASTProvider"); //$NON-NLS-1$
 			getASTProvider();
+			endPhase(stats);
 
 			fThemeListener= new IPropertyChangeListener() {
 				@Override
@@ -417,7 +438,30 @@ public class JavaPlugin extends AbstractUIPlugin implements DebugOptionsListener
 	}
 
 	/* package */ static void initializeAfterLoad(IProgressMonitor monitor) {
+		PerformanceStats stats= startPhase("checkOpenTypeHistory"); //$NON-NLS-1$
 		OpenTypeHistory.getInstance().checkConsistency(monitor);
+		endPhase(stats);
+	}
+
+	/**
+	 * Starts measuring a startup phase if the <code>org.eclipse.jdt.ui/perf/startup</code> option is
+	 * enabled.
+	 *
+	 * @param phase the name of the phase
+	 * @return the stats of the phase, or <code>null</code> if not measured
+	 * @since 3.13
+	 */
+	private static PerformanceStats startPhase(String phase) {
+		if (!PerformanceStats.isEnabled(PERF_STARTUP))
+			return null;
+		PerformanceStats stats= PerformanceStats.getStats(PERF_STARTUP, phase);
+		stats.startRun();
+		return stats;
+	}
+
+	private static void endPhase(PerformanceStats stats) {
+		if (stats != null)
+			stats.endRun();
 	}
 
 	/*
@@ -513,6 +557,11 @@ public class JavaPlugin extends AbstractUIPlugin implements DebugOptionsListener
 			// must add here to guarantee that it is the first in the listener list
 
 			OpenTypeHistory.shutdown();
+			TypeNameIndex.shutdown();
+			RippleMethodCache.shutdown();
+			JavaElementLabelCache.shutdown();
+			JavadocContentCache.shutdown();
+			JavaStructure.shutdown();
 		} finally {
 			super.stop(context);
 		}
@@ -847,7 +896,8 @@ public class JavaPlugin extends AbstractUIPlugin implements DebugOptionsListener
 
 	private synchronized ImageDescriptorRegistry internalGetImageDescriptorRegistry() {
 		if (fImageDescriptorRegistry == null)
-			fImageDescriptorRegistry= new ImageDescriptorRegistry();
+			// images requested with get() are never evicted
+			fImageDescriptorRegistry= new ImageDescriptorRegistry(true);
 		return fImageDescriptorRegistry;
 	}
 
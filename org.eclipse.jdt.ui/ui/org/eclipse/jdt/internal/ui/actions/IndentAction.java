@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -165,10 +165,11 @@ public class IndentAction extends TextEditorAction {
 					if (target != null)
 						target.beginCompoundChange();
 
+					final boolean multiLine= nLines > 1;
+					// indent a selection from a snapshot, which lets every line scan only its own statement
+					JavaHeuristicScanner scanner= new JavaHeuristicScanner(document, multiLine);
 					try {
-						JavaHeuristicScanner scanner= new JavaHeuristicScanner(document);
 						JavaIndenter indenter= new JavaIndenter(document, scanner, getJavaProject());
-						final boolean multiLine= nLines > 1;
 						boolean hasChanged= false;
 						for (int i= 0; i < nLines; i++) {
 							hasChanged |= indentLine(document, firstLine + i, offset, indenter, scanner, multiLine);
@@ -196,6 +197,7 @@ public class IndentAction extends TextEditorAction {
 						JavaPlugin.log(new Status(IStatus.ERROR, JavaPlugin.getPluginId(), IStatus.OK, "ConcurrentModification in IndentAction", e)); //$NON-NLS-1$
 
 					} finally {
+						scanner.dispose();
 						if (target != null)
 							target.endCompoundChange();
 					}
@@ -253,7 +255,7 @@ public class IndentAction extends TextEditorAction {
 		int offset= 0;
 		int length= document.getLength();
 
-		JavaHeuristicScanner scanner= new JavaHeuristicScanner(document);
+		JavaHeuristicScanner scanner= new JavaHeuristicScanner(document, true);
 		JavaIndenter indenter= new JavaIndenter(document, scanner, project);
 
 		ArrayList<ReplaceEdit> edits= new ArrayList<>();
@@ -264,19 +266,23 @@ public class IndentAction extends TextEditorAction {
 		int numberOfLines= document.getLineOfOffset(offset + length - minusOne) - firstLine + 1;
 
 		int shift= 0;
-		for (int i= 0; i < numberOfLines; i++) {
-			ReplaceData data= computeReplaceData(document, firstLine + i, indenter, scanner, numberOfLines > 1, false, project);
-
-			int replaceLength= data.end - data.offset;
-			String currentIndent= document.get(data.offset, replaceLength);
-
-			// only change the document if it is a real change
-			if (!data.indent.equals(currentIndent)) {
-				edits.add(new ReplaceEdit(data.offset + shift, replaceLength, data.indent));
-				//We need to change the document, the indenter depends on it.
-				document.replace(data.offset, replaceLength, data.indent);
-				shift-= data.indent.length() - replaceLength;
+		try {
+			for (int i= 0; i < numberOfLines; i++) {
+				ReplaceData data= computeReplaceData(document, firstLine + i, indenter, scanner, numberOfLines > 1, false, project);
+
+				int replaceLength= data.end - data.offset;
+				String currentIndent= document.get(data.offset, replaceLength);
+
+				// only change the document if it is a real change
+				if (!data.indent.equals(currentIndent)) {
+					edits.add(new ReplaceEdit(data.offset + shift, replaceLength, data.indent));
+					//We need to change the document, the indenter depends on it.
+					document.replace(data.offset, replaceLength, data.indent);
+					shift-= data.indent.length() - replaceLength;
+				}
 			}
+		} finally {
+			scanner.dispose();
 		}
 
 		if (edits.size() == 0)
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -22,6 +22,7 @@ import org.eclipse.jface.viewers.ILabelProviderListener;
 import org.eclipse.jdt.internal.corext.callhierarchy.MethodWrapper;
 
 import org.eclipse.jdt.internal.ui.JavaPlugin;
+import org.eclipse.jdt.internal.ui.viewsupport.ImageDescriptorRegistry.IOverlayDescriptorFactory;
 import org.eclipse.jdt.internal.ui.viewsupport.ImageImageDescriptor;
 
 /**
@@ -30,6 +31,13 @@ import org.eclipse.jdt.internal.ui.viewsupport.ImageImageDescriptor;
  */
 public class CallHierarchyLabelDecorator implements ILabelDecorator {
 
+	private static final IOverlayDescriptorFactory OVERLAYS= new IOverlayDescriptorFactory() {
+		@Override
+		public ImageDescriptor createDescriptor(ImageDescriptor baseImage, int adornments, Point size) {
+			return new CallHierarchyImageDescriptor(baseImage, adornments, size);
+		}
+	};
+
     /**
      * Creates a decorator. The decorator creates an own image registry to cache
      * images.
@@ -52,7 +60,7 @@ public class CallHierarchyLabelDecorator implements ILabelDecorator {
         if (adornmentFlags != 0) {
             ImageDescriptor baseImage= new ImageImageDescriptor(image);
             Rectangle bounds= image.getBounds();
-            return JavaPlugin.getImageDescriptorRegistry().get(new CallHierarchyImageDescriptor(baseImage, adornmentFlags, new Point(bounds.width, bounds.height)));
+            return JavaPlugin.getImageDescriptorRegistry().get(baseImage, adornmentFlags, new Point(bounds.width, bounds.height), OVERLAYS);
         }
         return image;
     }
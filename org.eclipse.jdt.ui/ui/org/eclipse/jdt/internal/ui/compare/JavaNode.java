@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -42,8 +42,6 @@ class JavaNode extends DocumentRangeNode implements ITypedElement {
 	public static final int CONSTRUCTOR= 10;
 	public static final int METHOD= 11;
 
-	private int fInitializerCount= 1;
-
 	/**
 	 * Creates a JavaNode under the given parent.
 	 * @param parent the parent node
@@ -66,10 +64,6 @@ class JavaNode extends DocumentRangeNode implements ITypedElement {
 		super(CU, JavaCompareUtilities.buildID(CU, "root"), document, 0, document.getLength()); //$NON-NLS-1$
 	}
 
-	public String getInitializerCount() {
-		return Integer.toString(fInitializerCount++);
-	}
-
 	/**
 	 * Extracts the method name from the signature.
 	 * Used for smart matching.
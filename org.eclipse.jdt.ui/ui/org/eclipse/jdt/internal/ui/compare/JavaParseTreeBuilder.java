@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -33,19 +33,21 @@ import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
 
 import org.eclipse.jdt.internal.corext.dom.ASTFlattener;
 
+import org.eclipse.jdt.internal.ui.compare.JavaStructure.Element;
+
 
 class JavaParseTreeBuilder extends ASTVisitor {
 
     private char[] fBuffer;
-    private Stack<JavaNode> fStack= new Stack<>();
-    private JavaNode fImportContainer;
+    private Stack<Element> fStack= new Stack<>();
+    private Element fImportContainer;
     private boolean fShowCU;
 
     /*
      * Parsing is performed on the given buffer and the resulting tree (if any)
      * hangs below the given root.
      */
-    JavaParseTreeBuilder(JavaNode root, char[] buffer, boolean showCU) {
+    JavaParseTreeBuilder(Element root, char[] buffer, boolean showCU) {
         fBuffer= buffer;
         fShowCU= showCU;
         fStack.clear();
@@ -54,7 +56,7 @@ class JavaParseTreeBuilder extends ASTVisitor {
 
     @Override
 	public boolean visit(PackageDeclaration node) {
-        new JavaNode(getCurrentContainer(), JavaNode.PACKAGE, null, node.getStartPosition(), node.getLength());
+        new Element(getCurrentContainer(), JavaNode.PACKAGE, null, node.getStartPosition(), node.getLength());
         return false;
     }
 
@@ -144,12 +146,12 @@ class JavaParseTreeBuilder extends ASTVisitor {
         int l= node.getLength();
         int declarationEnd= s + l;
         if (fImportContainer == null)
-            fImportContainer= new JavaNode(getCurrentContainer(), JavaNode.IMPORT_CONTAINER, null, s, l);
+            fImportContainer= new Element(getCurrentContainer(), JavaNode.IMPORT_CONTAINER, null, s, l);
         String nm= node.getName().toString();
         if (node.isOnDemand())
             nm+= ".*"; //$NON-NLS-1$
-        new JavaNode(fImportContainer, JavaNode.IMPORT, nm, s, l);
-        fImportContainer.setLength(declarationEnd - fImportContainer.getRange().getOffset() + 1);
+        new Element(fImportContainer, JavaNode.IMPORT, nm, s, l);
+        fImportContainer.setLength(declarationEnd - fImportContainer.getStart() + 1);
         fImportContainer.setAppendPosition(declarationEnd + 2); // FIXME
         return false;
     }
@@ -181,7 +183,7 @@ class JavaParseTreeBuilder extends ASTVisitor {
     // private stuff
 
     /**
-     * Adds a new JavaNode with the given type and name to the current
+     * Adds a new element with the given type and name to the current
      * container.
      */
     private void push(int type, String name, int declarationStart, int length) {
@@ -194,7 +196,7 @@ class JavaParseTreeBuilder extends ASTVisitor {
             length++;
         }
 
-        JavaNode node= new JavaNode(getCurrentContainer(), type, name, declarationStart, length);
+        Element node= new Element(getCurrentContainer(), type, name, declarationStart, length);
         if (type == JavaNode.CU)
             node.setAppendPosition(declarationStart + length + 1);
         else
@@ -211,7 +213,7 @@ class JavaParseTreeBuilder extends ASTVisitor {
         fStack.pop();
     }
 
-    private JavaNode getCurrentContainer() {
+    private Element getCurrentContainer() {
         return fStack.peek();
     }
 
@@ -0,0 +1,230 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.compare;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+import org.eclipse.jdt.internal.corext.dom.IASTSharedValues;
+
+/**
+ * The structure of a Java source as built by {@link JavaParseTreeBuilder}: the package declaration,
+ * the imports, the types and their members with their ranges.
+ * <p>
+ * A structure does not depend on a document, so it is cached by a digest of the contents and shared
+ * by all compare inputs with the same contents, e.g. the ancestor and the unchanged side of a
+ * three-way compare or the same version shown again in the synchronize view. {@link #createNodes(JavaNode)} creates the
+ * {@link JavaNode}s for a document.
+ * </p>
+ *
+ * @since 3.13
+ */
+public final class JavaStructure {
+
+	private static final int MAX_CACHED_STRUCTURES= 50;
+
+	/**
+	 * An element of the structure, corresponding to a {@link JavaNode}.
+	 */
+	static final class Element {
+
+		private final int fType;
+		private final String fName;
+		private final int fStart;
+		private int fLength;
+		/** The append position or <code>-1</code> if not set. */
+		private int fAppendPosition= -1;
+		private int fInitializerCount= 1;
+		private List<Element> fChildren;
+
+		Element(Element parent, int type, String name, int start, int length) {
+			fType= type;
+			fName= name;
+			fStart= start;
+			fLength= length;
+			if (parent != null) {
+				if (parent.fChildren == null)
+					parent.fChildren= new ArrayList<>();
+				parent.fChildren.add(this);
+			}
+		}
+
+		int getStart() {
+			return fStart;
+		}
+
+		void setLength(int length) {
+			fLength= length;
+		}
+
+		void setAppendPosition(int pos) {
+			fAppendPosition= pos;
+		}
+
+		String getInitializerCount() {
+			return Integer.toString(fInitializerCount++);
+		}
+
+		private void createNodes(JavaNode parent) {
+			if (fChildren == null)
+				return;
+			for (Element element : fChildren) {
+				JavaNode node= new JavaNode(parent, element.fType, element.fName, element.fStart, element.fLength);
+				if (element.fAppendPosition != -1)
+					node.setAppendPosition(element.fAppendPosition);
+				element.createNodes(node);
+			}
+		}
+	}
+
+	/**
+	 * Key of a cached structure: the SHA-1 digest and the length of the contents and the source
+	 * level they were parsed with.
+	 */
+	private static final class Key {
+
+		private final byte[] fDigest;
+		private final int fLength;
+		private final String fSourceLevel;
+
+		Key(byte[] digest, int length, String sourceLevel) {
+			fDigest= digest;
+			fLength= length;
+			fSourceLevel= sourceLevel;
+		}
+
+		@Override
+		public int hashCode() {
+			return (Arrays.hashCode(fDigest) * 31 + fLength) * 31 + (fSourceLevel != null ? fSourceLevel.hashCode() : 0);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			Key other= (Key) obj;
+			if (fSourceLevel == null ? other.fSourceLevel != null : !fSourceLevel.equals(other.fSourceLevel))
+				return false;
+			return fLength == other.fLength && Arrays.equals(fDigest, other.fDigest);
+		}
+	}
+
+	/** The structures by content digest. Guarded by <code>fgStructures</code>. */
+	private static final Map<Key, JavaStructure> fgStructures= new LinkedHashMap<Key, JavaStructure>(16, 0.75f, true) {
+		private static final long serialVersionUID= 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, JavaStructure> eldest) {
+			return size() > MAX_CACHED_STRUCTURES;
+		}
+	};
+
+	private final Element fRoot;
+
+	private JavaStructure(Element root) {
+		fRoot= root;
+	}
+
+	/**
+	 * Returns the structure of the given contents, parsing them only if no structure of the same
+	 * contents is cached.
+	 *
+	 * @param buffer the contents
+	 * @param compilerOptions the compiler options or <code>null</code> for the default options
+	 * @param monitor the progress monitor or <code>null</code>
+	 * @return the structure
+	 */
+	public static JavaStructure getStructure(char[] buffer, Map<String, String> compilerOptions, IProgressMonitor monitor) {
+		Key key= createKey(buffer, compilerOptions != null ? compilerOptions.get(JavaCore.COMPILER_SOURCE) : null);
+		if (key != null) {
+			synchronized (fgStructures) {
+				JavaStructure structure= fgStructures.get(key);
+				if (structure != null)
+					return structure;
+			}
+		}
+
+		ASTParser parser= ASTParser.newParser(IASTSharedValues.SHARED_AST_LEVEL);
+		if (compilerOptions != null)
+			parser.setCompilerOptions(compilerOptions);
+		parser.setSource(buffer);
+		parser.setFocalPosition(0);
+		CompilationUnit cu= (CompilationUnit) parser.createAST(monitor);
+		Element root= new Element(null, JavaNode.CU, null, 0, buffer.length);
+		cu.accept(new JavaParseTreeBuilder(root, buffer, true));
+
+		JavaStructure structure= new JavaStructure(root);
+		if (key != null && (monitor == null || !monitor.isCanceled())) {
+			synchronized (fgStructures) {
+				fgStructures.put(key, structure);
+			}
+		}
+		return structure;
+	}
+
+	/**
+	 * Clears the cached structures.
+	 */
+	public static void shutdown() {
+		synchronized (fgStructures) {
+			fgStructures.clear();
+		}
+	}
+
+	/**
+	 * Creates the key of the given contents without copying them.
+	 *
+	 * @param buffer the contents
+	 * @param sourceLevel the source level or <code>null</code>
+	 * @return the key or <code>null</code> if no digest is available
+	 */
+	private static Key createKey(char[] buffer, String sourceLevel) {
+		MessageDigest digest;
+		try {
+			digest= MessageDigest.getInstance("SHA-1"); //$NON-NLS-1$
+		} catch (NoSuchAlgorithmException e) {
+			return null;
+		}
+		byte[] bytes= new byte[Math.min(2 * buffer.length, 8192)];
+		int n= 0;
+		for (int i= 0; i < buffer.length; i++) {
+			if (n == bytes.length) {
+				digest.update(bytes, 0, n);
+				n= 0;
+			}
+			char ch= buffer[i];
+			bytes[n++]= (byte) (ch >> 8);
+			bytes[n++]= (byte) ch;
+		}
+		digest.update(bytes, 0, n);
+		return new Key(digest.digest(), buffer.length, sourceLevel);
+	}
+
+	/**
+	 * Creates the nodes of this structure below the given root node.
+	 *
+	 * @param root the root node of the document
+	 */
+	void createNodes(JavaNode root) {
+		fRoot.createNodes(root);
+	}
+}
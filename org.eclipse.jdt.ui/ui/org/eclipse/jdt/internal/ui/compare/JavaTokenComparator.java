@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,10 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui.compare;
 
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.eclipse.core.runtime.Assert;
 
 import org.eclipse.compare.contentmergeviewer.ITokenComparator;
@@ -26,11 +30,34 @@ import org.eclipse.jdt.internal.corext.dom.TokenScanner;
 
 /**
  * A comparator for Java tokens.
+ * <p>
+ * The merge viewer compares lines first and only tokenizes the text of the changed ranges, but it
+ * does so again every time the differences are recomputed. The tokens of long texts are therefore
+ * cached, so that a recompare of a large file only tokenizes the ranges that have changed.
+ * </p>
  */
 public class JavaTokenComparator implements ITokenComparator {
 
 	private static final boolean DEBUG= false;
 
+	/** Texts shorter than this are cheap to tokenize and are not cached. */
+	private static final int MIN_CACHED_LENGTH= 1000;
+
+	private static final int MAX_CACHED_TEXTS= 16;
+
+	/**
+	 * The most recently created comparators of long texts, by text. Their token arrays are shared
+	 * by comparators for equal texts. Guarded by <code>fgCache</code>.
+	 */
+	private static final Map<String, JavaTokenComparator> fgCache= new LinkedHashMap<String, JavaTokenComparator>(16, 0.75f, true) {
+		private static final long serialVersionUID= 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, JavaTokenComparator> eldest) {
+			return size() > MAX_CACHED_TEXTS;
+		}
+	};
+
 	private final String fText;
 	private int fCount;
 	private int[] fStarts;
@@ -47,8 +74,23 @@ public class JavaTokenComparator implements ITokenComparator {
 		fText= text;
 
 		int length= fText.length();
-		fStarts= new int[length];
-		fLengths= new int[length];
+		boolean cache= length >= MIN_CACHED_LENGTH;
+		if (cache) {
+			JavaTokenComparator cached;
+			synchronized (fgCache) {
+				cached= fgCache.get(text);
+			}
+			if (cached != null) {
+				fStarts= cached.fStarts;
+				fLengths= cached.fLengths;
+				fCount= cached.fCount;
+				return;
+			}
+		}
+
+		int capacity= Math.min(length, 64);
+		fStarts= new int[capacity];
+		fLengths= new int[capacity];
 		fCount= 0;
 
 		IScanner scanner= ToolFactory.createScanner(true, true, false, false); // returns comments & whitespace
@@ -79,6 +121,14 @@ public class JavaTokenComparator implements ITokenComparator {
 		if (endPos < length) {
 			recordTokenRange(endPos, length - endPos);
 		}
+
+		if (cache) {
+			fStarts= Arrays.copyOf(fStarts, fCount);
+			fLengths= Arrays.copyOf(fLengths, fCount);
+			synchronized (fgCache) {
+				fgCache.put(text, this);
+			}
+		}
 	}
 
 	/**
@@ -89,6 +139,11 @@ public class JavaTokenComparator implements ITokenComparator {
 	 * @since 3.3
 	 */
 	private void recordTokenRange(int start, int length) {
+		if (fCount == fStarts.length) {
+			int capacity= Math.max(2 * fCount, 16);
+			fStarts= Arrays.copyOf(fStarts, capacity);
+			fLengths= Arrays.copyOf(fLengths, capacity);
+		}
 		fStarts[fCount]= start;
 		fLengths[fCount]= length;
 		if (DEBUG)
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -26,6 +26,7 @@ import org.eclipse.swt.graphics.TextStyle;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Shell;
 import org.eclipse.swt.widgets.Text;
 
@@ -92,9 +93,11 @@ import org.eclipse.jdt.core.search.TypeNameRequestor;
 import org.eclipse.jdt.internal.corext.util.CollectionsUtil;
 import org.eclipse.jdt.internal.corext.util.Messages;
 import org.eclipse.jdt.internal.corext.util.OpenTypeHistory;
+import org.eclipse.jdt.internal.corext.util.OpenTypeHistory.IConsistencyCheckListener;
 import org.eclipse.jdt.internal.corext.util.Strings;
 import org.eclipse.jdt.internal.corext.util.TypeFilter;
 import org.eclipse.jdt.internal.corext.util.TypeInfoFilter;
+import org.eclipse.jdt.internal.corext.util.TypeNameIndex;
 import org.eclipse.jdt.internal.corext.util.TypeInfoRequestorAdapter;
 
 import org.eclipse.jdt.launching.IVMInstall;
@@ -516,6 +519,10 @@ public class FilteredTypesSelectionDialog extends FilteredItemsSelectionDialog i
 		typeSearchFilter.setMatchEverythingMode(true);
 
 		try {
+			// answer the query from the type name index, fall back to the search engine while the index is being built
+			if (TypeNameIndex.getInstance().search(typeSearchFilter.getTypeInfoFilter(), requestor, progressMonitor))
+				return;
+
 			engine.searchAllTypeNames(packPattern == null ? null : packPattern.toCharArray(),
 					typeSearchFilter.getPackageFlags(),
 					typePattern.toCharArray(),
@@ -583,17 +590,12 @@ public class FilteredTypesSelectionDialog extends FilteredItemsSelectionDialog i
 			}
 			OpenTypeHistory history= OpenTypeHistory.getInstance();
 			if (fgFirstTime || history.isEmpty()) {
-				if (history.needConsistencyCheck()) {
-					SubMonitor subMonitor= SubMonitor.convert(monitor,JavaUIMessages.TypeSelectionDialog_progress_consistency, 10 );
-					refreshSearchIndices(subMonitor.split(9));
-					history.checkConsistency(subMonitor.split(1));
-				} else {
-					refreshSearchIndices(monitor);
-				}
+				refreshSearchIndices(monitor);
 				fgFirstTime= false;
-			} else {
-				history.checkConsistency(monitor);
 			}
+			// The history is checked in the background. Entries that haven't been
+			// checked yet are shown, but rendered as unverified.
+			history.scheduleConsistencyCheck();
 		}
 		public static boolean needsExecution() {
 			OpenTypeHistory history= OpenTypeHistory.getInstance();
@@ -700,8 +702,26 @@ public class FilteredTypesSelectionDialog extends FilteredItemsSelectionDialog i
 
 		private Styler fBoldQualifierStyler;
 
+		private final IConsistencyCheckListener fConsistencyCheckListener;
+
+		private boolean fDisposed;
+
 		public TypeItemLabelProvider() {
 			fImageManager= new LocalResourceManager(JFaceResources.getResources());
+			fConsistencyCheckListener= new IConsistencyCheckListener() {
+				@Override
+				public void consistencyChecked() {
+					// history entries are rendered as unverified until they have been checked
+					Display.getDefault().asyncExec(new Runnable() {
+						@Override
+						public void run() {
+							if (!fDisposed)
+								fireLabelProviderChanged(new LabelProviderChangedEvent(TypeItemLabelProvider.this));
+						}
+					});
+				}
+			};
+			OpenTypeHistory.getInstance().addConsistencyCheckListener(fConsistencyCheckListener);
 		}
 
 		/*
@@ -709,6 +729,8 @@ public class FilteredTypesSelectionDialog extends FilteredItemsSelectionDialog i
 		 */
 		@Override
 		public void dispose() {
+			fDisposed= true;
+			OpenTypeHistory.getInstance().removeConsistencyCheckListener(fConsistencyCheckListener);
 			super.dispose();
 			fImageManager.dispose();
 			if (fBoldStylerProvider != null) {
@@ -773,7 +795,11 @@ public class FilteredTypesSelectionDialog extends FilteredItemsSelectionDialog i
 		@Override
 		public StyledString getStyledText(Object element) {
 			String text= getText(element);
-			StyledString string= new StyledString(text);
+			StyledString string;
+			if (element instanceof TypeNameMatch && isHistoryElement(element) && !OpenTypeHistory.getInstance().isVerified((TypeNameMatch) element))
+				string= new StyledString(text, StyledString.QUALIFIER_STYLER);
+			else
+				string= new StyledString(text);
 
 			int index= text.indexOf(JavaElementLabels.CONCAT_STRING);
 
@@ -1034,6 +1060,10 @@ public class FilteredTypesSelectionDialog extends FilteredItemsSelectionDialog i
 			return fTypeInfoFilter.getElementKind();
 		}
 
+		public TypeInfoFilter getTypeInfoFilter() {
+			return fTypeInfoFilter;
+		}
+
 		public IJavaSearchScope getSearchScope() {
 			return fTypeInfoFilter.getSearchScope();
 		}
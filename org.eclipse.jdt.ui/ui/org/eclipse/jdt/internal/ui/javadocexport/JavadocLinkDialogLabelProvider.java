@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -60,7 +60,7 @@ public class JavadocLinkDialogLabelProvider extends LabelProvider {
 				desc= JavaUI.getSharedImages().getImageDescriptor(ISharedImages.IMG_OBJS_JAR);
 			}
 			if (ref.getURL() == null) {
-				return JavaPlugin.getImageDescriptorRegistry().get(new JavaElementImageDescriptor(desc, JavaElementImageDescriptor.WARNING, JavaElementImageProvider.SMALL_SIZE));
+				return JavaPlugin.getImageDescriptorRegistry().get(desc, JavaElementImageDescriptor.WARNING, JavaElementImageProvider.SMALL_SIZE);
 			}
 			return JavaPlugin.getImageDescriptorRegistry().get(desc);
 		}
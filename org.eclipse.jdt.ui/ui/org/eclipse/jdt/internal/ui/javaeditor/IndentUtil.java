@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2008 IBM Corporation and others.
+ * Copyright (c) 2005, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -89,14 +89,19 @@ public final class IndentUtil {
 
 		result= reuseOrCreateToken(result, numberOfLines);
 
-		JavaHeuristicScanner scanner= new JavaHeuristicScanner(document);
-		JavaIndenter indenter= new JavaIndenter(document, scanner, project);
-		boolean changed= false;
-		int tabSize= CodeFormatterUtil.getTabWidth(project);
-		for (int line= lines.getStartLine(), last= line + numberOfLines, i= 0; line < last; line++) {
-			changed |= indentLine(document, line, indenter, scanner, result.commentLinesAtColumnZero, i++, tabSize);
+		// a snapshot pays off only if many lines are indented
+		JavaHeuristicScanner scanner= new JavaHeuristicScanner(document, numberOfLines > 50);
+		try {
+			JavaIndenter indenter= new JavaIndenter(document, scanner, project);
+			boolean changed= false;
+			int tabSize= CodeFormatterUtil.getTabWidth(project);
+			for (int line= lines.getStartLine(), last= line + numberOfLines, i= 0; line < last; line++) {
+				changed |= indentLine(document, line, indenter, scanner, result.commentLinesAtColumnZero, i++, tabSize);
+			}
+			result.hasChanged= changed;
+		} finally {
+			scanner.dispose();
 		}
-		result.hasChanged= changed;
 
 		return result;
 	}
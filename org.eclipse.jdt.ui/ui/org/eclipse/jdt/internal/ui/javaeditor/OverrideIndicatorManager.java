@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,10 +11,14 @@
 
 package org.eclipse.jdt.internal.ui.javaeditor;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
@@ -33,6 +37,8 @@ import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.ITypeRoot;
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.AbstractTypeDeclaration;
+import org.eclipse.jdt.core.dom.AnonymousClassDeclaration;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.dom.IMethodBinding;
 import org.eclipse.jdt.core.dom.ITypeBinding;
@@ -123,6 +129,24 @@ class OverrideIndicatorManager implements IJavaReconcilingListener {
 		}
 	}
 
+	/**
+	 * The result of {@link Bindings#findOverriddenMethod(IMethodBinding, boolean)} for a method.
+	 *
+	 * @since 3.13
+	 */
+	private static final class OverrideInfo {
+
+		static final OverrideInfo NONE= new OverrideInfo(false, null);
+
+		final boolean fIsImplements;
+		final String fText;
+
+		OverrideInfo(boolean isImplements, String text) {
+			fIsImplements= isImplements;
+			fText= text;
+		}
+	}
+
 	static final String ANNOTATION_TYPE= "org.eclipse.jdt.ui.overrideIndicator"; //$NON-NLS-1$
 
 	private IAnnotationModel fAnnotationModel;
@@ -130,6 +154,23 @@ class OverrideIndicatorManager implements IJavaReconcilingListener {
 	private Annotation[] fOverrideAnnotations;
 	private ITypeRoot fJavaElement;
 
+	/**
+	 * The annotations in the annotation model, by method binding key and occurrence.
+	 * @since 3.13
+	 */
+	private Map<String, OverrideIndicator> fAnnotationsByKey= new HashMap<>();
+	/**
+	 * The overridden method infos by method binding key.
+	 * @since 3.13
+	 */
+	private Map<String, OverrideInfo> fOverrideInfos= new HashMap<>();
+	/**
+	 * The fingerprints of the types declared in the last AST, by type binding key. A fingerprint
+	 * consists of the supertypes and the declared method signatures and modifiers.
+	 * @since 3.13
+	 */
+	private Map<String, String> fTypeFingerprints= new HashMap<>();
+
 
 	public OverrideIndicatorManager(IAnnotationModel annotationModel, ITypeRoot javaElement, CompilationUnit ast) {
 		Assert.isNotNull(annotationModel);
@@ -167,64 +208,209 @@ class OverrideIndicatorManager implements IJavaReconcilingListener {
 	 * @since 3.0
 	 */
 	protected void updateAnnotations(CompilationUnit ast, IProgressMonitor progressMonitor) {
+		updateAnnotations(ast, true, progressMonitor);
+	}
+
+	/**
+	 * Updates the override and implements annotations based on the given AST. Unless
+	 * <code>forced</code> is set, the overridden methods are only computed for methods that are
+	 * new or whose declaring type or one of its supertypes in the AST has changed its
+	 * supertypes or method signatures. Only the annotations that changed are replaced.
+	 *
+	 * @param ast the compilation unit AST
+	 * @param forced <code>true</code> if elements outside the AST may have changed
+	 * @param progressMonitor the progress monitor
+	 * @since 3.13
+	 */
+	private void updateAnnotations(CompilationUnit ast, boolean forced, IProgressMonitor progressMonitor) {
 
 		if (ast == null || progressMonitor.isCanceled())
 			return;
 
-		final Map<Annotation, Position> annotationMap= new HashMap<>(50);
-
+		final List<MethodDeclaration> methods= new ArrayList<>();
+		final Map<String, String> typeFingerprints= new HashMap<>();
 		ast.accept(new ASTVisitor(false) {
+			/*
+			 * @see org.eclipse.jdt.core.dom.ASTVisitor#preVisit(org.eclipse.jdt.core.dom.ASTNode)
+			 */
+			@Override
+			public void preVisit(ASTNode node) {
+				ITypeBinding type= null;
+				if (node instanceof AbstractTypeDeclaration)
+					type= ((AbstractTypeDeclaration) node).resolveBinding();
+				else if (node instanceof AnonymousClassDeclaration)
+					type= ((AnonymousClassDeclaration) node).resolveBinding();
+				if (type != null)
+					typeFingerprints.put(type.getKey(), computeFingerprint(type));
+			}
+
 			/*
 			 * @see org.eclipse.jdt.core.dom.ASTVisitor#visit(org.eclipse.jdt.core.dom.MethodDeclaration)
 			 */
 			@Override
 			public boolean visit(MethodDeclaration node) {
-				IMethodBinding binding= node.resolveBinding();
-				if (binding != null) {
-					IMethodBinding definingMethod= Bindings.findOverriddenMethod(binding, true);
-					if (definingMethod != null) {
-
-						ITypeBinding definingType= definingMethod.getDeclaringClass();
-						String qualifiedMethodName= definingType.getQualifiedName() + "." + binding.getName(); //$NON-NLS-1$
-
-						boolean isImplements= JdtFlags.isAbstract(definingMethod);
-						String text;
-						if (isImplements)
-							text= Messages.format(JavaEditorMessages.OverrideIndicatorManager_implements, BasicElementLabels.getJavaElementName(qualifiedMethodName));
-						else
-							text= Messages.format(JavaEditorMessages.OverrideIndicatorManager_overrides, BasicElementLabels.getJavaElementName(qualifiedMethodName));
-
-						SimpleName name= node.getName();
-						Position position= new Position(name.getStartPosition(), name.getLength());
+				methods.add(node);
+				return true;
+			}
+		});
 
-						annotationMap.put(
-								new OverrideIndicator(isImplements, text, binding.getKey()),
-								position);
+		if (progressMonitor.isCanceled())
+			return;
 
-					}
+		Set<String> changedTypes= new HashSet<>();
+		if (forced) {
+			fOverrideInfos.clear();
+		} else {
+			for (Iterator<Entry<String, String>> iter= typeFingerprints.entrySet().iterator(); iter.hasNext();) {
+				Entry<String, String> entry= iter.next();
+				if (!entry.getValue().equals(fTypeFingerprints.get(entry.getKey())))
+					changedTypes.add(entry.getKey());
+			}
+		}
+		Map<String, Boolean> affectedTypes= new HashMap<>();
+
+		Map<String, OverrideInfo> overrideInfos= new HashMap<>();
+		Map<Annotation, Position> annotationMap= new HashMap<>();
+		Map<String, OverrideIndicator> annotationsByKey= new HashMap<>();
+		Map<String, OverrideIndicator> oldAnnotationsByKey= new HashMap<>(fAnnotationsByKey);
+		for (int i= 0, n= methods.size(); i < n; i++) {
+			MethodDeclaration node= methods.get(i);
+			IMethodBinding binding= node.resolveBinding();
+			if (binding == null)
+				continue;
+
+			String key= binding.getKey();
+			OverrideInfo info= overrideInfos.get(key);
+			if (info == null) {
+				info= fOverrideInfos.get(key);
+				if (info == null || isAffected(binding.getDeclaringClass(), changedTypes, affectedTypes))
+					info= computeOverrideInfo(binding);
+				overrideInfos.put(key, info);
+			}
+			if (info == OverrideInfo.NONE)
+				continue;
+
+			// duplicate methods have the same key
+			String annotationKey= key;
+			for (int occurrence= 1; annotationsByKey.containsKey(annotationKey); occurrence++)
+				annotationKey= key + '#' + occurrence;
+
+			SimpleName name= node.getName();
+			OverrideIndicator existing= oldAnnotationsByKey.get(annotationKey);
+			if (existing != null && existing.isOverwriteIndicator() == info.fIsImplements && existing.getText().equals(info.fText)) {
+				Position position= fAnnotationModel.getPosition(existing);
+				if (position != null && position.getOffset() == name.getStartPosition() && position.getLength() == name.getLength()) {
+					oldAnnotationsByKey.remove(annotationKey);
+					annotationsByKey.put(annotationKey, existing);
+					continue;
 				}
-				return true;
 			}
-		});
+
+			OverrideIndicator annotation= new OverrideIndicator(info.fIsImplements, info.fText, key);
+			annotationMap.put(annotation, new Position(name.getStartPosition(), name.getLength()));
+			annotationsByKey.put(annotationKey, annotation);
+		}
 
 		if (progressMonitor.isCanceled())
 			return;
 
+		fOverrideInfos= overrideInfos;
+		fTypeFingerprints= typeFingerprints;
+
+		Annotation[] removed= oldAnnotationsByKey.values().toArray(new Annotation[oldAnnotationsByKey.size()]);
 		synchronized (fAnnotationModelLockObject) {
-			if (fAnnotationModel instanceof IAnnotationModelExtension) {
-				((IAnnotationModelExtension)fAnnotationModel).replaceAnnotations(fOverrideAnnotations, annotationMap);
-			} else {
-				removeAnnotations();
-				Iterator<Entry<Annotation, Position>> iter= annotationMap.entrySet().iterator();
-				while (iter.hasNext()) {
-					Entry<Annotation, Position> mapEntry= iter.next();
-					fAnnotationModel.addAnnotation(mapEntry.getKey(), mapEntry.getValue());
+			if (removed.length > 0 || !annotationMap.isEmpty()) {
+				if (fAnnotationModel instanceof IAnnotationModelExtension) {
+					((IAnnotationModelExtension)fAnnotationModel).replaceAnnotations(removed, annotationMap);
+				} else {
+					for (int i= 0; i < removed.length; i++)
+						fAnnotationModel.removeAnnotation(removed[i]);
+					Iterator<Entry<Annotation, Position>> iter= annotationMap.entrySet().iterator();
+					while (iter.hasNext()) {
+						Entry<Annotation, Position> mapEntry= iter.next();
+						fAnnotationModel.addAnnotation(mapEntry.getKey(), mapEntry.getValue());
+					}
 				}
 			}
-			fOverrideAnnotations= annotationMap.keySet().toArray(new Annotation[annotationMap.keySet().size()]);
+			fAnnotationsByKey= annotationsByKey;
+			fOverrideAnnotations= annotationsByKey.values().toArray(new Annotation[annotationsByKey.size()]);
 		}
 	}
 
+	/**
+	 * Computes the override info for the given method.
+	 *
+	 * @param binding the method binding
+	 * @return the override info, {@link OverrideInfo#NONE} if the method does not override another method
+	 * @since 3.13
+	 */
+	private static OverrideInfo computeOverrideInfo(IMethodBinding binding) {
+		IMethodBinding definingMethod= Bindings.findOverriddenMethod(binding, true);
+		if (definingMethod == null)
+			return OverrideInfo.NONE;
+
+		ITypeBinding definingType= definingMethod.getDeclaringClass();
+		String qualifiedMethodName= definingType.getQualifiedName() + "." + binding.getName(); //$NON-NLS-1$
+
+		boolean isImplements= JdtFlags.isAbstract(definingMethod);
+		String text;
+		if (isImplements)
+			text= Messages.format(JavaEditorMessages.OverrideIndicatorManager_implements, BasicElementLabels.getJavaElementName(qualifiedMethodName));
+		else
+			text= Messages.format(JavaEditorMessages.OverrideIndicatorManager_overrides, BasicElementLabels.getJavaElementName(qualifiedMethodName));
+		return new OverrideInfo(isImplements, text);
+	}
+
+	/**
+	 * Computes the fingerprint of a type declared in the AST: the keys of its supertypes and the
+	 * keys and modifiers of its methods.
+	 *
+	 * @param type the type binding
+	 * @return the fingerprint
+	 * @since 3.13
+	 */
+	private static String computeFingerprint(ITypeBinding type) {
+		StringBuffer buf= new StringBuffer();
+		ITypeBinding superclass= type.getSuperclass();
+		if (superclass != null)
+			buf.append(superclass.getKey());
+		ITypeBinding[] interfaces= type.getInterfaces();
+		for (int i= 0; i < interfaces.length; i++)
+			buf.append(',').append(interfaces[i].getKey());
+		IMethodBinding[] methods= type.getDeclaredMethods();
+		for (int i= 0; i < methods.length; i++)
+			buf.append(';').append(methods[i].getKey()).append(':').append(methods[i].getModifiers());
+		return buf.toString();
+	}
+
+	/**
+	 * Tells whether the given type or one of its supertypes is in the set of changed types.
+	 *
+	 * @param type the type binding
+	 * @param changedTypes the keys of the changed types
+	 * @param affectedTypes the already computed results by type key
+	 * @return <code>true</code> if the overridden methods of the methods in the type have to be
+	 *         recomputed
+	 * @since 3.13
+	 */
+	private static boolean isAffected(ITypeBinding type, Set<String> changedTypes, Map<String, Boolean> affectedTypes) {
+		if (type == null || changedTypes.isEmpty())
+			return false;
+		type= type.getTypeDeclaration();
+		String key= type.getKey();
+		Boolean affected= affectedTypes.get(key);
+		if (affected != null)
+			return affected.booleanValue();
+
+		affectedTypes.put(key, Boolean.FALSE); // guard against cycles
+		boolean result= changedTypes.contains(key) || isAffected(type.getSuperclass(), changedTypes, affectedTypes);
+		ITypeBinding[] interfaces= type.getInterfaces();
+		for (int i= 0; !result && i < interfaces.length; i++)
+			result= isAffected(interfaces[i], changedTypes, affectedTypes);
+		affectedTypes.put(key, Boolean.valueOf(result));
+		return result;
+	}
+
 	/**
 	 * Removes all override indicators from this manager's annotation model.
 	 */
@@ -240,6 +426,7 @@ class OverrideIndicatorManager implements IJavaReconcilingListener {
 					fAnnotationModel.removeAnnotation(fOverrideAnnotations[i]);
 			}
 			fOverrideAnnotations= null;
+			fAnnotationsByKey= new HashMap<>();
 		}
 	}
 
@@ -255,7 +442,7 @@ class OverrideIndicatorManager implements IJavaReconcilingListener {
 	 */
 	@Override
 	public void reconciled(CompilationUnit ast, boolean forced, IProgressMonitor progressMonitor) {
-		updateAnnotations(ast, progressMonitor);
+		updateAnnotations(ast, forced, progressMonitor);
 	}
 }
 
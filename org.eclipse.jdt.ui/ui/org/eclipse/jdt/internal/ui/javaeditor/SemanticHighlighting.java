@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -108,6 +108,18 @@ public abstract class SemanticHighlighting {
 		return false;
 	}
 
+	/**
+	 * Tells whether this semantic highlighting can consume literals at all. Implementors that
+	 * override {@link #consumesLiteral(SemanticToken)} must also override this method.
+	 *
+	 * @return <code>true</code> iff {@link #consumesLiteral(SemanticToken)} can return
+	 *         <code>true</code> for some token
+	 * @since 3.13
+	 */
+	public boolean consumesLiterals() {
+		return false;
+	}
+
 	private String getThemeColorKey() {
 		return JavaUI.ID_PLUGIN + "." + getPreferenceKey() + "Highlighting";  //$NON-NLS-1$//$NON-NLS-2$
 	}
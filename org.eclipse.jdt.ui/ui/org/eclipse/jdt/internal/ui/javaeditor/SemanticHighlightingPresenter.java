@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -272,6 +272,29 @@ public class SemanticHighlightingPresenter implements ITextPresentationListener,
 		}
 	}
 
+	/**
+	 * Adds the current positions contained in the given range to the given list.
+	 * <p>
+	 * NOTE: Called from background thread.
+	 * </p>
+	 *
+	 * @param list The list
+	 * @param offset The offset of the range
+	 * @param length The length of the range
+	 * @since 3.13
+	 */
+	public void addPositions(List<Position> list, int offset, int length) {
+		synchronized (fPositionLock) {
+			int end= offset + length;
+			for (int i= computeIndexAtOffset(fPositions, offset), n= fPositions.size(); i < n; i++) {
+				Position position= fPositions.get(i);
+				if (position.getOffset() + position.getLength() > end)
+					break;
+				list.add(position);
+			}
+		}
+	}
+
 	/**
 	 * Create a text presentation in the background.
 	 * <p>
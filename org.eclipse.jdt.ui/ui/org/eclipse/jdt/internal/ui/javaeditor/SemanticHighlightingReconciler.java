@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,6 +12,8 @@
 package org.eclipse.jdt.internal.ui.javaeditor;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 
 import org.eclipse.swt.widgets.Display;
@@ -22,7 +24,9 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 
+import org.eclipse.jface.text.DocumentEvent;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
 import org.eclipse.jface.text.ITextInputListener;
 import org.eclipse.jface.text.Position;
 import org.eclipse.jface.text.TextPresentation;
@@ -32,12 +36,20 @@ import org.eclipse.ui.IWorkbenchPartSite;
 
 import org.eclipse.jdt.core.ITypeRoot;
 import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.AbstractTypeDeclaration;
+import org.eclipse.jdt.core.dom.AnonymousClassDeclaration;
+import org.eclipse.jdt.core.dom.Block;
 import org.eclipse.jdt.core.dom.BooleanLiteral;
 import org.eclipse.jdt.core.dom.CharacterLiteral;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.dom.ConstructorInvocation;
 import org.eclipse.jdt.core.dom.Expression;
+import org.eclipse.jdt.core.dom.EnumConstantDeclaration;
+import org.eclipse.jdt.core.dom.EnumDeclaration;
 import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.Initializer;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.NodeFinder;
 import org.eclipse.jdt.core.dom.NumberLiteral;
 import org.eclipse.jdt.core.dom.SimpleName;
 import org.eclipse.jdt.core.dom.SuperConstructorInvocation;
@@ -105,14 +117,15 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 		}
 
 		private boolean visitLiteral(Expression node) {
+			if (fJobLiteralHighlightings.length == 0)
+				return false;
 			fToken.update(node);
-			for (int i= 0, n= fJobSemanticHighlightings.length; i < n; i++) {
-				SemanticHighlighting semanticHighlighting= fJobSemanticHighlightings[i];
-				if (fJobHighlightings[i].isEnabled() && semanticHighlighting.consumesLiteral(fToken)) {
+			for (int i= 0, n= fJobLiteralHighlightings.length; i < n; i++) {
+				if (fJobLiteralSemanticHighlightings[i].consumesLiteral(fToken)) {
 					int offset= node.getStartPosition();
 					int length= node.getLength();
 					if (offset > -1 && length > 0)
-						addPosition(offset, length, fJobHighlightings[i]);
+						addPosition(offset, length, fJobLiteralHighlightings[i]);
 					break;
 				}
 			}
@@ -163,14 +176,15 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 		 */
 		@Override
 		public boolean visit(SimpleName node) {
+			if (fJobNameHighlightings.length == 0)
+				return false;
 			fToken.update(node);
-			for (int i= 0, n= fJobSemanticHighlightings.length; i < n; i++) {
-				SemanticHighlighting semanticHighlighting= fJobSemanticHighlightings[i];
-				if (fJobHighlightings[i].isEnabled() && semanticHighlighting.consumes(fToken)) {
+			for (int i= 0, n= fJobNameHighlightings.length; i < n; i++) {
+				if (fJobNameSemanticHighlightings[i].consumes(fToken)) {
 					int offset= node.getStartPosition();
 					int length= node.getLength();
 					if (offset > -1 && length > 0)
-						addPosition(offset, length, fJobHighlightings[i]);
+						addPosition(offset, length, fJobNameHighlightings[i]);
 					break;
 				}
 			}
@@ -186,8 +200,9 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 		 */
 		private void addPosition(int offset, int length, Highlighting highlighting) {
 			boolean isExisting= false;
-			// TODO: use binary search
-			for (int i= 0, n= fRemovedPositions.size(); i < n; i++) {
+			// the removed positions are sorted by offset
+			int n= fRemovedPositions.size();
+			for (int i= getFirstIndexAtOffset(offset); i < n && fRemovedOffsets[i] == offset; i++) {
 				HighlightedPosition position= (HighlightedPosition) fRemovedPositions.get(i);
 				if (position == null)
 					continue;
@@ -211,8 +226,8 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 		 * @param length The range length
 		 */
 		private void retainPositions(int offset, int length) {
-			// TODO: use binary search
-			for (int i= 0, n= fRemovedPositions.size(); i < n; i++) {
+			int end= offset + length;
+			for (int i= getFirstIndexAtOffset(offset), n= fRemovedPositions.size(); i < n && fRemovedOffsets[i] < end; i++) {
 				HighlightedPosition position= (HighlightedPosition) fRemovedPositions.get(i);
 				if (position != null && position.isContained(offset, length)) {
 					fRemovedPositions.set(i, null);
@@ -220,6 +235,69 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 				}
 			}
 		}
+
+		/**
+		 * Returns the index of the first removed position whose offset was not smaller than the
+		 * given offset when the reconciling started.
+		 * @param offset the offset
+		 * @return the index
+		 */
+		private int getFirstIndexAtOffset(int offset) {
+			int low= 0;
+			int high= fRemovedPositions.size();
+			while (low < high) {
+				int mid= (low + high) >>> 1;
+				if (fRemovedOffsets[mid] < offset)
+					low= mid + 1;
+				else
+					high= mid;
+			}
+			return low;
+		}
+	}
+
+	/**
+	 * Tracks the document changes between two reconciles.
+	 * @since 3.13
+	 */
+	private class DocumentTracker implements IDocumentListener, ITextInputListener {
+
+		@Override
+		public void documentAboutToBeChanged(DocumentEvent event) {
+			// do nothing
+		}
+
+		@Override
+		public void documentChanged(DocumentEvent event) {
+			int offset= event.getOffset();
+			int replacedEnd= offset + event.getLength();
+			String text= event.getText();
+			int delta= (text == null ? 0 : text.length()) - event.getLength();
+			synchronized (fDirtyLock) {
+				if (fDirtyStart == -1) {
+					fDirtyStart= offset;
+					fDirtyEnd= replacedEnd + delta;
+				} else {
+					fDirtyStart= Math.min(fDirtyStart >= replacedEnd ? fDirtyStart + delta : fDirtyStart, offset);
+					int end= fDirtyEnd >= replacedEnd ? fDirtyEnd + delta : Math.max(fDirtyEnd, offset);
+					fDirtyEnd= Math.max(end, replacedEnd + delta);
+				}
+				fDirtyDelta+= delta;
+			}
+		}
+
+		@Override
+		public void inputDocumentAboutToBeChanged(IDocument oldInput, IDocument newInput) {
+			if (oldInput != null)
+				oldInput.removeDocumentListener(this);
+		}
+
+		@Override
+		public void inputDocumentChanged(IDocument oldInput, IDocument newInput) {
+			markAllDirty();
+			if (newInput != null)
+				newInput.addDocumentListener(this);
+		}
 	}
 
 	/** Position collector */
@@ -240,9 +318,46 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	private List<Position> fAddedPositions= new ArrayList<>();
 	/** Background job's removed highlighted positions */
 	private List<Position> fRemovedPositions= new ArrayList<>();
+	/** Offsets of the removed positions when the reconciling started */
+	private int[] fRemovedOffsets= new int[0];
 	/** Number of removed positions */
 	private int fNOfRemovedPositions;
 
+	/**
+	 * Lock for the dirty region.
+	 * @since 3.13
+	 */
+	private final Object fDirtyLock= new Object();
+	/**
+	 * Region changed since the last call to {@link #aboutToBeReconciled()}, in the coordinates
+	 * of the current document, or <code>-1</code> if no change has been tracked.
+	 * @since 3.13
+	 */
+	private int fDirtyStart= -1;
+	private int fDirtyEnd= -1;
+	/** Length difference of the document since the last call to {@link #aboutToBeReconciled()} */
+	private int fDirtyDelta;
+	/** <code>true</code> if the next reconcile has to consider the whole document */
+	private boolean fAllDirty= true;
+	/**
+	 * The dirty region taken in {@link #aboutToBeReconciled()} for the next reconcile,
+	 * as <code>{ start, end, delta }</code>, or <code>null</code> if the whole document
+	 * has to be reconciled.
+	 * @since 3.13
+	 */
+	private int[] fReconcileDirtyRegion;
+	/**
+	 * Ranges of the member declarations in the last reconciled AST, as
+	 * <code>{ start, length }</code> pairs, or <code>null</code>.
+	 * @since 3.13
+	 */
+	private int[] fMemberRanges;
+	/**
+	 * The document tracker.
+	 * @since 3.13
+	 */
+	private DocumentTracker fDocumentTracker;
+
 	/** Background job */
 	private Job fJob;
 	/** Background job lock */
@@ -265,6 +380,20 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	private SemanticHighlighting[] fJobSemanticHighlightings;
 	/** Highlightings - cache for background thread, only valid during {@link #reconciled(CompilationUnit, boolean, IProgressMonitor)} */
 	private Highlighting[] fJobHighlightings;
+	/**
+	 * Enabled semantic highlightings for names and their highlightings, only valid during
+	 * {@link #reconciled(CompilationUnit, boolean, IProgressMonitor)}.
+	 * @since 3.13
+	 */
+	private SemanticHighlighting[] fJobNameSemanticHighlightings;
+	private Highlighting[] fJobNameHighlightings;
+	/**
+	 * Enabled semantic highlightings for literals and their highlightings, only valid during
+	 * {@link #reconciled(CompilationUnit, boolean, IProgressMonitor)}.
+	 * @since 3.13
+	 */
+	private SemanticHighlighting[] fJobLiteralSemanticHighlightings;
+	private Highlighting[] fJobLiteralHighlightings;
 
 	/**
 	 * XXX Hack for performance reasons (should loop over fJobSemanticHighlightings can call consumes(*))
@@ -277,7 +406,17 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	 */
 	@Override
 	public void aboutToBeReconciled() {
-		// Do nothing
+		// changes after this point are not guaranteed to be in the reconciled AST
+		synchronized (fDirtyLock) {
+			if (fAllDirty || fDirtyStart == -1)
+				fReconcileDirtyRegion= null;
+			else
+				fReconcileDirtyRegion= new int[] { fDirtyStart, fDirtyEnd, fDirtyDelta };
+			fAllDirty= false;
+			fDirtyStart= -1;
+			fDirtyEnd= -1;
+			fDirtyDelta= 0;
+		}
 	}
 
 	/*
@@ -285,17 +424,40 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	 */
 	@Override
 	public void reconciled(CompilationUnit ast, boolean forced, IProgressMonitor progressMonitor) {
+		int[] dirtyRegion;
+		synchronized (fDirtyLock) {
+			dirtyRegion= fReconcileDirtyRegion;
+			fReconcileDirtyRegion= null;
+		}
+		// forced reconciles are triggered by changes outside the editor
+		reconcile(ast, forced ? null : dirtyRegion, true, progressMonitor);
+	}
+
+	/**
+	 * Reconciles the semantic highlighting positions with the given AST.
+	 *
+	 * @param ast the AST
+	 * @param dirtyRegion the region changed since the last reconcile as <code>{ start, end, delta }</code>,
+	 *            or <code>null</code> if the whole AST has to be reconciled
+	 * @param trackMembers <code>true</code> if the member ranges of the AST can be used for the
+	 *            next incremental reconcile
+	 * @param progressMonitor the progress monitor
+	 * @since 3.13
+	 */
+	private void reconcile(CompilationUnit ast, int[] dirtyRegion, boolean trackMembers, IProgressMonitor progressMonitor) {
 		// ensure at most one thread can be reconciling at any time
 		synchronized (fReconcileLock) {
-			if (fIsReconciling)
+			if (fIsReconciling) {
+				markAllDirty();
 				return;
-			else
+			} else
 				fIsReconciling= true;
 		}
 		fJobPresenter= fPresenter;
 		fJobSemanticHighlightings= fSemanticHighlightings;
 		fJobHighlightings= fHighlightings;
 
+		boolean completed= false;
 		try {
 			if (fJobPresenter == null || fJobSemanticHighlightings == null || fJobHighlightings == null)
 				return;
@@ -305,21 +467,19 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 			if (ast == null || fJobPresenter.isCanceled())
 				return;
 
-			ASTNode[] subtrees= getAffectedSubtrees(ast);
+			int[] memberRanges= trackMembers ? computeMemberRanges(ast) : null;
+			ASTNode[] subtrees= getAffectedSubtrees(ast, dirtyRegion, memberRanges);
 			if (subtrees.length == 0)
 				return;
 
-			startReconcilingPositions();
+			boolean incremental= subtrees[0] != ast;
+			if (incremental)
+				startReconcilingPositions(subtrees[0].getStartPosition(), subtrees[0].getLength());
+			else
+				startReconcilingPositions();
 
 			if (!fJobPresenter.isCanceled()) {
-				fJobDeprecatedMemberHighlighting= null;
-				for (int i= 0, n= fJobSemanticHighlightings.length; i < n; i++) {
-					SemanticHighlighting semanticHighlighting= fJobSemanticHighlightings[i];
-					if (fJobHighlightings[i].isEnabled() && semanticHighlighting instanceof DeprecatedMemberHighlighting) {
-						fJobDeprecatedMemberHighlighting= fJobHighlightings[i];
-						break;
-					}
-				}
+				initializeJobHighlightings();
 				reconcilePositions(subtrees);
 			}
 
@@ -327,14 +487,25 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 			if (!fJobPresenter.isCanceled())
 				textPresentation= fJobPresenter.createPresentation(fAddedPositions, fRemovedPositions);
 
-			if (!fJobPresenter.isCanceled())
+			if (!fJobPresenter.isCanceled()) {
 				updatePresentation(textPresentation, fAddedPositions, fRemovedPositions);
+				fMemberRanges= memberRanges;
+				completed= true;
+			}
 
 			stopReconcilingPositions();
 		} finally {
+			if (!completed) {
+				fMemberRanges= null;
+				markAllDirty();
+			}
 			fJobPresenter= null;
 			fJobSemanticHighlightings= null;
 			fJobHighlightings= null;
+			fJobNameSemanticHighlightings= null;
+			fJobNameHighlightings= null;
+			fJobLiteralSemanticHighlightings= null;
+			fJobLiteralHighlightings= null;
 			fJobDeprecatedMemberHighlighting= null;
 			synchronized (fReconcileLock) {
 				fIsReconciling= false;
@@ -343,12 +514,167 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	}
 
 	/**
-	 * @param node Root node
-	 * @return Array of subtrees that may be affected by past document changes
+	 * Splits the enabled highlightings into the ones for names and the ones for literals,
+	 * such that the position collector does not have to check them for every token.
+	 *
+	 * @since 3.13
+	 */
+	private void initializeJobHighlightings() {
+		List<SemanticHighlighting> nameSemanticHighlightings= new ArrayList<>(fJobSemanticHighlightings.length);
+		List<Highlighting> nameHighlightings= new ArrayList<>(fJobSemanticHighlightings.length);
+		List<SemanticHighlighting> literalSemanticHighlightings= new ArrayList<>();
+		List<Highlighting> literalHighlightings= new ArrayList<>();
+		fJobDeprecatedMemberHighlighting= null;
+		for (int i= 0, n= fJobSemanticHighlightings.length; i < n; i++) {
+			SemanticHighlighting semanticHighlighting= fJobSemanticHighlightings[i];
+			Highlighting highlighting= fJobHighlightings[i];
+			if (!highlighting.isEnabled())
+				continue;
+			nameSemanticHighlightings.add(semanticHighlighting);
+			nameHighlightings.add(highlighting);
+			if (semanticHighlighting.consumesLiterals()) {
+				literalSemanticHighlightings.add(semanticHighlighting);
+				literalHighlightings.add(highlighting);
+			}
+			if (fJobDeprecatedMemberHighlighting == null && semanticHighlighting instanceof DeprecatedMemberHighlighting)
+				fJobDeprecatedMemberHighlighting= highlighting;
+		}
+		fJobNameSemanticHighlightings= nameSemanticHighlightings.toArray(new SemanticHighlighting[nameSemanticHighlightings.size()]);
+		fJobNameHighlightings= nameHighlightings.toArray(new Highlighting[nameHighlightings.size()]);
+		fJobLiteralSemanticHighlightings= literalSemanticHighlightings.toArray(new SemanticHighlighting[literalSemanticHighlightings.size()]);
+		fJobLiteralHighlightings= literalHighlightings.toArray(new Highlighting[literalHighlightings.size()]);
+	}
+
+	/**
+	 * Returns the subtrees that may be affected by the document changes. If all changes are inside
+	 * the body of a single method or initializer and the other members have only been moved, this
+	 * is the body, otherwise it is the whole AST.
+	 *
+	 * @param ast the AST
+	 * @param dirtyRegion the changed region as <code>{ start, end, delta }</code> or <code>null</code>
+	 * @param memberRanges the member ranges of the AST or <code>null</code>
+	 * @return array of subtrees that may be affected by past document changes
+	 */
+	private ASTNode[] getAffectedSubtrees(CompilationUnit ast, int[] dirtyRegion, int[] memberRanges) {
+		if (dirtyRegion == null || memberRanges == null || fMemberRanges == null)
+			return new ASTNode[] { ast };
+
+		int start= dirtyRegion[0];
+		int end= dirtyRegion[1];
+		int delta= dirtyRegion[2];
+		Block body= findEnclosingBody(ast, start, end);
+		if (body == null || !isMovedOnly(fMemberRanges, memberRanges, start, end, delta))
+			return new ASTNode[] { ast };
+		return new ASTNode[] { body };
+	}
+
+	/**
+	 * Returns the innermost method or initializer body that strictly encloses the given range.
+	 *
+	 * @param ast the AST
+	 * @param start the start of the range
+	 * @param end the end of the range
+	 * @return the body or <code>null</code>
+	 * @since 3.13
+	 */
+	private static Block findEnclosingBody(CompilationUnit ast, int start, int end) {
+		ASTNode node= NodeFinder.perform(ast, start, end - start);
+		while (node != null) {
+			if (node instanceof Block) {
+				ASTNode parent= node.getParent();
+				if (parent instanceof MethodDeclaration || parent instanceof Initializer) {
+					// the braces of the body must not have been touched
+					if (node.getStartPosition() < start && end < node.getStartPosition() + node.getLength() - 1
+							&& (node.getFlags() & ASTNode.MALFORMED) == 0)
+						return (Block) node;
+					return null;
+				}
+			}
+			node= node.getParent();
+		}
+		return null;
+	}
+
+	/**
+	 * Tells whether the members of the new AST are the members of the old AST, where the members
+	 * after the changed region are moved by the given delta and the members around the changed
+	 * region grew by it.
+	 *
+	 * @param oldRanges the member ranges of the previous AST
+	 * @param newRanges the member ranges of the new AST
+	 * @param start the start of the changed region
+	 * @param end the end of the changed region
+	 * @param delta the length difference
+	 * @return <code>true</code> if only the members around the changed region have been modified
+	 * @since 3.13
 	 */
-	private ASTNode[] getAffectedSubtrees(ASTNode node) {
-		// TODO: only return nodes which are affected by document changes - would require an 'anchor' concept for taking distant effects into account
-		return new ASTNode[] { node };
+	private static boolean isMovedOnly(int[] oldRanges, int[] newRanges, int start, int end, int delta) {
+		if (oldRanges.length != newRanges.length)
+			return false;
+		for (int i= 0; i < newRanges.length; i+= 2) {
+			int oldOffset= oldRanges[i], oldLength= oldRanges[i + 1];
+			int newOffset= newRanges[i], newLength= newRanges[i + 1];
+			if (newOffset + newLength <= start) {
+				if (oldOffset != newOffset || oldLength != newLength)
+					return false;
+			} else if (newOffset >= end) {
+				if (oldOffset + delta != newOffset || oldLength != newLength)
+					return false;
+			} else if (newOffset < start && newOffset + newLength > end) {
+				if (oldOffset != newOffset || oldLength + delta != newLength)
+					return false;
+			} else {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Computes the ranges of all member declarations of the given AST, including the members
+	 * of member types.
+	 *
+	 * @param ast the AST
+	 * @return the ranges as <code>{ start, length }</code> pairs in the order of the AST
+	 * @since 3.13
+	 */
+	private static int[] computeMemberRanges(CompilationUnit ast) {
+		List<ASTNode> members= new ArrayList<>();
+		collectMembers(ast.types(), members);
+		int[] ranges= new int[2 * members.size()];
+		for (int i= 0, n= members.size(); i < n; i++) {
+			ASTNode member= members.get(i);
+			ranges[2 * i]= member.getStartPosition();
+			ranges[2 * i + 1]= member.getLength();
+		}
+		return ranges;
+	}
+
+	private static void collectMembers(List<?> declarations, List<ASTNode> members) {
+		for (Iterator<?> iter= declarations.iterator(); iter.hasNext();) {
+			ASTNode declaration= (ASTNode) iter.next();
+			members.add(declaration);
+			if (declaration instanceof EnumDeclaration)
+				collectMembers(((EnumDeclaration) declaration).enumConstants(), members);
+			if (declaration instanceof AbstractTypeDeclaration) {
+				collectMembers(((AbstractTypeDeclaration) declaration).bodyDeclarations(), members);
+			} else if (declaration instanceof EnumConstantDeclaration) {
+				AnonymousClassDeclaration anonymous= ((EnumConstantDeclaration) declaration).getAnonymousClassDeclaration();
+				if (anonymous != null)
+					collectMembers(anonymous.bodyDeclarations(), members);
+			}
+		}
+	}
+
+	/**
+	 * Marks the whole document as changed, such that the next reconcile is not incremental.
+	 *
+	 * @since 3.13
+	 */
+	private void markAllDirty() {
+		synchronized (fDirtyLock) {
+			fAllDirty= true;
+		}
 	}
 
 	/**
@@ -357,18 +683,60 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	private void startReconcilingPositions() {
 		fJobPresenter.addAllPositions(fRemovedPositions);
 		fNOfRemovedPositions= fRemovedPositions.size();
+		initializeRemovedOffsets();
 	}
 
 	/**
-	 * Reconcile positions based on the AST subtrees
+	 * Start reconciling the positions contained in the given range.
 	 *
-	 * @param subtrees the AST subtrees
+	 * @param offset the offset of the range
+	 * @param length the length of the range
+	 * @since 3.13
 	 */
-	private void reconcilePositions(ASTNode[] subtrees) {
-		// FIXME: remove positions not covered by subtrees
+	private void startReconcilingPositions(int offset, int length) {
+		fJobPresenter.addPositions(fRemovedPositions, offset, length);
+		fNOfRemovedPositions= fRemovedPositions.size();
+		initializeRemovedOffsets();
+	}
 
+	/**
+	 * Takes a snapshot of the offsets of the removed positions for the binary search in
+	 * {@link PositionCollector}.
+	 *
+	 * @since 3.13
+	 */
+	private void initializeRemovedOffsets() {
+		int n= fRemovedPositions.size();
+		if (fRemovedOffsets.length < n)
+			fRemovedOffsets= new int[Math.max(n, 2 * fRemovedOffsets.length)];
+		boolean sorted= true;
+		for (int i= 0; i < n; i++) {
+			fRemovedOffsets[i]= fRemovedPositions.get(i).getOffset();
+			if (i > 0 && fRemovedOffsets[i] < fRemovedOffsets[i - 1])
+				sorted= false;
+		}
+		if (sorted)
+			return;
 
+		// positions have been moved concurrently, sort them by their snapshot offsets
+		long[] keys= new long[n];
+		for (int i= 0; i < n; i++)
+			keys[i]= ((long) fRemovedOffsets[i] << 32) | i;
+		Arrays.sort(keys);
+		List<Position> positions= new ArrayList<>(n);
+		for (int i= 0; i < n; i++) {
+			positions.add(fRemovedPositions.get((int) keys[i]));
+			fRemovedOffsets[i]= (int) (keys[i] >> 32);
+		}
+		fRemovedPositions= positions;
+	}
 
+	/**
+	 * Reconcile positions based on the AST subtrees
+	 *
+	 * @param subtrees the AST subtrees
+	 */
+	private void reconcilePositions(ASTNode[] subtrees) {
 		for (int i= 0, n= subtrees.length; i < n; i++)
 			subtrees[i].accept(fCollector);
 		List<Position> oldPositions= fRemovedPositions;
@@ -437,6 +805,13 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 		fEditor= editor;
 		fSourceViewer= sourceViewer;
 
+		fDocumentTracker= new DocumentTracker();
+		fSourceViewer.addTextInputListener(fDocumentTracker);
+		IDocument document= fSourceViewer.getDocument();
+		if (document != null)
+			document.addDocumentListener(fDocumentTracker);
+		markAllDirty();
+
 		if (fEditor instanceof CompilationUnitEditor) {
 			((CompilationUnitEditor)fEditor).addReconcileListener(this);
 		} else if (fEditor == null) {
@@ -460,7 +835,16 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 			fEditor= null;
 		}
 
+		if (fDocumentTracker != null) {
+			fSourceViewer.removeTextInputListener(fDocumentTracker);
+			IDocument document= fSourceViewer.getDocument();
+			if (document != null)
+				document.removeDocumentListener(fDocumentTracker);
+			fDocumentTracker= null;
+		}
+
 		fSourceViewer= null;
+		fMemberRanges= null;
 		fSemanticHighlightings= null;
 		fHighlightings= null;
 		fPresenter= null;
@@ -494,7 +878,7 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 						if (monitor.isCanceled())
 							return Status.CANCEL_STATUS;
 						CompilationUnit ast= SharedASTProvider.getAST(element, SharedASTProvider.WAIT_YES, monitor);
-						reconciled(ast, false, monitor);
+						reconcile(ast, null, false, monitor);
 						synchronized (fJobLock) {
 							// allow the job to be gc'ed
 							if (fJob == this)
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,7 +12,6 @@ package org.eclipse.jdt.internal.ui.packageview;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Iterator;
 import java.util.List;
 
 import org.eclipse.swt.widgets.Control;
@@ -83,10 +82,19 @@ public class PackageExplorerContentProvider extends StandardJavaElementContentPr
 	private boolean fShowLibrariesNode;
 	private boolean fFoldPackages;
 
+	/**
+	 * Default time in milliseconds that a single run of the update job may spend in the display
+	 * thread before the remaining updates are deferred to the next run.
+	 */
+	private static final long DEFAULT_UPDATE_FRAME_BUDGET= 100;
+
 	private Collection<Runnable> fPendingUpdates;
 
 	private UIJob fUpdateJob;
 
+	private PackageExplorerUpdateScheduler fUpdateScheduler;
+	private long fUpdateFrameBudget;
+
 	/**
 	 * Creates a new content provider for Java elements.
 	 * @param provideMembers if set, members of compilation units and class files are shown
@@ -100,6 +108,8 @@ public class PackageExplorerContentProvider extends StandardJavaElementContentPr
 		JavaPlugin.getDefault().getPreferenceStore().addPropertyChangeListener(this);
 
 		fUpdateJob= null;
+		fUpdateScheduler= new PackageExplorerUpdateScheduler(this, !(this instanceof IMultiElementTreeContentProvider));
+		fUpdateFrameBudget= DEFAULT_UPDATE_FRAME_BUDGET;
 	}
 
 	private boolean arePackagesFoldedInHierarchicalLayout(){
@@ -159,8 +169,8 @@ public class PackageExplorerContentProvider extends StandardJavaElementContentPr
 					TreeViewer viewer= fViewer;
 					if (viewer != null && viewer.isBusy()) {
 						schedule(100); // reschedule when viewer is busy: bug 184991
-					} else {
-						runPendingUpdates();
+					} else if (runPendingUpdates(fUpdateFrameBudget)) {
+						schedule(); // frame budget exhausted, give the display thread a chance to process events
 					}
 					return Status.OK_STATUS;
 				}
@@ -170,10 +180,33 @@ public class PackageExplorerContentProvider extends StandardJavaElementContentPr
 		fUpdateJob.schedule();
 	}
 
+	/**
+	 * Sets the time that a single run of the update job may spend in the display thread. Updates
+	 * that don't fit into the budget are run the next time the update job runs.
+	 *
+	 * @param frameBudget the budget in milliseconds, or a value <code>&lt;= 0</code> to run all
+	 *  pending updates at once
+	 */
+	public void setUpdateFrameBudget(long frameBudget) {
+		fUpdateFrameBudget= frameBudget;
+	}
+
 	/**
 	 * Run all of the runnables that are the widget updates. Must be called in the display thread.
 	 */
 	public void runPendingUpdates() {
+		runPendingUpdates(0);
+	}
+
+	/**
+	 * Runs the pending widget updates until the frame budget is exhausted. Must be called in the
+	 * display thread.
+	 *
+	 * @param frameBudget the time in milliseconds after which no further update is started, or a
+	 *  value <code>&lt;= 0</code> to run all pending updates
+	 * @return <code>true</code> if there are updates left
+	 */
+	private boolean runPendingUpdates(long frameBudget) {
 		Collection<Runnable> pendingUpdates;
 		synchronized (this) {
 			pendingUpdates= fPendingUpdates;
@@ -182,16 +215,22 @@ public class PackageExplorerContentProvider extends StandardJavaElementContentPr
 		if (pendingUpdates != null && fViewer != null) {
 			Control control = fViewer.getControl();
 			if (control != null && !control.isDisposed()) {
-				runUpdates(pendingUpdates);
+				List<Runnable> remaining= PackageExplorerUpdateScheduler.run(fUpdateScheduler.coalesce(pendingUpdates, fInput), frameBudget);
+				if (remaining != null) {
+					synchronized (this) {
+						if (fPendingUpdates != null)
+							remaining.addAll(fPendingUpdates);
+						fPendingUpdates= remaining;
+					}
+					return true;
+				}
 			}
 		}
+		return false;
 	}
 
 	private void runUpdates(Collection<Runnable> runnables) {
-		Iterator<Runnable> runnableIterator = runnables.iterator();
-		while (runnableIterator.hasNext()){
-			runnableIterator.next().run();
-		}
+		PackageExplorerUpdateScheduler.run(fUpdateScheduler.coalesce(runnables, fInput), 0);
 	}
 
 
@@ -811,7 +850,7 @@ public class PackageExplorerContentProvider extends StandardJavaElementContentPr
 	 * @param runnables the resulting view changes as runnables (type {@link Runnable})
 	 */
 	 private void postUpdateIcon(final IJavaElement element, Collection<Runnable> runnables) {
-		 runnables.add(new Runnable() {
+		 runnables.add(new PackageExplorerUpdateScheduler.ElementUpdate(element, true, true) {
 			@Override
 			public void run() {
 				// 1GF87WR: ITPUI:ALL - SWTEx + NPE closing a workbench window.
@@ -929,22 +968,11 @@ public class PackageExplorerContentProvider extends StandardJavaElementContentPr
 	}
 
 	protected void postRefresh(final List<Object> toRefresh, final boolean updateLabels, Collection<Runnable> runnables) {
-		runnables.add(new Runnable() {
-			@Override
-			public void run() {
-				Object[] elements= toRefresh.toArray();
-				for (int i= 0; i < elements.length; i++) {
-					Object element= elements[i];
-					if (element == null || fViewer.testFindItems(element).length > 0) {
-						fViewer.refresh(element, updateLabels);
-					}
-				}
-			}
-		});
+		runnables.add(new ViewerRefresh(toRefresh, updateLabels));
 	}
 
 	protected void postAdd(final Object parent, final Object element, Collection<Runnable> runnables) {
-		runnables.add(new Runnable() {
+		runnables.add(new PackageExplorerUpdateScheduler.ElementUpdate(parent, true, false) {
 			@Override
 			public void run() {
 				Widget[] items= fViewer.testFindItems(element);
@@ -963,7 +991,7 @@ public class PackageExplorerContentProvider extends StandardJavaElementContentPr
 	}
 
 	protected void postRemove(final Object element, Collection<Runnable> runnables) {
-		runnables.add(new Runnable() {
+		runnables.add(new PackageExplorerUpdateScheduler.ElementUpdate(element, false, false) {
 			@Override
 			public void run() {
 				if (fViewer.testFindItems(element).length > 0) {
@@ -985,6 +1013,29 @@ public class PackageExplorerContentProvider extends StandardJavaElementContentPr
 		});
 	}
 
+	private final class ViewerRefresh extends PackageExplorerUpdateScheduler.RefreshUpdate {
+
+		ViewerRefresh(List<Object> toRefresh, boolean updateLabels) {
+			super(toRefresh, updateLabels);
+		}
+
+		@Override
+		public void run() {
+			Object[] elements= fElements.toArray();
+			for (int i= 0; i < elements.length; i++) {
+				Object element= elements[i];
+				if (element == null || fViewer.testFindItems(element).length > 0) {
+					fViewer.refresh(element, fUpdateLabels);
+				}
+			}
+		}
+
+		@Override
+		protected PackageExplorerUpdateScheduler.RefreshUpdate copy(List<Object> elements, boolean updateLabels) {
+			return new ViewerRefresh(elements, updateLabels);
+		}
+	}
+
 
 	/*
 	 * @see org.eclipse.jface.util.IPropertyChangeListener#propertyChange(org.eclipse.jface.util.PropertyChangeEvent)
@@ -0,0 +1,230 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.packageview;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jface.viewers.ITreeContentProvider;
+
+/**
+ * Coalesces and time-slices the viewer updates posted by the {@link PackageExplorerContentProvider}.
+ * <p>
+ * Updates that are typed as {@link RefreshUpdate} or {@link ElementUpdate} can be merged: a refresh
+ * of an element makes refreshes, adds, removes and label updates of its descendants obsolete,
+ * since the refresh reads the children from the model when it runs. All other runnables are
+ * kept in their original order. Must only be used in the display thread.
+ * </p>
+ *
+ * @since 3.13
+ */
+public final class PackageExplorerUpdateScheduler {
+
+	/**
+	 * Refreshes a list of elements. A <code>null</code> element stands for the whole viewer.
+	 */
+	public abstract static class RefreshUpdate implements Runnable {
+
+		protected final List<Object> fElements;
+		protected final boolean fUpdateLabels;
+
+		protected RefreshUpdate(List<Object> elements, boolean updateLabels) {
+			fElements= elements;
+			fUpdateLabels= updateLabels;
+		}
+
+		/**
+		 * Creates a refresh of the given elements that behaves like this update.
+		 *
+		 * @param elements the elements to refresh
+		 * @param updateLabels whether the labels of existing elements have to be updated
+		 * @return the new update
+		 */
+		protected abstract RefreshUpdate copy(List<Object> elements, boolean updateLabels);
+	}
+
+	/**
+	 * Changes the tree item of a single element, or the children of a single element.
+	 */
+	public abstract static class ElementUpdate implements Runnable {
+
+		final Object fTarget;
+		final boolean fTargetIncluded;
+		final boolean fNeedsLabels;
+
+		/**
+		 * @param target the element whose item or children are changed
+		 * @param targetIncluded <code>true</code> if a refresh of the target itself makes this update
+		 *  obsolete, <code>false</code> if only a refresh of an ancestor does
+		 * @param needsLabels <code>true</code> if the update is only obsolete if the covering refresh
+		 *  also updates labels
+		 */
+		protected ElementUpdate(Object target, boolean targetIncluded, boolean needsLabels) {
+			fTarget= target;
+			fTargetIncluded= targetIncluded;
+			fNeedsLabels= needsLabels;
+		}
+	}
+
+	private static final int MAX_ANCESTOR_DEPTH= 64;
+
+	private final ITreeContentProvider fContentProvider;
+	private final boolean fCoalesceDescendants;
+
+	/** Maps an element to its refresh state: {@link Boolean#TRUE} if labels are updated, {@link Boolean#FALSE} otherwise. */
+	private Map<Object, Boolean> fRefreshed;
+	private Map<Object, Object> fParents;
+	private boolean fRefreshAll;
+	private boolean fRefreshAllLabels;
+
+	/**
+	 * @param contentProvider the content provider used to find the ancestors of an element
+	 * @param coalesceDescendants <code>true</code> if updates of descendants of refreshed elements
+	 *  can be dropped. Must be <code>false</code> if an element can appear under several parents.
+	 */
+	public PackageExplorerUpdateScheduler(ITreeContentProvider contentProvider, boolean coalesceDescendants) {
+		fContentProvider= contentProvider;
+		fCoalesceDescendants= coalesceDescendants;
+	}
+
+	/**
+	 * Returns the given updates without the ones that are covered by a refresh.
+	 *
+	 * @param updates the updates in the order they have been posted
+	 * @param input the viewer input, a refresh of which covers all other updates
+	 * @return the remaining updates, in their original order
+	 */
+	public List<Runnable> coalesce(Collection<Runnable> updates, Object input) {
+		fRefreshed= new HashMap<>();
+		fParents= new HashMap<>();
+		fRefreshAll= false;
+		fRefreshAllLabels= false;
+		try {
+			for (Iterator<Runnable> iter= updates.iterator(); iter.hasNext();) {
+				Runnable update= iter.next();
+				if (update instanceof RefreshUpdate) {
+					RefreshUpdate refresh= (RefreshUpdate) update;
+					for (Iterator<Object> elements= refresh.fElements.iterator(); elements.hasNext();) {
+						Object element= elements.next();
+						if (element == null || element.equals(input)) {
+							fRefreshAll= true;
+							fRefreshAllLabels|= refresh.fUpdateLabels;
+						} else {
+							Boolean labels= fRefreshed.get(element);
+							fRefreshed.put(element, Boolean.valueOf(refresh.fUpdateLabels || (labels != null && labels.booleanValue())));
+						}
+					}
+				}
+			}
+
+			List<Runnable> result= new ArrayList<>(updates.size());
+			boolean emittedAll= false;
+			Set<Object> emitted= new HashSet<>();
+			for (Iterator<Runnable> iter= updates.iterator(); iter.hasNext();) {
+				Runnable update= iter.next();
+				if (update instanceof RefreshUpdate) {
+					RefreshUpdate refresh= (RefreshUpdate) update;
+					List<Object> remaining= new ArrayList<>(refresh.fElements.size());
+					boolean updateLabels= false;
+					for (Iterator<Object> elements= refresh.fElements.iterator(); elements.hasNext();) {
+						Object element= elements.next();
+						if (element == null || element.equals(input)) {
+							if (!emittedAll) {
+								emittedAll= true;
+								remaining.add(element);
+								updateLabels|= fRefreshAllLabels;
+							}
+						} else if (!emitted.contains(element) && !isCovered(element, false, fRefreshed.get(element).booleanValue())) {
+							emitted.add(element);
+							remaining.add(element);
+							updateLabels|= fRefreshed.get(element).booleanValue();
+						}
+					}
+					if (remaining.size() == refresh.fElements.size() && updateLabels == refresh.fUpdateLabels) {
+						result.add(refresh);
+					} else if (!remaining.isEmpty()) {
+						result.add(refresh.copy(remaining, updateLabels));
+					}
+				} else if (update instanceof ElementUpdate) {
+					ElementUpdate elementUpdate= (ElementUpdate) update;
+					if (!isCovered(elementUpdate.fTarget, elementUpdate.fTargetIncluded, elementUpdate.fNeedsLabels))
+						result.add(update);
+				} else {
+					result.add(update);
+				}
+			}
+			return result;
+		} finally {
+			fRefreshed= null;
+			fParents= null;
+		}
+	}
+
+	/**
+	 * Runs the given updates until the frame budget is exhausted.
+	 *
+	 * @param updates the updates to run
+	 * @param frameBudget the time in milliseconds after which no further update is started, or
+	 *  a value <code>&lt;= 0</code> to run all updates
+	 * @return the updates that have not been run, in their original order, or <code>null</code>
+	 *  if all updates have been run
+	 */
+	public static List<Runnable> run(List<Runnable> updates, long frameBudget) {
+		long deadline= frameBudget > 0 ? System.currentTimeMillis() + frameBudget : Long.MAX_VALUE;
+		int size= updates.size();
+		for (int i= 0; i < size; i++) {
+			if (i > 0 && System.currentTimeMillis() >= deadline)
+				return new ArrayList<>(updates.subList(i, size));
+			updates.get(i).run();
+		}
+		return null;
+	}
+
+	private boolean isCovered(Object element, boolean elementIncluded, boolean needsLabels) {
+		if (fRefreshAll && (fRefreshAllLabels || !needsLabels))
+			return true;
+		if (element == null)
+			return false;
+		if (elementIncluded && isRefreshed(element, needsLabels))
+			return true;
+		if (!fCoalesceDescendants)
+			return false;
+
+		Object current= element;
+		for (int depth= 0; depth < MAX_ANCESTOR_DEPTH; depth++) {
+			current= getParent(current);
+			if (current == null)
+				return false;
+			if (isRefreshed(current, needsLabels))
+				return true;
+		}
+		return false;
+	}
+
+	private boolean isRefreshed(Object element, boolean needsLabels) {
+		Boolean labels= fRefreshed.get(element);
+		return labels != null && (labels.booleanValue() || !needsLabels);
+	}
+
+	private Object getParent(Object element) {
+		if (fParents.containsKey(element))
+			return fParents.get(element);
+		Object parent= fContentProvider.getParent(element);
+		fParents.put(element, parent);
+		return parent;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -42,39 +42,57 @@ public class JavaElementLine {
 	 * @throws CoreException thrown when accessing of the buffer failed
 	 */
 	public JavaElementLine(ITypeRoot element, int lineNumber, int lineStartOffset) throws CoreException {
+		this(element, getContents(element), lineNumber, lineStartOffset);
+	}
+
+	private JavaElementLine(ITypeRoot element, char[] contents, int lineNumber, int lineStartOffset) {
+		this(element, contents, lineNumber, lineStartOffset, contents.length);
+	}
+
+	/**
+	 * Creates a line from the contents of the element. Only the text of the line is kept, not the
+	 * contents.
+	 *
+	 * @param element either an ICompilationUnit or an IClassFile
+	 * @param contents the contents of the element
+	 * @param lineNumber the line number, starting at 0
+	 * @param lineStartOffset the start offset of the line
+	 * @param lineEndOffset the end offset of the line, may include the line delimiter
+	 */
+	JavaElementLine(ITypeRoot element, char[] contents, int lineNumber, int lineStartOffset, int lineEndOffset) {
 		fElement= element;
 		fFlags= 0;
 
-		IBuffer buffer= element.getBuffer();
-		if (buffer == null) {
-			throw new CoreException(new Status(IStatus.ERROR, JavaUI.ID_PLUGIN, Messages.format( SearchMessages.JavaElementLine_error_nobuffer, BasicElementLabels.getFileName(element))));
-		}
-
-		int length= buffer.getLength();
 		int i= lineStartOffset;
-
-		char ch= buffer.getChar(i);
-		while (lineStartOffset < length && IndentManipulation.isIndentChar(ch)) {
-			ch= buffer.getChar(++i);
+		while (i < lineEndOffset && IndentManipulation.isIndentChar(contents[i])) {
+			i++;
 		}
 		fLineStartOffset= i;
 
-		StringBuffer buf= new StringBuffer();
-
-		while (i < length && !IndentManipulation.isLineDelimiterChar(ch)) {
+		StringBuffer buf= new StringBuffer(lineEndOffset - i);
+		for (; i < lineEndOffset; i++) {
+			char ch= contents[i];
+			if (IndentManipulation.isLineDelimiterChar(ch))
+				break;
 			if (Character.isISOControl(ch)) {
 				buf.append(' ');
 			} else {
 				buf.append(ch);
 			}
-			i++;
-			if (i < length)
-				ch= buffer.getChar(i);
 		}
 		fLineContents= buf.toString();
 		fLineNumber= lineNumber;
 	}
 
+	private static char[] getContents(ITypeRoot element) throws CoreException {
+		IBuffer buffer= element.getBuffer();
+		if (buffer == null) {
+			throw new CoreException(new Status(IStatus.ERROR, JavaUI.ID_PLUGIN, Messages.format( SearchMessages.JavaElementLine_error_nobuffer, BasicElementLabels.getFileName(element))));
+		}
+		char[] contents= buffer.getCharacters();
+		return contents != null ? contents : new char[0];
+	}
+
 	public void setFlags(int flags) {
 		fFlags= flags;
 	}
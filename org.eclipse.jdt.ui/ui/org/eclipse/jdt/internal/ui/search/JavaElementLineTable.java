@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.search;
+
+import java.util.Arrays;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+
+import org.eclipse.jdt.core.IBuffer;
+import org.eclipse.jdt.core.ITypeRoot;
+
+import org.eclipse.jdt.internal.corext.util.Messages;
+
+import org.eclipse.jdt.ui.JavaUI;
+
+import org.eclipse.jdt.internal.core.manipulation.util.BasicElementLabels;
+
+/**
+ * The lines of a type root, computed with a single pass over its buffer. The
+ * {@link JavaElementLine}s are created on demand and shared by all offsets on the same line.
+ */
+final class JavaElementLineTable {
+
+	private final ITypeRoot fElement;
+	private final char[] fContents;
+	/** Start offsets of the lines, in ascending order. */
+	private final int[] fLineStarts;
+	private final int fLineCount;
+	private final JavaElementLine[] fLines;
+
+	/**
+	 * @param element either an ICompilationUnit or an IClassFile
+	 * @throws CoreException thrown when accessing of the buffer failed
+	 */
+	public JavaElementLineTable(ITypeRoot element) throws CoreException {
+		fElement= element;
+		IBuffer buffer= element.getBuffer();
+		if (buffer == null) {
+			throw new CoreException(new Status(IStatus.ERROR, JavaUI.ID_PLUGIN, Messages.format(SearchMessages.JavaElementLine_error_nobuffer, BasicElementLabels.getFileName(element))));
+		}
+		char[] contents= buffer.getCharacters();
+		fContents= contents != null ? contents : new char[0];
+
+		int[] lineStarts= new int[64];
+		int lineCount= 1;
+		for (int i= 0; i < fContents.length; i++) {
+			char ch= fContents[i];
+			if (ch == '\r' && i + 1 < fContents.length && fContents[i + 1] == '\n')
+				i++;
+			else if (ch != '\r' && ch != '\n')
+				continue;
+			if (lineCount == lineStarts.length)
+				lineStarts= Arrays.copyOf(lineStarts, 2 * lineCount);
+			lineStarts[lineCount++]= i + 1;
+		}
+		fLineStarts= lineStarts;
+		fLineCount= lineCount;
+		fLines= new JavaElementLine[lineCount];
+	}
+
+	/**
+	 * Returns the line that contains the given offset.
+	 *
+	 * @param offset the offset
+	 * @return the line or <code>null</code> if the offset is outside of the buffer
+	 */
+	public JavaElementLine getLineAtOffset(int offset) {
+		if (offset < 0 || offset > fContents.length)
+			return null;
+		int lineNumber= Arrays.binarySearch(fLineStarts, 0, fLineCount, offset);
+		if (lineNumber < 0)
+			lineNumber= -lineNumber - 2;
+
+		JavaElementLine line= fLines[lineNumber];
+		if (line == null) {
+			int lineEnd= lineNumber + 1 < fLineCount ? fLineStarts[lineNumber + 1] : fContents.length;
+			line= new JavaElementLine(fElement, fContents, lineNumber, fLineStarts[lineNumber], lineEnd);
+			fLines[lineNumber]= line;
+		}
+		return line;
+	}
+}
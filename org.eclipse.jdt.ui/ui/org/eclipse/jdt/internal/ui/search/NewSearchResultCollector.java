@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,9 +10,15 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui.search;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.ProgressMonitorWrapper;
 
 import org.eclipse.search.ui.text.AbstractTextSearchResult;
+import org.eclipse.search.ui.text.Match;
 
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.search.FieldDeclarationMatch;
@@ -24,14 +30,33 @@ import org.eclipse.jdt.core.search.SearchMatch;
 import org.eclipse.jdt.core.search.SearchParticipant;
 import org.eclipse.jdt.core.search.SearchRequestor;
 
+/**
+ * Collects the matches of a Java search into a search result.
+ * <p>
+ * The matches are buffered and added to the search result in chunks, so that listeners of the
+ * result get one event per chunk instead of one per match. The buffer is flushed when it is full,
+ * when matches have been held back for longer than {@link #FLUSH_INTERVAL} and in
+ * {@link #endReporting()}. Searches should run with the monitor returned by
+ * {@link #createFlushingMonitor(IProgressMonitor)}, so that the interval is also checked while
+ * no further matches are found.
+ * </p>
+ */
 public class NewSearchResultCollector extends SearchRequestor {
+
+	private static final int BUFFER_SIZE= 500;
+	private static final long FLUSH_INTERVAL= 200;
+
 	private AbstractTextSearchResult fSearch;
 	private boolean fIgnorePotentials;
+	private final List<Match> fBuffer;
+	private long fLastFlush;
 
 	public NewSearchResultCollector(AbstractTextSearchResult search, boolean ignorePotentials) {
 		super();
 		fSearch= search;
 		fIgnorePotentials= ignorePotentials;
+		fBuffer= new ArrayList<>();
+		fLastFlush= System.currentTimeMillis();
 	}
 
 	@Override
@@ -60,16 +85,69 @@ public class NewSearchResultCollector extends SearchRequestor {
 				MethodReferenceMatch methodRef= (MethodReferenceMatch) match;
 				isSuperInvocation= methodRef.isSuperInvocation();
 			}
-			fSearch.addMatch(new JavaElementMatch(enclosingElement, match.getRule(), match.getOffset(), match.getLength(), match.getAccuracy(), isReadAccess, isWriteAccess, match.isInsideDocComment(), isSuperInvocation));
+			fBuffer.add(new JavaElementMatch(enclosingElement, match.getRule(), match.getOffset(), match.getLength(), match.getAccuracy(), isReadAccess, isWriteAccess, match.isInsideDocComment(), isSuperInvocation));
+			if (fBuffer.size() >= BUFFER_SIZE)
+				flush();
+			else
+				flushIfDue();
 		}
 	}
 
+	/**
+	 * Wraps the progress monitor of the search. The search engine polls the monitor regularly,
+	 * also while it doesn't find any matches; the returned monitor uses these calls to flush the
+	 * matches that have been held back for longer than {@link #FLUSH_INTERVAL}. The monitor must
+	 * only be used in the thread that reports the matches.
+	 *
+	 * @param monitor the progress monitor of the search
+	 * @return the wrapped monitor
+	 */
+	public IProgressMonitor createFlushingMonitor(IProgressMonitor monitor) {
+		return new ProgressMonitorWrapper(monitor) {
+			@Override
+			public boolean isCanceled() {
+				flushIfDue();
+				return super.isCanceled();
+			}
+
+			@Override
+			public void worked(int work) {
+				super.worked(work);
+				flushIfDue();
+			}
+
+			@Override
+			public void internalWorked(double work) {
+				super.internalWorked(work);
+				flushIfDue();
+			}
+		};
+	}
+
 	@Override
 	public void beginReporting() {
+		fLastFlush= System.currentTimeMillis();
 	}
 
 	@Override
 	public void endReporting() {
+		flush();
+	}
+
+	private void flushIfDue() {
+		if (!fBuffer.isEmpty() && System.currentTimeMillis() - fLastFlush >= FLUSH_INTERVAL)
+			flush();
+	}
+
+	/**
+	 * Adds the buffered matches to the search result.
+	 */
+	public void flush() {
+		fLastFlush= System.currentTimeMillis();
+		if (fBuffer.isEmpty())
+			return;
+		fSearch.addMatches(fBuffer.toArray(new Match[fBuffer.size()]));
+		fBuffer.clear();
 	}
 
 	@Override
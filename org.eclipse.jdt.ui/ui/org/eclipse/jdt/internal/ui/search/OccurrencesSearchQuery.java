@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,7 +12,6 @@
 package org.eclipse.jdt.internal.ui.search;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -71,14 +70,14 @@ public class OccurrencesSearchQuery implements ISearchQuery {
 		try {
 			OccurrenceLocation[] occurrences= fFinder.getOccurrences();
 			if (occurrences != null) {
-				HashMap<Integer, JavaElementLine> lineMap= new HashMap<>();
 				CompilationUnit astRoot= fFinder.getASTRoot();
+				JavaElementLineTable lines= new JavaElementLineTable(astRoot.getTypeRoot());
 				ArrayList<OccurrenceMatch> resultingMatches= new ArrayList<>();
 
 				for (int i= 0; i < occurrences.length; i++) {
 					OccurrenceLocation loc= occurrences[i];
 
-					JavaElementLine lineKey= getLineElement(astRoot, loc, lineMap);
+					JavaElementLine lineKey= lines.getLineAtOffset(loc.getOffset());
 					if (lineKey != null) {
 						OccurrenceMatch match= new OccurrenceMatch(lineKey, loc.getOffset(), loc.getLength(), loc.getFlags());
 						resultingMatches.add(match);
@@ -92,6 +91,8 @@ public class OccurrencesSearchQuery implements ISearchQuery {
 				}
 			}
 
+		} catch (CoreException e) {
+			// no buffer, no matches
 		} finally {
 			//Don't leak AST:
 			fFinder= null;
@@ -100,28 +101,6 @@ public class OccurrencesSearchQuery implements ISearchQuery {
 		return Status.OK_STATUS;
 	}
 
-	private JavaElementLine getLineElement(CompilationUnit astRoot, OccurrenceLocation location, HashMap<Integer, JavaElementLine> lineToGroup) {
-		int lineNumber= astRoot.getLineNumber(location.getOffset());
-		if (lineNumber <= 0) {
-			return null;
-		}
-		JavaElementLine lineElement= null;
-		try {
-			Integer key= new Integer(lineNumber);
-			lineElement= lineToGroup.get(key);
-			if (lineElement == null) {
-				int lineStartOffset= astRoot.getPosition(lineNumber, 0);
-				if (lineStartOffset >= 0) {
-					lineElement= new JavaElementLine(astRoot.getTypeRoot(), lineNumber - 1, lineStartOffset);
-					lineToGroup.put(key, lineElement);
-				}
-			}
-		} catch (CoreException e) {
-			//nothing
-		}
-		return lineElement;
-	}
-
 	/*
 	 * @see org.eclipse.search.ui.ISearchQuery#getLabel()
 	 */
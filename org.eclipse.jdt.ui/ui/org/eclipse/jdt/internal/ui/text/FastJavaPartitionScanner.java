@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2005 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -23,6 +23,12 @@ import org.eclipse.jdt.ui.text.IJavaPartitions;
 /**
  * This scanner recognizes the JavaDoc comments, Java multi line comments, Java single line comments,
  * Java strings and Java characters.
+ * <p>
+ * The state of the scanner at a partition boundary is fully determined by the content type of the
+ * partition. This lets the partitioner resume scanning at the start of the changed line and stop as
+ * soon as a scanned partition matches an existing one, so that the partitioning is never recomputed
+ * up to the end of the document unless it really changed there.
+ * </p>
  */
 public class FastJavaPartitionScanner implements IPartitionTokenScanner, IJavaPartitions {
 
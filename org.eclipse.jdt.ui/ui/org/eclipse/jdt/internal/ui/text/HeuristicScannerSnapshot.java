@@ -0,0 +1,420 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text;
+
+import java.util.Arrays;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
+import org.eclipse.jface.text.ITypedRegion;
+import org.eclipse.jface.text.TextUtilities;
+import org.eclipse.jface.text.TypedRegion;
+
+/**
+ * The partitioning and the bracket structure of a document, computed in a single pass and used by
+ * {@link JavaHeuristicScanner} instead of asking the document partitioner for every character.
+ * <p>
+ * The partitions are stored as a run-length array. For every kind of bracket, the snapshot knows
+ * the innermost unclosed opening bracket before and the innermost unopened closing bracket after
+ * each bracket of the default partition, which answers the peer searches of the scanner with a
+ * binary search.
+ * </p>
+ * <p>
+ * Edits that only change the whitespace inside a line, as done by the indentation code, are
+ * recorded in a list of edits as long as they are applied from top to bottom. Any other change
+ * discards the snapshot, it is recomputed when it is used the next time.
+ * </p>
+ *
+ * @since 3.13
+ */
+final class HeuristicScannerSnapshot implements IDocumentListener {
+
+	/** Returned by the peer searches if the snapshot cannot answer the query. */
+	static final int UNKNOWN= -3;
+
+	private static final char[] OPENING_PEERS= { '{', '(', '[' };
+	private static final char[] CLOSING_PEERS= { '}', ')', ']' };
+
+	private final IDocument fDocument;
+	private final String fPartitioning;
+	private final String fPartition;
+
+	/** Incremented on every document change. */
+	private int fModificationCount;
+	private boolean fValid;
+
+	/* partitions, in original offsets */
+	private int fPartitionCount;
+	private int[] fPartitionOffsets;
+	private int[] fPartitionEnds;
+	private String[] fPartitionTypes;
+
+	/* brackets of the default partition by kind, in original offsets */
+	private int[][] fPeerOffsets;
+	private int[] fPeerCounts;
+	/** The innermost unclosed opening peer after processing a bracket from the start of the document. */
+	private int[][] fEnclosingOpeningPeers;
+	/** The innermost unopened closing peer after processing a bracket from the end of the document. */
+	private int[][] fEnclosingClosingPeers;
+
+	/* whitespace edits applied since the snapshot has been computed, ordered by offset */
+	private int fEditCount;
+	private int[] fEditOffsets= new int[16];
+	private int[] fEditOriginalOffsets= new int[16];
+	private int[] fEditOriginalLengths= new int[16];
+	private int[] fEditTextLengths= new int[16];
+	/** The sum of the length differences of all edits up to and including the edit. */
+	private int[] fEditDeltas= new int[16];
+
+	HeuristicScannerSnapshot(IDocument document, String partitioning, String partition) {
+		fDocument= document;
+		fPartitioning= partitioning;
+		fPartition= partition;
+		fDocument.addDocumentListener(this);
+	}
+
+	/**
+	 * Stops tracking the document.
+	 */
+	void dispose() {
+		fDocument.removeDocumentListener(this);
+		fValid= false;
+	}
+
+	/**
+	 * Returns a counter that changes whenever the document changes.
+	 *
+	 * @return the modification count
+	 */
+	int getModificationCount() {
+		return fModificationCount;
+	}
+
+	/**
+	 * Returns the partition at the given offset.
+	 *
+	 * @param offset the offset
+	 * @return the partition, or <code>null</code> if the snapshot cannot tell
+	 */
+	ITypedRegion getPartition(int offset) {
+		if (!ensureValid() || offset < 0 || offset >= fDocument.getLength() || fPartitionCount == 0)
+			return null;
+
+		int original= toOriginalOffset(offset);
+		int index= Arrays.binarySearch(fPartitionOffsets, 0, fPartitionCount, original);
+		if (index < 0)
+			index= Math.max(-index - 2, 0);
+		int start= toCurrentBoundary(fPartitionOffsets[index]);
+		int end= toCurrentBoundary(fPartitionEnds[index]);
+		return new TypedRegion(start, end - start, fPartitionTypes[index]);
+	}
+
+	/**
+	 * Returns the position of the innermost unclosed opening peer at or before <code>start</code>.
+	 *
+	 * @param start the start position
+	 * @param bound the first position to not consider any more, <code>&gt;= -1</code>
+	 * @param openingPeer the opening peer
+	 * @param closingPeer the closing peer
+	 * @return the position, {@link JavaHeuristicScanner#NOT_FOUND} or {@link #UNKNOWN}
+	 */
+	int findOpeningPeer(int start, int bound, char openingPeer, char closingPeer) {
+		int kind= getPeerKind(openingPeer, closingPeer);
+		if (kind == -1 || !ensureValid())
+			return UNKNOWN;
+		if (start < 0)
+			return JavaHeuristicScanner.NOT_FOUND;
+
+		int original;
+		int edit= findEditAt(start);
+		if (edit == -1)
+			original= start;
+		else if (start < fEditOffsets[edit] + fEditTextLengths[edit])
+			original= fEditOriginalOffsets[edit] - 1;
+		else
+			original= start - fEditDeltas[edit];
+
+		int index= Arrays.binarySearch(fPeerOffsets[kind], 0, fPeerCounts[kind], original);
+		if (index < 0)
+			index= -index - 2;
+		if (index < 0)
+			return JavaHeuristicScanner.NOT_FOUND;
+		int peer= fEnclosingOpeningPeers[kind][index];
+		if (peer == -1)
+			return JavaHeuristicScanner.NOT_FOUND;
+		peer= toCurrentOffset(peer);
+		return peer > bound ? peer : JavaHeuristicScanner.NOT_FOUND;
+	}
+
+	/**
+	 * Returns the position of the innermost unopened closing peer at or after <code>start</code>.
+	 *
+	 * @param start the start position
+	 * @param bound the first position to not consider any more
+	 * @param openingPeer the opening peer
+	 * @param closingPeer the closing peer
+	 * @return the position, {@link JavaHeuristicScanner#NOT_FOUND} or {@link #UNKNOWN}
+	 */
+	int findClosingPeer(int start, int bound, char openingPeer, char closingPeer) {
+		int kind= getPeerKind(openingPeer, closingPeer);
+		if (kind == -1 || !ensureValid())
+			return UNKNOWN;
+
+		int original;
+		int edit= findEditAt(start);
+		if (edit == -1)
+			original= start;
+		else if (start < fEditOffsets[edit] + fEditTextLengths[edit])
+			original= fEditOriginalOffsets[edit] + fEditOriginalLengths[edit];
+		else
+			original= start - fEditDeltas[edit];
+
+		int index= Arrays.binarySearch(fPeerOffsets[kind], 0, fPeerCounts[kind], original);
+		if (index < 0)
+			index= -index - 1;
+		if (index >= fPeerCounts[kind])
+			return JavaHeuristicScanner.NOT_FOUND;
+		int peer= fEnclosingClosingPeers[kind][index];
+		if (peer == -1)
+			return JavaHeuristicScanner.NOT_FOUND;
+		peer= toCurrentOffset(peer);
+		return peer < bound ? peer : JavaHeuristicScanner.NOT_FOUND;
+	}
+
+	/*
+	 * @see org.eclipse.jface.text.IDocumentListener#documentAboutToBeChanged(org.eclipse.jface.text.DocumentEvent)
+	 */
+	@Override
+	public void documentAboutToBeChanged(DocumentEvent event) {
+		fModificationCount++;
+		if (!fValid)
+			return;
+
+		int offset= event.getOffset();
+		int length= event.getLength();
+		String text= event.getText() == null ? "" : event.getText(); //$NON-NLS-1$
+		try {
+			if (fEditCount > 0 && offset < fEditOffsets[fEditCount - 1] + fEditTextLengths[fEditCount - 1]
+					|| !isLineWhitespace(text) || !isLineWhitespace(fDocument.get(offset, length))
+					|| !isWhitespaceNeighbor(offset - 1) && !isWhitespaceNeighbor(offset + length)) {
+				// the change may modify the partitioning or the brackets
+				fValid= false;
+				return;
+			}
+		} catch (BadLocationException e) {
+			fValid= false;
+			return;
+		}
+
+		if (fEditCount == fEditOffsets.length) {
+			int size= 2 * fEditCount;
+			fEditOffsets= Arrays.copyOf(fEditOffsets, size);
+			fEditOriginalOffsets= Arrays.copyOf(fEditOriginalOffsets, size);
+			fEditOriginalLengths= Arrays.copyOf(fEditOriginalLengths, size);
+			fEditTextLengths= Arrays.copyOf(fEditTextLengths, size);
+			fEditDeltas= Arrays.copyOf(fEditDeltas, size);
+		}
+		int previousDelta= fEditCount == 0 ? 0 : fEditDeltas[fEditCount - 1];
+		fEditOffsets[fEditCount]= offset;
+		fEditOriginalOffsets[fEditCount]= offset - previousDelta;
+		fEditOriginalLengths[fEditCount]= length;
+		fEditTextLengths[fEditCount]= text.length();
+		fEditDeltas[fEditCount]= previousDelta + text.length() - length;
+		fEditCount++;
+	}
+
+	/*
+	 * @see org.eclipse.jface.text.IDocumentListener#documentChanged(org.eclipse.jface.text.DocumentEvent)
+	 */
+	@Override
+	public void documentChanged(DocumentEvent event) {
+		fModificationCount++;
+	}
+
+	private boolean ensureValid() {
+		if (fValid)
+			return true;
+
+		try {
+			int length= fDocument.getLength();
+			ITypedRegion[] partitions= TextUtilities.computePartitioning(fDocument, fPartitioning, 0, length, false);
+			if (partitions.length == 0 && length > 0)
+				return false; // no partitioning installed
+			fPartitionCount= partitions.length;
+			fPartitionOffsets= new int[fPartitionCount];
+			fPartitionEnds= new int[fPartitionCount];
+			fPartitionTypes= new String[fPartitionCount];
+			for (int i= 0; i < fPartitionCount; i++) {
+				fPartitionOffsets[i]= partitions[i].getOffset();
+				fPartitionEnds[i]= partitions[i].getOffset() + partitions[i].getLength();
+				fPartitionTypes[i]= partitions[i].getType();
+			}
+			computePeers(fDocument.get(), partitions);
+		} catch (BadLocationException e) {
+			return false;
+		}
+
+		fEditCount= 0;
+		fValid= true;
+		return true;
+	}
+
+	private void computePeers(String contents, ITypedRegion[] partitions) {
+		int kinds= OPENING_PEERS.length;
+		fPeerOffsets= new int[kinds][64];
+		fPeerCounts= new int[kinds];
+		for (int i= 0; i < partitions.length; i++) {
+			if (!fPartition.equals(partitions[i].getType()))
+				continue;
+			for (int offset= partitions[i].getOffset(), end= offset + partitions[i].getLength(); offset < end; offset++) {
+				int kind= getPeerKind(contents.charAt(offset));
+				if (kind == -1)
+					continue;
+				if (fPeerCounts[kind] == fPeerOffsets[kind].length)
+					fPeerOffsets[kind]= Arrays.copyOf(fPeerOffsets[kind], 2 * fPeerCounts[kind]);
+				fPeerOffsets[kind][fPeerCounts[kind]++]= offset;
+			}
+		}
+
+		fEnclosingOpeningPeers= new int[kinds][];
+		fEnclosingClosingPeers= new int[kinds][];
+		for (int kind= 0; kind < kinds; kind++) {
+			int count= fPeerCounts[kind];
+			int[] offsets= fPeerOffsets[kind];
+			int[] stack= new int[count];
+			int depth= 0;
+
+			int[] enclosing= new int[count];
+			for (int i= 0; i < count; i++) {
+				if (contents.charAt(offsets[i]) == OPENING_PEERS[kind])
+					stack[depth++]= offsets[i];
+				else if (depth > 0)
+					depth--;
+				enclosing[i]= depth > 0 ? stack[depth - 1] : -1;
+			}
+			fEnclosingOpeningPeers[kind]= enclosing;
+
+			depth= 0;
+			enclosing= new int[count];
+			for (int i= count - 1; i >= 0; i--) {
+				if (contents.charAt(offsets[i]) == CLOSING_PEERS[kind])
+					stack[depth++]= offsets[i];
+				else if (depth > 0)
+					depth--;
+				enclosing[i]= depth > 0 ? stack[depth - 1] : -1;
+			}
+			fEnclosingClosingPeers[kind]= enclosing;
+		}
+	}
+
+	/**
+	 * Returns the index of the last edit that starts at or before the given current offset.
+	 *
+	 * @param offset the current offset
+	 * @return the index of the edit or <code>-1</code>
+	 */
+	private int findEditAt(int offset) {
+		int index= Arrays.binarySearch(fEditOffsets, 0, fEditCount, offset);
+		if (index < 0)
+			return -index - 2;
+		// edits may be empty, take the last one at the offset
+		while (index + 1 < fEditCount && fEditOffsets[index + 1] == offset)
+			index++;
+		return index;
+	}
+
+	/**
+	 * Converts a current offset to an offset in the snapshot. Offsets inside an inserted text are
+	 * mapped to the start of the replaced text.
+	 *
+	 * @param offset the current offset
+	 * @return the original offset
+	 */
+	private int toOriginalOffset(int offset) {
+		int edit= findEditAt(offset);
+		if (edit == -1)
+			return offset;
+		if (offset < fEditOffsets[edit] + fEditTextLengths[edit])
+			return fEditOriginalOffsets[edit];
+		return offset - fEditDeltas[edit];
+	}
+
+	/**
+	 * Converts the original offset of a character that has not been replaced to its current offset.
+	 *
+	 * @param original the original offset
+	 * @return the current offset
+	 */
+	private int toCurrentOffset(int original) {
+		int index= Arrays.binarySearch(fEditOriginalOffsets, 0, fEditCount, original);
+		if (index < 0)
+			index= -index - 2;
+		else
+			while (index + 1 < fEditCount && fEditOriginalOffsets[index + 1] == original)
+				index++;
+		return index < 0 ? original : original + fEditDeltas[index];
+	}
+
+	/**
+	 * Converts an original partition boundary to its current offset. Text inserted at a boundary
+	 * belongs to the partition after the boundary.
+	 *
+	 * @param original the original boundary
+	 * @return the current boundary
+	 */
+	private int toCurrentBoundary(int original) {
+		// the last edit that starts before the boundary
+		int index= Arrays.binarySearch(fEditOriginalOffsets, 0, fEditCount, original);
+		if (index < 0)
+			index= -index - 2;
+		else
+			while (index >= 0 && fEditOriginalOffsets[index] == original)
+				index--;
+		if (index < 0)
+			return original;
+		if (original < fEditOriginalOffsets[index] + fEditOriginalLengths[index])
+			return fEditOffsets[index] + fEditTextLengths[index];
+		return original + fEditDeltas[index];
+	}
+
+	private boolean isWhitespaceNeighbor(int offset) throws BadLocationException {
+		if (offset < 0 || offset >= fDocument.getLength())
+			return true;
+		return Character.isWhitespace(fDocument.getChar(offset));
+	}
+
+	private static boolean isLineWhitespace(String text) {
+		for (int i= 0, length= text.length(); i < length; i++) {
+			char ch= text.charAt(i);
+			if (ch == '\n' || ch == '\r' || !Character.isWhitespace(ch))
+				return false;
+		}
+		return true;
+	}
+
+	private static int getPeerKind(char openingPeer, char closingPeer) {
+		for (int i= 0; i < OPENING_PEERS.length; i++) {
+			if (OPENING_PEERS[i] == openingPeer && CLOSING_PEERS[i] == closingPeer)
+				return i;
+		}
+		return -1;
+	}
+
+	private static int getPeerKind(char ch) {
+		for (int i= 0; i < OPENING_PEERS.length; i++) {
+			if (OPENING_PEERS[i] == ch || CLOSING_PEERS[i] == ch)
+				return i;
+		}
+		return -1;
+	}
+}
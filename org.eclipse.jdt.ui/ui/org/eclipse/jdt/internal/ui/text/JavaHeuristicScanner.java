@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -29,6 +29,11 @@ import org.eclipse.jdt.ui.text.IJavaPartitions;
  *
  * <p>An instance holds some internal position in the document and is therefore not threadsafe.</p>
  *
+ * <p>A scanner created in snapshot mode computes the partitioning and the brackets of the whole
+ * document once and keeps them up to date while only the indentation of lines is changed. This
+ * makes scanning many lines linear, but costs a pass over the document, so it should only be used
+ * for bulk operations. Such a scanner must be {@link #dispose() disposed}.</p>
+ *
  * @since 3.0
  */
 public final class JavaHeuristicScanner implements Symbols {
@@ -261,6 +266,16 @@ public final class JavaHeuristicScanner implements Symbols {
 	 * @since 3.2
 	 */
 	private ITypedRegion fCachedPartition= new TypedRegion(-1, 0, "__no_partition_at_all"); //$NON-NLS-1$
+	/**
+	 * The snapshot of the document, or <code>null</code> if not in snapshot mode.
+	 * @since 3.13
+	 */
+	private HeuristicScannerSnapshot fSnapshot;
+	/**
+	 * The modification count of the snapshot when the partition has been cached.
+	 * @since 3.13
+	 */
+	private int fCachedPartitionModificationCount;
 
 	/* preset stop conditions */
 	private final StopCondition fNonWSDefaultPart= new NonWhitespaceDefaultPartition();
@@ -292,6 +307,34 @@ public final class JavaHeuristicScanner implements Symbols {
 		this(document, IJavaPartitions.JAVA_PARTITIONING, IDocument.DEFAULT_CONTENT_TYPE);
 	}
 
+	/**
+	 * Creates a new instance for the Java partitioning and the default partition.
+	 *
+	 * @param document the document to scan
+	 * @param useSnapshot <code>true</code> to scan a snapshot of the partitioning and the
+	 *            brackets of the document, in which case the scanner must be disposed
+	 * @since 3.13
+	 */
+	public JavaHeuristicScanner(IDocument document, boolean useSnapshot) {
+		this(document);
+		if (useSnapshot)
+			fSnapshot= new HeuristicScannerSnapshot(document, fPartitioning, fPartition);
+	}
+
+	/**
+	 * Releases the snapshot of a scanner in snapshot mode. The scanner can still be used, but
+	 * asks the document for every partition.
+	 *
+	 * @since 3.13
+	 */
+	public void dispose() {
+		if (fSnapshot != null) {
+			fSnapshot.dispose();
+			fSnapshot= null;
+			fCachedPartition= new TypedRegion(-1, 0, "__no_partition_at_all"); //$NON-NLS-1$
+		}
+	}
+
 	/**
 	 * Returns the most recent internal scan position.
 	 *
@@ -558,6 +601,15 @@ public final class JavaHeuristicScanner implements Symbols {
 	public int findClosingPeer(int start, int bound, final char openingPeer, final char closingPeer) {
 		Assert.isLegal(start >= 0);
 
+		if (fSnapshot != null) {
+			int peer= fSnapshot.findClosingPeer(start, bound == UNBOUND ? fDocument.getLength() : bound, openingPeer, closingPeer);
+			if (peer != HeuristicScannerSnapshot.UNKNOWN) {
+				if (peer != NOT_FOUND)
+					fPos= peer;
+				return peer;
+			}
+		}
+
 		try {
 			CharacterMatch match= new CharacterMatch(new char[] {openingPeer, closingPeer});
 			int depth= 1;
@@ -613,6 +665,15 @@ public final class JavaHeuristicScanner implements Symbols {
 	public int findOpeningPeer(int start, int bound, char openingPeer, char closingPeer) {
 		Assert.isLegal(start < fDocument.getLength());
 
+		if (fSnapshot != null) {
+			int peer= fSnapshot.findOpeningPeer(start, bound == UNBOUND ? -1 : bound, openingPeer, closingPeer);
+			if (peer != HeuristicScannerSnapshot.UNKNOWN) {
+				if (peer != NOT_FOUND)
+					fPos= peer;
+				return peer;
+			}
+		}
+
 		try {
 			final CharacterMatch match= new CharacterMatch(new char[] {openingPeer, closingPeer});
 			int depth= 1;
@@ -852,10 +913,20 @@ public final class JavaHeuristicScanner implements Symbols {
 	 *         partition if accessing the document fails
 	 */
 	private ITypedRegion getPartition(int position) {
+		if (fSnapshot != null && fSnapshot.getModificationCount() != fCachedPartitionModificationCount) {
+			fCachedPartitionModificationCount= fSnapshot.getModificationCount();
+			fCachedPartition= new TypedRegion(-1, 0, "__no_partition_at_all"); //$NON-NLS-1$
+		}
 		if (!contains(fCachedPartition, position)) {
 			Assert.isTrue(position >= 0);
 			Assert.isTrue(position <= fDocument.getLength());
 
+			ITypedRegion partition= fSnapshot != null ? fSnapshot.getPartition(position) : null;
+			if (partition != null) {
+				fCachedPartition= partition;
+				return partition;
+			}
+
 			try {
 				fCachedPartition= TextUtilities.getPartition(fDocument, fPartitioning, position, false);
 			} catch (BadLocationException e) {
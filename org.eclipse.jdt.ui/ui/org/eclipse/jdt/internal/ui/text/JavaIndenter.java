@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -2155,6 +2155,8 @@ public final class JavaIndenter {
 	 *         otherwise
 	 */
 	private boolean skipScope(int openToken, int closeToken) {
+		if (skipToOpeningPeer(openToken))
+			return true;
 
 		int depth= 1;
 
@@ -2172,4 +2174,51 @@ public final class JavaIndenter {
 			}
 		}
 	}
+
+	/**
+	 * Moves the internal cursor to the opening peer of the bracket at <code>fPosition</code> by
+	 * means of the scanner's peer search, which is answered from the snapshot of a scanner used for
+	 * bulk indentation. The state is the same as after reading the tokens one by one.
+	 *
+	 * @param openToken the opening peer token
+	 * @return <code>true</code> if the opening peer was found, <code>false</code> if the
+	 *         tokens need to be scanned
+	 * @since 3.13
+	 */
+	private boolean skipToOpeningPeer(int openToken) {
+		char openingPeer, closingPeer;
+		switch (openToken) {
+			case Symbols.TokenLBRACE:
+				openingPeer= '{';
+				closingPeer= '}';
+				break;
+			case Symbols.TokenLPAREN:
+				openingPeer= '(';
+				closingPeer= ')';
+				break;
+			case Symbols.TokenLBRACKET:
+				openingPeer= '[';
+				closingPeer= ']';
+				break;
+			default:
+				return false;
+		}
+
+		if (fPosition < 1)
+			return false;
+		int peer= fScanner.findOpeningPeer(fPosition - 1, openingPeer, closingPeer);
+		if (peer == JavaHeuristicScanner.NOT_FOUND)
+			return false;
+
+		try {
+			fLine= fDocument.getLineOfOffset(peer);
+		} catch (BadLocationException e) {
+			return false;
+		}
+		// the token read before the opening peer, at the latest the closing peer itself
+		fPreviousPos= fScanner.findNonWhitespaceForward(peer + 1, fPosition + 1);
+		fPosition= peer;
+		fToken= openToken;
+		return true;
+	}
 }
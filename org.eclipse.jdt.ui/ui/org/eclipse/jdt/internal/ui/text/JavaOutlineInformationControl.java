@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,6 +13,7 @@ package org.eclipse.jdt.internal.ui.text;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -116,6 +117,12 @@ public class JavaOutlineInformationControl extends AbstractInformationControl {
 
 		private boolean fShowDefiningType;
 
+		/**
+		 * The images acquired for the focus descriptors, released on dispose.
+		 * @since 3.13
+		 */
+		private final Map<ImageDescriptor, Image> fFocusImages= new HashMap<>();
+
 		private OutlineLabelProvider() {
 			super(AppearanceAwareLabelProvider.DEFAULT_TEXTFLAGS |  JavaElementLabels.F_APP_TYPE_SIGNATURE | JavaElementLabels.ALL_CATEGORY | JavaElementLabels.P_COMPRESSED, AppearanceAwareLabelProvider.DEFAULT_IMAGEFLAGS);
 		}
@@ -207,11 +214,25 @@ public class JavaOutlineInformationControl extends AbstractInformationControl {
 		public Image getImage(Object element) {
 			if (element.equals(fInitiallySelectedType) || (element instanceof IMember && ((IMember)element).getDeclaringType() == null)) {
 				ImageDescriptor desc= fImageLabelProvider.getJavaImageDescriptor((IJavaElement)element, (evaluateImageFlags(element)));
-				Image image= JavaPlugin.getImageDescriptorRegistry().get(new FocusDescriptor(desc));
+				FocusDescriptor focusDesc= new FocusDescriptor(desc);
+				Image image= fFocusImages.get(focusDesc);
+				if (image == null && !fFocusImages.containsKey(focusDesc)) {
+					image= JavaPlugin.getImageDescriptorRegistry().acquire(focusDesc);
+					fFocusImages.put(focusDesc, image);
+				}
 				return decorateImage(image, element);
 			}
 			return super.getImage(element);
 		}
+
+		@Override
+		public void dispose() {
+			for (Iterator<ImageDescriptor> iter= fFocusImages.keySet().iterator(); iter.hasNext();) {
+				JavaPlugin.getImageDescriptorRegistry().release(iter.next());
+			}
+			fFocusImages.clear();
+			super.dispose();
+		}
 	}
 
 
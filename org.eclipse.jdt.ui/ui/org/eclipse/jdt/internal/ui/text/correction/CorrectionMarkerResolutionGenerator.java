@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,8 +12,10 @@ package org.eclipse.jdt.internal.ui.text.correction;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -150,36 +152,31 @@ public class CorrectionMarkerResolutionGenerator implements IMarkerResolutionGen
 		}
 
 		private MultiFixTarget[] getCleanUpTargets(IMarker[] markers) {
-			Hashtable<ICompilationUnit, List<IProblemLocation>> problemLocations= new Hashtable<>();
+			// group the markers by file, so that each compilation unit and its annotation model are looked up only once
+			Map<IResource, List<IMarker>> markersByResource= new LinkedHashMap<>();
 			for (int i= 0; i < markers.length; i++) {
 				IMarker marker= markers[i];
-				ICompilationUnit cu= getCompilationUnit(marker);
+				List<IMarker> l= markersByResource.get(marker.getResource());
+				if (l == null) {
+					l= new ArrayList<>();
+					markersByResource.put(marker.getResource(), l);
+				}
+				l.add(marker);
+			}
 
+			List<MultiFixTarget> result= new ArrayList<>(markersByResource.size());
+			for (Iterator<List<IMarker>> iterator= markersByResource.values().iterator(); iterator.hasNext();) {
+				List<IMarker> resourceMarkers= iterator.next();
+				ICompilationUnit cu= getCompilationUnit(resourceMarkers.get(0));
 				if (cu != null) {
 					IEditorInput input= EditorUtility.getEditorInput(cu);
-					IProblemLocation location= findProblemLocation(input, marker);
-					if (location != null) {
-						List<IProblemLocation> l= problemLocations.get(cu.getPrimary());
-						if (l == null) {
-							l= new ArrayList<>();
-							problemLocations.put(cu.getPrimary(), l);
-						}
-						l.add(location);
-					}
+					List<IProblemLocation> locations= findProblemLocations(input, cu, resourceMarkers);
+					if (!locations.isEmpty())
+						result.add(new MultiFixTarget(cu.getPrimary(), locations.toArray(new IProblemLocation[locations.size()])));
 				}
 			}
 
-			MultiFixTarget[] result= new MultiFixTarget[problemLocations.size()];
-			int i= 0;
-			for (Iterator<Map.Entry<ICompilationUnit, List<IProblemLocation>>> iterator= problemLocations.entrySet().iterator(); iterator.hasNext();) {
-				Map.Entry<ICompilationUnit, List<IProblemLocation>> entry= iterator.next();
-				ICompilationUnit cu= entry.getKey();
-				List<IProblemLocation> locations= entry.getValue();
-				result[i]= new MultiFixTarget(cu, locations.toArray(new IProblemLocation[locations.size()]));
-				i++;
-			}
-
-			return result;
+			return result.toArray(new MultiFixTarget[result.size()]);
 		}
 
 		@Override
@@ -204,7 +201,15 @@ public class CorrectionMarkerResolutionGenerator implements IMarkerResolutionGen
 
 			IMultiFix multiFix= (IMultiFix) cleanUp;
 
-			final Hashtable<IFile, List<IMarker>> fileMarkerTable= getMarkersForFiles(markers);
+			String markerType;
+			try {
+				markerType= fMarker.getType();
+			} catch (CoreException e) {
+				JavaPlugin.log(e);
+				return NO_MARKERS;
+			}
+
+			final Hashtable<IFile, List<IMarker>> fileMarkerTable= getMarkersForFiles(markers, markerType);
 			if (fileMarkerTable.isEmpty())
 				return NO_MARKERS;
 
@@ -221,7 +226,7 @@ public class CorrectionMarkerResolutionGenerator implements IMarkerResolutionGen
 
 					for (int i= 0, size= fileMarkers.size(); i < size; i++) {
 						IMarker marker= fileMarkers.get(i);
-						IProblemLocation problem= createFromMarker(marker, unit);
+						IProblemLocation problem= createFromMarker(marker, unit, markerType);
 						if (problem != null && multiFix.canFix(unit, problem)) {
 							result.add(marker);
 						}
@@ -238,19 +243,12 @@ public class CorrectionMarkerResolutionGenerator implements IMarkerResolutionGen
 		/**
 		 * Returns the markers with the same type as fMarker.getType for each IFile.
 		 * @param markers the markers
+		 * @param markerType the type of fMarker
 		 * @return mapping files to markers
 		 */
-		private Hashtable<IFile, List<IMarker>> getMarkersForFiles(IMarker[] markers) {
+		private Hashtable<IFile, List<IMarker>> getMarkersForFiles(IMarker[] markers, String markerType) {
 			final Hashtable<IFile, List<IMarker>> result= new Hashtable<>();
 
-			String markerType;
-			try {
-				markerType= fMarker.getType();
-			} catch (CoreException e1) {
-				JavaPlugin.log(e1);
-				return result;
-			}
-
 			for (int i= 0; i < markers.length; i++) {
 				IMarker marker= markers[i];
 				if (!marker.equals(fMarker)) {
@@ -356,45 +354,77 @@ public class CorrectionMarkerResolutionGenerator implements IMarkerResolutionGen
 	}
 
 	private static IProblemLocation findProblemLocation(IEditorInput input, IMarker marker) {
+		List<IProblemLocation> locations= findProblemLocations(input, getCompilationUnit(marker), Collections.singletonList(marker));
+		return locations.isEmpty() ? null : locations.get(0);
+	}
+
+	/**
+	 * Returns the problem locations of the given markers. If the compilation unit is open in an
+	 * editor, the locations are taken from the annotation model, which is traversed only once.
+	 *
+	 * @param input the editor input of the compilation unit or <code>null</code>
+	 * @param cu the compilation unit that contains the markers
+	 * @param markers the markers, all on the resource of the compilation unit
+	 * @return the locations of the markers that could be found, in the order of the markers
+	 */
+	private static List<IProblemLocation> findProblemLocations(IEditorInput input, ICompilationUnit cu, List<IMarker> markers) {
+		List<IProblemLocation> result= new ArrayList<>(markers.size());
 		IAnnotationModel model= JavaPlugin.getDefault().getCompilationUnitDocumentProvider().getAnnotationModel(input);
 		if (model != null) { // open in editor
+			Map<IMarker, IProblemLocation> locations= new HashMap<>(markers.size());
+			for (int i= 0, size= markers.size(); i < size; i++) {
+				locations.put(markers.get(i), null);
+			}
 			Iterator<Annotation> iter= model.getAnnotationIterator();
 			while (iter.hasNext()) {
 				Annotation curr= iter.next();
 				if (curr instanceof JavaMarkerAnnotation) {
 					JavaMarkerAnnotation annot= (JavaMarkerAnnotation) curr;
-					if (marker.equals(annot.getMarker())) {
+					IMarker marker= annot.getMarker();
+					if (locations.containsKey(marker) && locations.get(marker) == null) {
 						Position pos= model.getPosition(annot);
 						if (pos != null) {
-							return new ProblemLocation(pos.getOffset(), pos.getLength(), annot);
+							locations.put(marker, new ProblemLocation(pos.getOffset(), pos.getLength(), annot));
 						}
 					}
 				}
 			}
+			for (int i= 0, size= markers.size(); i < size; i++) {
+				IProblemLocation location= locations.get(markers.get(i));
+				if (location != null)
+					result.add(location);
+			}
 		} else { // not open in editor
-			ICompilationUnit cu= getCompilationUnit(marker);
-			return createFromMarker(marker, cu);
+			for (int i= 0, size= markers.size(); i < size; i++) {
+				IProblemLocation location= createFromMarker(markers.get(i), cu);
+				if (location != null)
+					result.add(location);
+			}
 		}
-		return null;
+		return result;
 	}
 
 	private static IProblemLocation createFromMarker(IMarker marker, ICompilationUnit cu) {
 		try {
-			int id= marker.getAttribute(IJavaModelMarker.ID, -1);
-			int start= marker.getAttribute(IMarker.CHAR_START, -1);
-			int end= marker.getAttribute(IMarker.CHAR_END, -1);
-			int severity= marker.getAttribute(IMarker.SEVERITY, IMarker.SEVERITY_INFO);
-			String[] arguments= CorrectionEngine.getProblemArguments(marker);
-			String markerType= marker.getType();
-			if (cu != null && id != -1 && start != -1 && end != -1 && arguments != null) {
-				boolean isError= (severity == IMarker.SEVERITY_ERROR);
-				return new ProblemLocation(start, end - start, id, arguments, isError, markerType);
-			}
+			return createFromMarker(marker, cu, marker.getType());
 		} catch (CoreException e) {
 			JavaPlugin.log(e);
 		}
 		return null;
 	}
 
+	private static IProblemLocation createFromMarker(IMarker marker, ICompilationUnit cu, String markerType) {
+		int id= marker.getAttribute(IJavaModelMarker.ID, -1);
+		int start= marker.getAttribute(IMarker.CHAR_START, -1);
+		int end= marker.getAttribute(IMarker.CHAR_END, -1);
+		int severity= marker.getAttribute(IMarker.SEVERITY, IMarker.SEVERITY_INFO);
+		String[] arguments= CorrectionEngine.getProblemArguments(marker);
+		if (cu != null && id != -1 && start != -1 && end != -1 && arguments != null) {
+			boolean isError= (severity == IMarker.SEVERITY_ERROR);
+			return new ProblemLocation(start, end - start, id, arguments, isError, markerType);
+		}
+		return null;
+	}
+
 
 }
@@ -521,7 +521,7 @@ public class JavadocContentAccess2 {
 	 * 			does not have a Javadoc comment or if no source is available
 	 * @throws CoreException is thrown when the element's Javadoc cannot be accessed
 	 */
-	public static String getHTMLContent(IJavaElement element, boolean useAttachedJavadoc) throws CoreException {
+	public static String getHTMLContent(final IJavaElement element, final boolean useAttachedJavadoc) throws CoreException {
 		if (element instanceof IPackageFragment) {
 			return getHTMLContent((IPackageFragment) element);
 		}
@@ -531,11 +531,23 @@ public class JavadocContentAccess2 {
 		if (!(element instanceof IMember || element instanceof ITypeParameter || (element instanceof ILocalVariable && (((ILocalVariable) element).isParameter())))) {
 			return null;
 		}
+		if (JavadocContentCache.isCacheable(element)) {
+			return JavadocContentCache.getInstance().getHTMLContent(element, useAttachedJavadoc, new JavadocContentCache.IContentProvider() {
+				@Override
+				public String getContent() throws CoreException {
+					return computeHTMLContent(element, useAttachedJavadoc);
+				}
+			});
+		}
+		return computeHTMLContent(element, useAttachedJavadoc);
+	}
+
+	private static String computeHTMLContent(IJavaElement element, boolean useAttachedJavadoc) throws CoreException {
 		String sourceJavadoc= getHTMLContentFromSource(element);
 		if (sourceJavadoc == null || sourceJavadoc.length() == 0 || sourceJavadoc.trim().equals("{@inheritDoc}")) { //$NON-NLS-1$
 			if (useAttachedJavadoc) {
 				if (element.getOpenable().getBuffer() == null) { // only if no source available
-					return element.getAttachedJavadoc(null);
+					return JavadocContentCache.getInstance().getAttachedJavadoc(element);
 				}
 				IMember member= null;
 				if (element instanceof ILocalVariable) {
@@ -839,7 +851,7 @@ public class JavadocContentAccess2 {
 					return InheritDocVisitor.CONTINUE;
 
 				if (overridden.getOpenable().getBuffer() == null) { // only if no source available
-					String attachedJavadoc= overridden.getAttachedJavadoc(null);
+					String attachedJavadoc= JavadocContentCache.getInstance().getAttachedJavadoc(overridden);
 					if (attachedJavadoc != null) {
 						// BaseURL for the original method can be wrong for attached Javadoc from overridden
 						// (e.g. when overridden is from rt.jar).
@@ -2069,7 +2081,7 @@ public class JavadocContentAccess2 {
 
 		//3==> Handle the case when the documentation is coming from the attached Javadoc
 		if ((root.isArchive() || root.isExternal())) {
-			return packageFragment.getAttachedJavadoc(null);
+			return JavadocContentCache.getInstance().getAttachedJavadoc(packageFragment);
 
 		}
 
@@ -0,0 +1,324 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text.javadoc;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+
+import org.eclipse.core.resources.IResource;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+
+import org.eclipse.jdt.internal.corext.javadoc.JavaDocLocations;
+import org.eclipse.jdt.internal.corext.util.JavaModelUtil;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
+/**
+ * Caches the Javadoc of elements of binary package fragment roots, i.e. of the JDK and of libraries,
+ * for {@link JavadocContentAccess2}.
+ * <p>
+ * The HTML content of the elements is kept in memory and is cleared by every Java element delta
+ * that may change a declaration, which includes changes of the classpath, of the archives and of
+ * their attachments. The attached Javadoc, which is often read from a remote location or from a
+ * zipped Javadoc, is also stored in the state location of the plug-in, keyed by element, Javadoc
+ * location and time stamp of the library, so that it survives restarts.
+ * </p>
+ *
+ * @since 3.13
+ */
+public class JavadocContentCache {
+
+	private static final int MAX_ENTRIES= 200;
+
+	/** Files in the disk store that trigger a purge of the store. */
+	private static final int MAX_FILES= 5000;
+
+	private static final String CACHE_DIR= "javadoc-cache"; //$NON-NLS-1$
+
+	/** The content of elements without Javadoc. */
+	private static final String NO_CONTENT= new String();
+
+	private class DeltaListener implements IElementChangedListener {
+
+		@Override
+		public void elementChanged(ElementChangedEvent event) {
+			if (JavaModelUtil.affectsDeclarations(event.getDelta()))
+				clear();
+		}
+	}
+
+	private static JavadocContentCache fgInstance;
+
+	private final IElementChangedListener fDeltaListener;
+
+	/** The HTML content by element handle. Guarded by <code>this</code>. */
+	private final Map<String, String> fContents= new LinkedHashMap<String, String>(16, 0.75f, true) {
+		private static final long serialVersionUID= 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+
+	/** Incremented whenever the cache is cleared. Guarded by <code>this</code>. */
+	private int fGeneration;
+
+	/** The disk store or <code>null</code> if not available. */
+	private final File fCacheDir;
+
+	/** The number of files in the disk store. Guarded by <code>this</code>. */
+	private int fFileCount;
+
+	public static synchronized JavadocContentCache getInstance() {
+		if (fgInstance == null)
+			fgInstance= new JavadocContentCache();
+		return fgInstance;
+	}
+
+	public static synchronized void shutdown() {
+		if (fgInstance == null)
+			return;
+		JavaCore.removeElementChangedListener(fgInstance.fDeltaListener);
+		fgInstance.clear();
+		fgInstance= null;
+	}
+
+	private JavadocContentCache() {
+		fDeltaListener= new DeltaListener();
+		JavaCore.addElementChangedListener(fDeltaListener, ElementChangedEvent.POST_CHANGE);
+		fCacheDir= getCacheDir();
+		if (fCacheDir != null) {
+			String[] files= fCacheDir.list();
+			fFileCount= files != null ? files.length : 0;
+		}
+	}
+
+	private static File getCacheDir() {
+		try {
+			File cacheDir= JavaPlugin.getDefault().getStateLocation().append(CACHE_DIR).toFile();
+			if (!cacheDir.exists())
+				cacheDir.mkdir();
+			if (!cacheDir.isDirectory()) {
+				JavaPlugin.logErrorMessage("Failed to create Javadoc cache directory " + cacheDir.toString()); //$NON-NLS-1$
+				return null;
+			}
+			return cacheDir;
+		} catch (IllegalStateException e) {
+			// no state location
+			return null;
+		}
+	}
+
+	/**
+	 * Tells whether the Javadoc of the given element is cached.
+	 *
+	 * @param element the element
+	 * @return <code>true</code> if the element is from a binary package fragment root
+	 */
+	static boolean isCacheable(IJavaElement element) {
+		IPackageFragmentRoot root= JavaModelUtil.getPackageFragmentRoot(element);
+		if (root == null)
+			return false;
+		try {
+			return root.getKind() == IPackageFragmentRoot.K_BINARY;
+		} catch (JavaModelException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Computes the HTML content of an element.
+	 */
+	interface IContentProvider {
+		String getContent() throws CoreException;
+	}
+
+	/**
+	 * Returns the cached HTML content of the given element or computes and caches it.
+	 *
+	 * @param element an element of a binary package fragment root
+	 * @param useAttachedJavadoc whether the content may come from attached Javadoc
+	 * @param provider computes the content if it is not cached
+	 * @return the content or <code>null</code> if the element has no Javadoc
+	 * @throws CoreException thrown by the provider
+	 */
+	String getHTMLContent(IJavaElement element, boolean useAttachedJavadoc, IContentProvider provider) throws CoreException {
+		String key= element.getHandleIdentifier() + '#' + useAttachedJavadoc;
+		int generation;
+		synchronized (this) {
+			String content= fContents.get(key);
+			if (content != null)
+				return content == NO_CONTENT ? null : content;
+			generation= fGeneration;
+		}
+
+		String content= provider.getContent();
+		synchronized (this) {
+			if (generation == fGeneration)
+				fContents.put(key, content != null ? content : NO_CONTENT);
+		}
+		return content;
+	}
+
+	/**
+	 * Returns the attached Javadoc of the given element, reading it from the disk store if it has
+	 * been stored before.
+	 *
+	 * @param element the element
+	 * @return the attached Javadoc or <code>null</code> if none
+	 * @throws JavaModelException thrown when the Javadoc cannot be retrieved
+	 * @see IJavaElement#getAttachedJavadoc(org.eclipse.core.runtime.IProgressMonitor)
+	 */
+	String getAttachedJavadoc(IJavaElement element) throws JavaModelException {
+		File file= null;
+		String key= null;
+		if (fCacheDir != null && isCacheable(element)) {
+			key= getStoreKey(element);
+			if (key != null) {
+				file= new File(fCacheDir, getFileName(key));
+				String stored= read(file, key);
+				if (stored != null)
+					return stored;
+			}
+		}
+
+		String javadoc= element.getAttachedJavadoc(null);
+		if (javadoc != null && file != null)
+			write(file, key, javadoc);
+		return javadoc;
+	}
+
+	private synchronized void clear() {
+		fGeneration++;
+		fContents.clear();
+	}
+
+	/**
+	 * Returns the key of the given element in the disk store: its handle, the Javadoc location and
+	 * the time stamp of its library.
+	 *
+	 * @param element the element
+	 * @return the key or <code>null</code> if the element has no Javadoc location
+	 * @throws JavaModelException thrown when the Javadoc location cannot be accessed
+	 */
+	private static String getStoreKey(IJavaElement element) throws JavaModelException {
+		URL location= JavaDocLocations.getJavadocBaseLocation(element);
+		if (location == null)
+			return null;
+
+		IPackageFragmentRoot root= JavaModelUtil.getPackageFragmentRoot(element);
+		IResource resource= root.getResource();
+		IPath path= resource != null ? resource.getLocation() : root.getPath();
+		long timeStamp= path != null ? path.toFile().lastModified() : 0;
+		return element.getHandleIdentifier() + '\n' + location.toExternalForm() + '\n' + timeStamp;
+	}
+
+	private static String getFileName(String key) {
+		try {
+			byte[] digest= MessageDigest.getInstance("SHA-1").digest(key.getBytes(StandardCharsets.UTF_8)); //$NON-NLS-1$
+			StringBuilder buf= new StringBuilder(2 * digest.length + 5);
+			for (int i= 0; i < digest.length; i++) {
+				buf.append(Character.forDigit((digest[i] >> 4) & 0xF, 16));
+				buf.append(Character.forDigit(digest[i] & 0xF, 16));
+			}
+			return buf.append(".html").toString(); //$NON-NLS-1$
+		} catch (NoSuchAlgorithmException e) {
+			return Integer.toHexString(key.hashCode()) + ".html"; //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Reads a stored Javadoc. The file starts with the key, so that colliding file names are
+	 * detected.
+	 *
+	 * @param file the file
+	 * @param key the key
+	 * @return the Javadoc or <code>null</code> if not stored under the given key
+	 */
+	private static String read(File file, String key) {
+		if (!file.isFile())
+			return null;
+		try (BufferedReader reader= new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+			char[] storedKey= new char[key.length() + 1];
+			int read= 0;
+			while (read < storedKey.length) {
+				int n= reader.read(storedKey, read, storedKey.length - read);
+				if (n == -1)
+					return null;
+				read+= n;
+			}
+			if (!key.equals(new String(storedKey, 0, key.length())) || storedKey[key.length()] != '\0')
+				return null;
+
+			StringBuilder buf= new StringBuilder();
+			char[] chars= new char[8192];
+			int n;
+			while ((n= reader.read(chars)) != -1) {
+				buf.append(chars, 0, n);
+			}
+			return buf.toString();
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	private void write(File file, String key, String javadoc) {
+		synchronized (this) {
+			if (fFileCount >= MAX_FILES) {
+				File[] files= fCacheDir.listFiles();
+				if (files != null) {
+					for (int i= 0; i < files.length; i++) {
+						files[i].delete();
+					}
+				}
+				fFileCount= 0;
+			}
+			fFileCount++;
+		}
+
+		File temp= new File(file.getPath() + ".tmp"); //$NON-NLS-1$
+		try (Writer writer= new OutputStreamWriter(new FileOutputStream(temp), StandardCharsets.UTF_8)) {
+			writer.write(key);
+			writer.write('\0');
+			writer.write(javadoc);
+		} catch (IOException e) {
+			temp.delete();
+			return;
+		}
+		if (!temp.renameTo(file)) {
+			file.delete();
+			if (!temp.renameTo(file))
+				temp.delete();
+		}
+	}
+}
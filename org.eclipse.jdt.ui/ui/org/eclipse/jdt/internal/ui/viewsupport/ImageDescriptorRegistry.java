@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,12 +10,13 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui.viewsupport;
 
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.Point;
 import org.eclipse.swt.widgets.Display;
 
 import org.eclipse.core.runtime.Assert;
@@ -24,19 +25,137 @@ import org.eclipse.jface.resource.ImageDescriptor;
 
 import org.eclipse.ui.PlatformUI;
 
+import org.eclipse.jdt.ui.JavaElementImageDescriptor;
+
 /**
  * A registry that maps <code>ImageDescriptors</code> to <code>Image</code>.
+ * <p>
+ * The registry can be accessed concurrently. Overlay images can be requested through
+ * {@link #get(ImageDescriptor, int, Point)}, which looks up the image by a canonical
+ * (base image, adornments, size) key and only creates a {@link JavaElementImageDescriptor}
+ * if the image is not yet registered. Other kinds of overlays can be requested the same
+ * way with {@link #get(ImageDescriptor, int, Point, IOverlayDescriptorFactory)}.
+ * </p>
+ * <p>
+ * Images obtained with a <code>get</code> method stay registered until the registry is
+ * disposed. If the registry has been created with eviction enabled, images obtained with
+ * {@link #acquire(ImageDescriptor)} are disposed as soon as every acquire has been matched
+ * by a {@link #release(ImageDescriptor)} and no client has requested the image with
+ * {@link #get(ImageDescriptor)}.
+ * </p>
  */
 public class ImageDescriptorRegistry {
 
-	private Map<ImageDescriptor, Image> fRegistry= Collections.synchronizedMap(new HashMap<ImageDescriptor, Image>(10));
+	/**
+	 * Creates the descriptor of an overlay image that is not yet registered.
+	 * Factories are compared by identity, so clients should use a single instance.
+	 *
+	 * @since 3.13
+	 */
+	public interface IOverlayDescriptorFactory {
+
+		/**
+		 * Creates the descriptor of the overlay image.
+		 *
+		 * @param baseImage the base image
+		 * @param adornments the adornment flags
+		 * @param size the size of the resulting image
+		 * @return the image descriptor
+		 */
+		ImageDescriptor createDescriptor(ImageDescriptor baseImage, int adornments, Point size);
+	}
+
+	private static final IOverlayDescriptorFactory JAVA_ELEMENT_OVERLAYS= new IOverlayDescriptorFactory() {
+		@Override
+		public ImageDescriptor createDescriptor(ImageDescriptor baseImage, int adornments, Point size) {
+			return new JavaElementImageDescriptor(baseImage, adornments, size);
+		}
+	};
+
+	/**
+	 * Canonical key for an overlay image. Unlike {@link JavaElementImageDescriptor}, the key is
+	 * immutable and spreads the adornment flags over the whole hash code.
+	 */
+	private static final class OverlayKey {
+
+		private final IOverlayDescriptorFactory fFactory;
+		private final ImageDescriptor fBaseImage;
+		private final int fAdornments;
+		private final int fWidth;
+		private final int fHeight;
+		private final int fHashCode;
+
+		OverlayKey(IOverlayDescriptorFactory factory, ImageDescriptor baseImage, int adornments, Point size) {
+			fFactory= factory;
+			fBaseImage= baseImage;
+			fAdornments= adornments;
+			fWidth= size.x;
+			fHeight= size.y;
+			int hash= System.identityHashCode(factory);
+			hash= 31 * hash + baseImage.hashCode();
+			hash= 31 * hash + adornments;
+			hash= 31 * hash + fWidth;
+			fHashCode= 31 * hash + fHeight;
+		}
+
+		@Override
+		public int hashCode() {
+			return fHashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof OverlayKey))
+				return false;
+			OverlayKey other= (OverlayKey) obj;
+			return fFactory == other.fFactory && fAdornments == other.fAdornments && fWidth == other.fWidth && fHeight == other.fHeight && fBaseImage.equals(other.fBaseImage);
+		}
+	}
+
+	private static final class Entry {
+
+		final Image fImage;
+		/** Number of unmatched {@link ImageDescriptorRegistry#acquire(ImageDescriptor)} calls; guarded by <code>this</code>. */
+		int fReferences;
+		/** <code>true</code> if the image has been handed out by a <code>get</code> method; guarded by <code>this</code>. */
+		boolean fPinned;
+		/** <code>true</code> if the entry has been removed from the registry; guarded by <code>this</code>. */
+		boolean fEvicted;
+
+		Entry(Image image) {
+			fImage= image;
+		}
+	}
+
+	private final ConcurrentMap<Object, Entry> fRegistry= new ConcurrentHashMap<>(64);
+	private final boolean fEvictUnreferenced;
 	private Display fDisplay;
 
+	private final AtomicLong fHits= new AtomicLong();
+	private final AtomicLong fMisses= new AtomicLong();
+	private final AtomicLong fCreations= new AtomicLong();
+	private final AtomicLong fEvictions= new AtomicLong();
+
 	/**
 	 * Creates a new image descriptor registry for the given display. All images
 	 * managed by this registry will be disposed when the display gets disposed.
 	 */
 	public ImageDescriptorRegistry() {
+		this(false);
+	}
+
+	/**
+	 * Creates a new image descriptor registry for the given display. All images
+	 * managed by this registry will be disposed when the display gets disposed.
+	 *
+	 * @param evictUnreferenced if <code>true</code>, images obtained with
+	 *  {@link #acquire(ImageDescriptor)} are disposed when their last reference is released
+	 * @since 3.13
+	 */
+	public ImageDescriptorRegistry(boolean evictUnreferenced) {
+		fEvictUnreferenced= evictUnreferenced;
 		fDisplay= PlatformUI.getWorkbench().getDisplay();
 		Assert.isNotNull(fDisplay);
 		hookDisplay();
@@ -53,26 +172,228 @@ public class ImageDescriptorRegistry {
 	public Image get(ImageDescriptor descriptor) {
 		if (descriptor == null)
 			descriptor= ImageDescriptor.getMissingImageDescriptor();
+		return getPinned(descriptor, descriptor, null, 0, null);
+	}
+
+	/**
+	 * Returns the image for the given base image decorated with the given adornments.
+	 * This is equivalent to <code>get(new JavaElementImageDescriptor(baseImage, adornments, size))</code>,
+	 * but avoids creating the composite descriptor if the image is already registered.
+	 * Clients should not request the same overlay both ways, since the image would be
+	 * created and registered twice.
+	 *
+	 * @param baseImage the base image
+	 * @param adornments the adornment flags, see {@link JavaElementImageDescriptor}
+	 * @param size the size of the resulting image
+	 * @return the decorated image or <code>null</code> if the image can't be created
+	 */
+	public Image get(ImageDescriptor baseImage, int adornments, Point size) {
+		return get(baseImage, adornments, size, JAVA_ELEMENT_OVERLAYS);
+	}
+
+	/**
+	 * Returns the image for the given base image decorated with the given adornments. The
+	 * descriptor of the overlay image is only created by the given factory if the image is
+	 * not yet registered.
+	 *
+	 * @param baseImage the base image
+	 * @param adornments the adornment flags as understood by the factory
+	 * @param size the size of the resulting image
+	 * @param factory the factory of the overlay descriptor
+	 * @return the decorated image or <code>null</code> if the image can't be created
+	 * @since 3.13
+	 */
+	public Image get(ImageDescriptor baseImage, int adornments, Point size, IOverlayDescriptorFactory factory) {
+		Assert.isNotNull(baseImage);
+		Assert.isNotNull(size);
+		Assert.isNotNull(factory);
+
+		return getPinned(new OverlayKey(factory, baseImage, adornments, size), baseImage, factory, adornments, size);
+	}
+
+	/**
+	 * Returns the image associated with the given image descriptor and increments its
+	 * reference count. Every call must be matched by a call to {@link #release(ImageDescriptor)}
+	 * once the client no longer shows the image.
+	 *
+	 * @param descriptor the image descriptor for which the registry manages an image,
+	 *  or <code>null</code> for a missing image descriptor
+	 * @return the image associated with the image descriptor or <code>null</code>
+	 *  if the image descriptor can't create the requested image.
+	 * @since 3.13
+	 */
+	public Image acquire(ImageDescriptor descriptor) {
+		if (descriptor == null)
+			descriptor= ImageDescriptor.getMissingImageDescriptor();
+
+		while (true) {
+			Entry entry= getEntry(descriptor, descriptor);
+			if (entry == null)
+				return null;
+			synchronized (entry) {
+				if (!entry.fEvicted) {
+					entry.fReferences++;
+					return entry.fImage;
+				}
+			}
+			// raced with an eviction, try again
+		}
+	}
+
+	/**
+	 * Releases a reference obtained with {@link #acquire(ImageDescriptor)}. If eviction is enabled
+	 * and this was the last reference, the image is removed from the registry and disposed.
+	 *
+	 * @param descriptor the image descriptor that has been passed to {@link #acquire(ImageDescriptor)}
+	 * @since 3.13
+	 */
+	public void release(ImageDescriptor descriptor) {
+		if (descriptor == null)
+			descriptor= ImageDescriptor.getMissingImageDescriptor();
+
+		Entry entry= fRegistry.get(descriptor);
+		if (entry == null)
+			return;
+		synchronized (entry) {
+			if (entry.fReferences > 0)
+				entry.fReferences--;
+			if (!fEvictUnreferenced || entry.fReferences > 0 || entry.fPinned || entry.fEvicted)
+				return;
+			entry.fEvicted= true;
+		}
+		if (fRegistry.remove(descriptor, entry)) {
+			fEvictions.incrementAndGet();
+			disposeImage(entry.fImage);
+		}
+	}
+
+	/**
+	 * @return the number of images currently managed by this registry
+	 * @since 3.13
+	 */
+	public int size() {
+		return fRegistry.size();
+	}
+
+	/**
+	 * @return the number of requests that were answered with an already registered image
+	 * @since 3.13
+	 */
+	public long getHitCount() {
+		return fHits.get();
+	}
+
+	/**
+	 * @return the number of requests for which no image was registered yet
+	 * @since 3.13
+	 */
+	public long getMissCount() {
+		return fMisses.get();
+	}
 
-		Image result= fRegistry.get(descriptor);
-		if (result != null)
-			return result;
+	/**
+	 * @return the number of images created by this registry, including images that have been
+	 *  disposed immediately because another thread registered the same image concurrently
+	 * @since 3.13
+	 */
+	public long getImageCreationCount() {
+		return fCreations.get();
+	}
 
-		result= descriptor.createImage();
-		if (result != null)
-			fRegistry.put(descriptor, result);
-		return result;
+	/**
+	 * @return the number of images that have been evicted from this registry
+	 * @since 3.13
+	 */
+	public long getEvictionCount() {
+		return fEvictions.get();
 	}
 
 	/**
 	 * Disposes all images managed by this registry.
 	 */
 	public void dispose() {
-		for (Iterator<Image> iter= fRegistry.values().iterator(); iter.hasNext(); ) {
-			Image image= iter.next();
+		for (Iterator<Entry> iter= fRegistry.values().iterator(); iter.hasNext(); ) {
+			Entry entry= iter.next();
+			iter.remove();
+			entry.fImage.dispose();
+		}
+	}
+
+	/**
+	 * Returns the registered image for the given key, creating it if needed, and pins it.
+	 *
+	 * @param key the key
+	 * @param descriptor the descriptor of the image or, if a factory is given, the base image
+	 * @param factory the overlay factory or <code>null</code>
+	 * @param adornments the adornments passed to the factory
+	 * @param size the size passed to the factory
+	 * @return the image or <code>null</code> if it can't be created
+	 */
+	private Image getPinned(Object key, ImageDescriptor descriptor, IOverlayDescriptorFactory factory, int adornments, Point size) {
+		while (true) {
+			Entry entry= fRegistry.get(key);
+			if (entry != null) {
+				fHits.incrementAndGet();
+			} else {
+				// only create the overlay descriptor on a miss
+				ImageDescriptor created= factory != null ? factory.createDescriptor(descriptor, adornments, new Point(size.x, size.y)) : descriptor;
+				entry= createEntry(key, created);
+				if (entry == null)
+					return null;
+			}
+			if (pin(entry))
+				return entry.fImage;
+			// raced with an eviction, try again
+		}
+	}
+
+	private Entry getEntry(Object key, ImageDescriptor descriptor) {
+		Entry entry= fRegistry.get(key);
+		if (entry != null) {
+			fHits.incrementAndGet();
+			return entry;
+		}
+		return createEntry(key, descriptor);
+	}
+
+	private Entry createEntry(Object key, ImageDescriptor descriptor) {
+		fMisses.incrementAndGet();
+
+		// create the image outside of the map to not block other lookups
+		Image image= descriptor.createImage();
+		if (image == null)
+			return null;
+		fCreations.incrementAndGet();
+
+		Entry created= new Entry(image);
+		Entry existing= fRegistry.putIfAbsent(key, created);
+		if (existing != null) {
+			image.dispose();
+			return existing;
+		}
+		return created;
+	}
+
+	private static boolean pin(Entry entry) {
+		synchronized (entry) {
+			if (entry.fEvicted)
+				return false;
+			entry.fPinned= true;
+			return true;
+		}
+	}
+
+	private void disposeImage(final Image image) {
+		if (Display.getCurrent() == fDisplay) {
 			image.dispose();
+		} else if (!fDisplay.isDisposed()) {
+			fDisplay.asyncExec(new Runnable() {
+				@Override
+				public void run() {
+					image.dispose();
+				}
+			});
 		}
-		fRegistry.clear();
 	}
 
 	private void hookDisplay() {
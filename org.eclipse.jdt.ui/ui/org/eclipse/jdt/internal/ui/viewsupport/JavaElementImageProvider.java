@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -492,7 +492,7 @@ public class JavaElementImageProvider {
 
 
 	public static Image getDecoratedImage(ImageDescriptor baseImage, int adornments, Point size) {
-		return JavaPlugin.getImageDescriptorRegistry().get(new JavaElementImageDescriptor(baseImage, adornments, size));
+		return JavaPlugin.getImageDescriptorRegistry().get(baseImage, adornments, size);
 	}
 
 
@@ -0,0 +1,311 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.viewsupport;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jface.util.IPropertyChangeListener;
+import org.eclipse.jface.util.PropertyChangeEvent;
+import org.eclipse.jface.viewers.StyledString;
+import org.eclipse.jface.viewers.StyledString.Styler;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.JavaCore;
+
+import org.eclipse.jdt.ui.JavaElementLabels;
+import org.eclipse.jdt.ui.PreferenceConstants;
+
+import org.eclipse.jdt.internal.ui.viewsupport.JavaElementLabelComposer.FlexibleStyledString;
+
+/**
+ * Caches the labels composed by {@link JavaElementLabelComposer} for
+ * {@link JavaElementLabels#getElementLabel(IJavaElement, long)} and
+ * {@link JavaElementLabels#getStyledElementLabel(IJavaElement, long)}, so that refreshing a viewer
+ * does not compose the labels of all its elements again.
+ * <p>
+ * Labels are cached by element and flags. Only elements of primary compilation units and of class
+ * files are cached, local variables are not. The cache is cleared by every Java element delta that
+ * may change a label and by every change of the Java UI preferences.
+ * </p>
+ *
+ * @since 3.13
+ */
+public class JavaElementLabelCache {
+
+	private static final int MAX_ENTRIES= 2000;
+
+	/**
+	 * A composed label: its text and the styles set on it.
+	 */
+	private static final class Label {
+
+		final String fText;
+		final int[] fStyleRanges;
+		final Styler[] fStylers;
+
+		Label(String text, int[] styleRanges, Styler[] stylers) {
+			fText= text;
+			fStyleRanges= styleRanges;
+			fStylers= stylers;
+		}
+
+		StyledString toStyledString() {
+			StyledString result= new StyledString(fText);
+			for (int i= 0; i < fStylers.length; i++) {
+				result.setStyle(fStyleRanges[2 * i], fStyleRanges[2 * i + 1], fStylers[i]);
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * A styled string buffer that records the styles set on it.
+	 */
+	private static final class RecordingStyledString extends FlexibleStyledString {
+
+		private final List<Integer> fStyleRanges= new ArrayList<>();
+		private final List<Styler> fStylers= new ArrayList<>();
+
+		RecordingStyledString() {
+			super(new StyledString());
+		}
+
+		@Override
+		public void setStyle(int offset, int length, Styler styler) {
+			super.setStyle(offset, length, styler);
+			fStyleRanges.add(Integer.valueOf(offset));
+			fStyleRanges.add(Integer.valueOf(length));
+			fStylers.add(styler);
+		}
+
+		Label toLabel() {
+			int[] styleRanges= new int[fStyleRanges.size()];
+			for (int i= 0; i < styleRanges.length; i++) {
+				styleRanges[i]= fStyleRanges.get(i).intValue();
+			}
+			return new Label(toString(), styleRanges, fStylers.toArray(new Styler[fStylers.size()]));
+		}
+	}
+
+	private static final class Key {
+
+		private final IJavaElement fElement;
+		private final long fFlags;
+
+		Key(IJavaElement element, long flags) {
+			fElement= element;
+			fFlags= flags;
+		}
+
+		@Override
+		public int hashCode() {
+			return fElement.hashCode() * 31 + (int) (fFlags ^ (fFlags >>> 32));
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			Key other= (Key) obj;
+			return fFlags == other.fFlags && fElement.equals(other.fElement);
+		}
+	}
+
+	private class Listener implements IElementChangedListener, IPropertyChangeListener {
+
+		@Override
+		public void elementChanged(ElementChangedEvent event) {
+			if (affectsLabels(event.getDelta()))
+				clear();
+		}
+
+		@Override
+		public void propertyChange(PropertyChangeEvent event) {
+			clear();
+		}
+	}
+
+	private static JavaElementLabelCache fgInstance;
+
+	private final Listener fListener;
+
+	/** The labels by element and flags. Guarded by <code>this</code>. */
+	private final Map<Key, Label> fLabels= new LinkedHashMap<Key, Label>(16, 0.75f, true) {
+		private static final long serialVersionUID= 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, Label> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+
+	/** Incremented whenever the cache is cleared. Guarded by <code>this</code>. */
+	private int fGeneration;
+
+	public static synchronized JavaElementLabelCache getInstance() {
+		if (fgInstance == null)
+			fgInstance= new JavaElementLabelCache();
+		return fgInstance;
+	}
+
+	public static synchronized void shutdown() {
+		if (fgInstance == null)
+			return;
+		JavaCore.removeElementChangedListener(fgInstance.fListener);
+		PreferenceConstants.getPreferenceStore().removePropertyChangeListener(fgInstance.fListener);
+		fgInstance.clear();
+		fgInstance= null;
+	}
+
+	private JavaElementLabelCache() {
+		fListener= new Listener();
+		JavaCore.addElementChangedListener(fListener, ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+		PreferenceConstants.getPreferenceStore().addPropertyChangeListener(fListener);
+	}
+
+	/**
+	 * Returns the label of the given element as composed by
+	 * {@link JavaElementLabelComposer#appendElementLabel(IJavaElement, long)}.
+	 *
+	 * @param element the element to render
+	 * @param flags the rendering flags
+	 * @return the label
+	 */
+	public String getElementLabel(IJavaElement element, long flags) {
+		return getLabel(element, flags).fText;
+	}
+
+	/**
+	 * Returns the styled label of the given element as composed by
+	 * {@link JavaElementLabelComposer#appendElementLabel(IJavaElement, long)}.
+	 *
+	 * @param element the element to render
+	 * @param flags the rendering flags
+	 * @return a new styled string with the label
+	 */
+	public StyledString getStyledElementLabel(IJavaElement element, long flags) {
+		return getLabel(element, flags).toStyledString();
+	}
+
+	private Label getLabel(IJavaElement element, long flags) {
+		boolean cacheable= isCacheable(element);
+		Key key= null;
+		int generation= 0;
+		if (cacheable) {
+			key= new Key(element, flags);
+			synchronized (this) {
+				Label label= fLabels.get(key);
+				if (label != null)
+					return label;
+				generation= fGeneration;
+			}
+		}
+
+		RecordingStyledString buffer= new RecordingStyledString();
+		new JavaElementLabelComposer(buffer).appendElementLabel(element, flags);
+		Label label= buffer.toLabel();
+
+		if (cacheable) {
+			synchronized (this) {
+				if (generation == fGeneration)
+					fLabels.put(key, label);
+			}
+		}
+		return label;
+	}
+
+	/**
+	 * Tells whether the given delta may change the label of any element. Unlike
+	 * <code>JavaModelUtil.affectsDeclarations(IJavaElementDelta)</code>, content changes of methods
+	 * and fields count: fine-grained deltas report a changed return type or field type as a
+	 * content change only.
+	 *
+	 * @param delta the delta
+	 * @return <code>false</code> if only the bodies of initializers have changed
+	 */
+	private static boolean affectsLabels(IJavaElementDelta delta) {
+		if (delta.getKind() != IJavaElementDelta.CHANGED)
+			return true;
+
+		int flags= delta.getFlags();
+		switch (delta.getElement().getElementType()) {
+			case IJavaElement.JAVA_MODEL:
+			case IJavaElement.JAVA_PROJECT:
+			case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+			case IJavaElement.PACKAGE_FRAGMENT:
+				// F_CONTENT: non-Java resources have changed
+				if ((flags & ~(IJavaElementDelta.F_CHILDREN | IJavaElementDelta.F_CONTENT)) != 0)
+					return true;
+				break;
+
+			case IJavaElement.COMPILATION_UNIT:
+				if ((flags & ~(IJavaElementDelta.F_CHILDREN | IJavaElementDelta.F_CONTENT | IJavaElementDelta.F_FINE_GRAINED
+						| IJavaElementDelta.F_PRIMARY_RESOURCE | IJavaElementDelta.F_PRIMARY_WORKING_COPY | IJavaElementDelta.F_AST_AFFECTED)) != 0)
+					return true;
+				// a content change without details may have changed anything
+				if ((flags & IJavaElementDelta.F_CONTENT) != 0 && (flags & IJavaElementDelta.F_FINE_GRAINED) == 0)
+					return true;
+				break;
+
+			case IJavaElement.TYPE:
+				if (flags != IJavaElementDelta.F_CHILDREN)
+					return true;
+				break;
+
+			case IJavaElement.METHOD:
+			case IJavaElement.FIELD:
+				// the content includes the return type and the field type
+				return true;
+
+			case IJavaElement.INITIALIZER:
+				// local and anonymous types are reported as children
+				return flags != IJavaElementDelta.F_CONTENT || delta.getAffectedChildren().length > 0;
+
+			default:
+				return true;
+		}
+
+		IJavaElementDelta[] children= delta.getAffectedChildren();
+		for (int i= 0; i < children.length; i++) {
+			if (affectsLabels(children[i]))
+				return true;
+		}
+		return false;
+	}
+
+	private synchronized void clear() {
+		fGeneration++;
+		fLabels.clear();
+	}
+
+	/**
+	 * Tells whether the label of the given element can be cached. Changes of working copies that
+	 * are not primary are not always reported by deltas. Local variables are equal to a variable
+	 * of another type at the same place.
+	 *
+	 * @param element the element
+	 * @return <code>true</code> if the element is not a local variable and not in a working copy
+	 *         of another owner
+	 */
+	private static boolean isCacheable(IJavaElement element) {
+		if (element.getElementType() == IJavaElement.LOCAL_VARIABLE)
+			return false;
+		ICompilationUnit cu= (ICompilationUnit) element.getAncestor(IJavaElement.COMPILATION_UNIT);
+		return cu == null || cu.getOwner() == null;
+	}
+}
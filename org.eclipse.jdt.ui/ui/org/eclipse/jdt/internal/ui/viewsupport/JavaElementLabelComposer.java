@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -633,7 +633,7 @@ public class JavaElementLabelComposer {
 		String[] categories= member.getCategories();
 		if (categories.length > 0) {
 			int offset= fBuffer.length();
-			StringBuffer categoriesBuf= new StringBuffer();
+			StringBuilder categoriesBuf= new StringBuilder();
 			for (int i= 0; i < categories.length; i++) {
 				if (i > 0)
 					categoriesBuf.append(JavaElementLabels.CATEGORY_SEPARATOR_STRING);
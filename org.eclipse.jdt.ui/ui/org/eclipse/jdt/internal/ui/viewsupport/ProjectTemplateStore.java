@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,7 +14,10 @@ import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.core.runtime.Assert;
@@ -40,6 +43,21 @@ public final class ProjectTemplateStore {
 
 	private static final String KEY= "org.eclipse.jdt.ui.text.custom_code_templates"; //$NON-NLS-1$
 
+	private static final int MAX_CACHED_PREFERENCES= 10;
+
+	/**
+	 * The project specific templates by id, by the value of the preference that stores them.
+	 * Guarded by <code>fgProjectTemplates</code>.
+	 */
+	private static final Map<String, Map<String, Template>> fgProjectTemplates= new LinkedHashMap<String, Map<String, Template>>(16, 0.75f, true) {
+		private static final long serialVersionUID= 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Map<String, Template>> eldest) {
+			return size() > MAX_CACHED_PREFERENCES;
+		}
+	};
+
 	private final TemplateStore fInstanceStore;
 	private final TemplateStore fProjectStore;
 
@@ -100,6 +118,54 @@ public final class ProjectTemplateStore {
 	}
 
 
+	/**
+	 * Returns the code template with the given id that applies to the given project. This is the
+	 * template that {@link #findTemplateById(String)} returns after {@link #load()}, but no store is
+	 * created and the project specific templates are only parsed when their preference has changed.
+	 *
+	 * @param project the project
+	 * @param id the template id
+	 * @return the template or <code>null</code> if none
+	 * @since 3.13
+	 */
+	public static Template findTemplateById(IProject project, String id) {
+		String pref= new ProjectScope(project).getNode(JavaUI.ID_PLUGIN).get(KEY, null);
+		if (pref != null && pref.trim().length() > 0) {
+			Template template= getProjectTemplates(pref).get(id);
+			if (template != null)
+				return template;
+		}
+		return JavaPlugin.getDefault().getCodeTemplateStore().findTemplateById(id);
+	}
+
+	private static Map<String, Template> getProjectTemplates(String pref) {
+		synchronized (fgProjectTemplates) {
+			Map<String, Template> templates= fgProjectTemplates.get(pref);
+			if (templates != null)
+				return templates;
+		}
+
+		Map<String, Template> templates= new HashMap<>();
+		try {
+			TemplatePersistenceData[] datas= new TemplateReaderWriter().read(new StringReader(pref));
+			for (int i= 0; i < datas.length; i++) {
+				// later entries replace earlier ones, as in TemplateStore#load()
+				if (datas[i].getId() == null)
+					continue;
+				if (datas[i].isDeleted())
+					templates.remove(datas[i].getId());
+				else
+					templates.put(datas[i].getId(), datas[i].getTemplate());
+			}
+		} catch (IOException e) {
+			JavaPlugin.log(e);
+		}
+		synchronized (fgProjectTemplates) {
+			fgProjectTemplates.put(pref, templates);
+		}
+		return templates;
+	}
+
 	public TemplatePersistenceData[] getTemplateData() {
 		if (fProjectStore != null) {
 			return fProjectStore.getTemplateData(true);
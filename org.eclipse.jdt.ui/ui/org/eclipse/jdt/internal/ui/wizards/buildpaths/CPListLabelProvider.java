@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -442,7 +442,7 @@ public class CPListLabelProvider extends LabelProvider {
 			if (((CPUserLibraryElement) element).hasMissingChildren()) {
 				ImageDescriptor descriptor= fSharedImages.getImageDescriptor(ISharedImages.IMG_OBJS_LIBRARY);
 				if (descriptor != null) {
-					return fRegistry.get(new JavaElementImageDescriptor(descriptor, JavaElementImageDescriptor.ERROR, JavaElementImageProvider.SMALL_SIZE));
+					return fRegistry.get(descriptor, JavaElementImageDescriptor.ERROR, JavaElementImageProvider.SMALL_SIZE);
 				}
 			}
 			return fSharedImages.getImage(ISharedImages.IMG_OBJS_LIBRARY);
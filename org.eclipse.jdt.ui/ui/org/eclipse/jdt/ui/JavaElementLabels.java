@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -48,6 +48,7 @@ import org.eclipse.jdt.internal.ui.JavaUIMessages;
 import org.eclipse.jdt.internal.ui.packageview.ClassPathContainer;
 import org.eclipse.jdt.internal.core.manipulation.util.BasicElementLabels;
 
+import org.eclipse.jdt.internal.ui.viewsupport.JavaElementLabelCache;
 import org.eclipse.jdt.internal.ui.viewsupport.JavaElementLabelComposer;
 
 
@@ -488,9 +489,8 @@ public class JavaElementLabels {
 	 * @return the label of the Java element
 	 */
 	public static String getElementLabel(IJavaElement element, long flags) {
-		StringBuffer result= new StringBuffer();
-		getElementLabel(element, flags, result);
-		return org.eclipse.jdt.internal.core.manipulation.util.Strings.markJavaElementLabelLTR(result.toString());
+		String result= JavaElementLabelCache.getInstance().getElementLabel(element, flags);
+		return org.eclipse.jdt.internal.core.manipulation.util.Strings.markJavaElementLabelLTR(result);
 	}
 
 	/**
@@ -503,8 +503,7 @@ public class JavaElementLabels {
 	 * @since 3.4
 	 */
 	public static StyledString getStyledElementLabel(IJavaElement element, long flags) {
-		StyledString result= new StyledString();
-		getElementLabel(element, flags, result);
+		StyledString result= JavaElementLabelCache.getInstance().getStyledElementLabel(element, flags);
 		return Strings.markJavaElementLabelLTR(result);
 	}
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2011 IBM Corporation and others.
+ * Copyright (c) 2006, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -362,7 +362,8 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 
 				fUpdatingCount++;
 				try {
-					update(createContext(false));
+					if (!updateIncrementally(createContext(false), delta))
+						update(createContext(false));
 				} finally {
 					fUpdatingCount--;
 				}
@@ -726,6 +727,13 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 
 	private volatile int fUpdatingCount= 0;
 
+	/**
+	 * The projection annotations of the input by java element, sorted by offset, or
+	 * <code>null</code> if the folding structure has to be computed from scratch.
+	 * @since 3.13
+	 */
+	private Map<IJavaElement, List<Tuple>> fElementIndex;
+
 	/**
 	 * Creates a new folding provider. It must be
 	 * {@link #install(ITextEditor, ProjectionViewer) installed} on an editor/viewer pair before it
@@ -830,6 +838,7 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 			JavaCore.removeElementChangedListener(fElementListener);
 			fElementListener= null;
 		}
+		fElementIndex= null;
 	}
 
 	/*
@@ -890,14 +899,136 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 		if (ctx == null)
 			return;
 
+		computeFoldingStructure(ctx);
+		Map<IJavaElement, List<Tuple>> index= new HashMap<>();
+		applyStructure(ctx, computeCurrentStructure(ctx), index);
+		fElementIndex= index;
+
+		ctx.fScanner.setSource(null);
+    }
+
+	/**
+	 * Updates the annotations of the members changed in the given delta, if the delta
+	 * only describes content changes of members without children. The annotations of
+	 * all other elements are left alone, their positions are kept up to date by the
+	 * annotation model.
+	 *
+	 * @param ctx the context, may be <code>null</code>
+	 * @param delta the delta of the input element
+	 * @return <code>true</code> if the folding structure has been updated, <code>false</code>
+	 *         if it has to be computed from scratch
+	 * @since 3.13
+	 */
+	private boolean updateIncrementally(FoldingStructureComputationContext ctx, IJavaElementDelta delta) {
+		Map<IJavaElement, List<Tuple>> index= fElementIndex;
+		if (ctx == null || index == null || !(fInput instanceof ISourceReference))
+			return false;
+
+		List<IJavaElement> members= new ArrayList<>();
+		try {
+			if (!collectChangedMembers(delta, members))
+				return false;
+			String source= ((ISourceReference) fInput).getSource();
+			if (source == null)
+				return false;
+			ctx.getScanner().setSource(source.toCharArray());
+		} catch (JavaModelException x) {
+			return false;
+		}
+
+		Set<IJavaElement> changed= new HashSet<>(members);
+		for (Iterator<IJavaElement> iter= members.iterator(); iter.hasNext();)
+			computeFoldingStructure(iter.next(), ctx);
+		for (Iterator<JavaProjectionAnnotation> iter= ctx.fMap.keySet().iterator(); iter.hasNext();) {
+			if (!changed.contains(iter.next().getElement())) {
+				// the annotations of other elements depend on the changed members
+				ctx.fScanner.setSource(null);
+				return false;
+			}
+		}
+
+		ProjectionAnnotationModel model= ctx.getModel();
+		Map<IJavaElement, List<Tuple>> oldStructure= new HashMap<>();
+		for (Iterator<IJavaElement> iter= members.iterator(); iter.hasNext();) {
+			IJavaElement member= iter.next();
+			List<Tuple> tuples= index.remove(member);
+			if (tuples == null)
+				continue;
+			List<Tuple> current= new ArrayList<>(tuples.size());
+			for (int i= 0, size= tuples.size(); i < size; i++) {
+				Tuple tuple= tuples.get(i);
+				// the annotation model removes annotations whose position got deleted
+				if (model.getPosition(tuple.annotation) != null)
+					current.add(tuple);
+			}
+			if (!current.isEmpty())
+				oldStructure.put(member, current);
+		}
+		applyStructure(ctx, oldStructure, index);
+
+		ctx.fScanner.setSource(null);
+		return true;
+	}
+
+	/**
+	 * Collects the members whose content changed according to the given delta.
+	 *
+	 * @param delta the delta
+	 * @param members the list to add the changed members to
+	 * @return <code>true</code> if the delta only describes content changes of methods, fields
+	 *         and initializers without children, <code>false</code> otherwise
+	 * @throws JavaModelException if a changed member does not exist
+	 * @since 3.13
+	 */
+	private boolean collectChangedMembers(IJavaElementDelta delta, List<IJavaElement> members) throws JavaModelException {
+		IJavaElementDelta[] children= delta.getAffectedChildren();
+		if (children.length == 0)
+			return false;
+
+		for (int i= 0; i < children.length; i++) {
+			IJavaElementDelta child= children[i];
+			if (child.getKind() != IJavaElementDelta.CHANGED)
+				return false;
+
+			IJavaElement element= child.getElement();
+			int flags= child.getFlags() & ~IJavaElementDelta.F_FINE_GRAINED;
+			switch (element.getElementType()) {
+				case IJavaElement.TYPE:
+					if (flags != IJavaElementDelta.F_CHILDREN || !collectChangedMembers(child, members))
+						return false;
+					break;
+				case IJavaElement.METHOD:
+				case IJavaElement.FIELD:
+				case IJavaElement.INITIALIZER:
+					// local and anonymous types may have moved inside the member
+					if (flags != IJavaElementDelta.F_CONTENT || child.getAffectedChildren().length > 0 || ((IParent) element).hasChildren())
+						return false;
+					members.add(element);
+					break;
+				default:
+					return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Applies the folding structure collected in the context to the annotation model, reusing
+	 * the existing annotations where possible.
+	 *
+	 * @param ctx the context
+	 * @param oldStructure the existing annotations of the elements whose folding structure
+	 *            has been computed; all remaining entries are deleted
+	 * @param index the element index to add the resulting annotations to
+	 * @since 3.13
+	 */
+	private void applyStructure(FoldingStructureComputationContext ctx, Map<IJavaElement, List<Tuple>> oldStructure, Map<IJavaElement, List<Tuple>> index) {
 		Map<JavaProjectionAnnotation, Position> additions= new HashMap<>();
 		List<JavaProjectionAnnotation> deletions= new ArrayList<>();
 		List<JavaProjectionAnnotation> updates= new ArrayList<>();
+		List<JavaProjectionAnnotation> kept= new ArrayList<>();
 
-		computeFoldingStructure(ctx);
 		Map<JavaProjectionAnnotation, Position> newStructure= ctx.fMap;
-		Map<IJavaElement, List<Tuple>> oldStructure= computeCurrentStructure(ctx);
-
 		Iterator<JavaProjectionAnnotation> e= newStructure.keySet().iterator();
 		while (e.hasNext()) {
 			JavaProjectionAnnotation newAnnotation= e.next();
@@ -936,6 +1067,8 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 								else
 									existingAnnotation.markExpanded();
 							updates.add(existingAnnotation);
+						} else {
+							kept.add(existingAnnotation);
 						}
 						matched= true;
 						x.remove();
@@ -964,8 +1097,35 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 		Annotation[] changedArray= updates.toArray(new Annotation[updates.size()]);
 		ctx.getModel().modifyAnnotations(deletedArray, additions, changedArray);
 
-		ctx.fScanner.setSource(null);
-    }
+		Set<JavaProjectionAnnotation> deleted= new HashSet<>(deletions);
+		Set<IJavaElement> indexed= new HashSet<>();
+		indexAnnotations(kept, deleted, index, indexed, ctx);
+		indexAnnotations(updates, deleted, index, indexed, ctx);
+		indexAnnotations(additions.keySet(), deleted, index, indexed, ctx);
+		Comparator<Tuple> comparator= createOffsetComparator();
+		for (Iterator<IJavaElement> it= indexed.iterator(); it.hasNext();)
+			Collections.sort(index.get(it.next()), comparator);
+	}
+
+	private void indexAnnotations(Collection<JavaProjectionAnnotation> annotations, Set<JavaProjectionAnnotation> deleted, Map<IJavaElement, List<Tuple>> index, Set<IJavaElement> indexed, FoldingStructureComputationContext ctx) {
+		ProjectionAnnotationModel model= ctx.getModel();
+		for (Iterator<JavaProjectionAnnotation> iter= annotations.iterator(); iter.hasNext();) {
+			JavaProjectionAnnotation annotation= iter.next();
+			if (deleted.contains(annotation))
+				continue;
+			Position position= model.getPosition(annotation);
+			if (position == null)
+				continue;
+			IJavaElement element= annotation.getElement();
+			List<Tuple> list= index.get(element);
+			if (list == null) {
+				list= new ArrayList<>(2);
+				index.put(element, list);
+			}
+			list.add(new Tuple(annotation, position));
+			indexed.add(element);
+		}
+	}
 
 	private void computeFoldingStructure(FoldingStructureComputationContext ctx) {
 		IParent parent= (IParent) fInput;
@@ -1408,12 +1568,7 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 			}
 		}
 
-		Comparator<Tuple> comparator= new Comparator<Tuple>() {
-			@Override
-			public int compare(Tuple o1, Tuple o2) {
-				return o1.position.getOffset() - o2.position.getOffset();
-			}
-		};
+		Comparator<Tuple> comparator= createOffsetComparator();
 		for (Iterator<List<Tuple>> it= map.values().iterator(); it.hasNext();) {
 			List<Tuple> list= it.next();
 			Collections.sort(list, comparator);
@@ -1421,6 +1576,15 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 		return map;
 	}
 
+	private static Comparator<Tuple> createOffsetComparator() {
+		return new Comparator<Tuple>() {
+			@Override
+			public int compare(Tuple o1, Tuple o2) {
+				return o1.position.getOffset() - o2.position.getOffset();
+			}
+		};
+	}
+
 	/*
 	 * @see IJavaFoldingStructureProviderExtension#collapseMembers()
 	 * @since 3.2